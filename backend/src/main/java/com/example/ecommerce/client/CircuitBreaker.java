@@ -0,0 +1,161 @@
+package com.example.ecommerce.client;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker guarding calls to an external gateway.
+ *
+ * CLOSED records the outcome of the last {@code windowSize} calls and opens once
+ * the failure rate crosses the threshold. OPEN rejects every call until
+ * {@code openDuration} has elapsed, then HALF_OPEN lets a few trial calls through:
+ * if they all succeed the breaker closes again, a single failure re-opens it.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenPermits;
+    private final LongSupplier nanoClock;
+    // Not a monitor, so callers on virtual threads are never pinned
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Ring buffer of recent outcomes, true = failure
+    private final boolean[] window;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls,
+                          double failureRateThreshold, Duration openDuration, int halfOpenPermits) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenPermits, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                   Duration openDuration, int halfOpenPermits, LongSupplier nanoClock) {
+        this.name = name;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenPermits = Math.max(1, halfOpenPermits);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns true if a call may proceed. Every granted permission must be
+     * followed by exactly one {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public boolean tryAcquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenInFlight >= halfOpenPermits - halfOpenSuccesses) {
+                    return false;
+                }
+                halfOpenInFlight++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight--;
+                halfOpenSuccesses++;
+                if (halfOpenSuccesses >= halfOpenPermits) {
+                    transitionTo(State.CLOSED);
+                }
+                return;
+            }
+            if (state == State.CLOSED) {
+                record(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                transitionTo(State.OPEN);
+                return;
+            }
+            if (state == State.CLOSED) {
+                record(true);
+                if (recordedCalls >= minimumCalls
+                        && (double) failedCalls / recordedCalls * 100.0 >= failureRateThreshold) {
+                    transitionTo(State.OPEN);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == window.length) {
+            if (window[windowIndex]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            failedCalls++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void transitionTo(State newState) {
+        state = newState;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+        if (newState == State.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        }
+        if (newState == State.CLOSED) {
+            windowIndex = 0;
+            recordedCalls = 0;
+            failedCalls = 0;
+        }
+    }
+}
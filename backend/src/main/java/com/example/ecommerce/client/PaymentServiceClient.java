@@ -1,53 +1,274 @@
 package com.example.ecommerce.client;
 
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
-import com.razorpay.RazorpayException;
+import com.example.ecommerce.exception.PaymentGatewayException;
+import com.example.ecommerce.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Razorpay REST gateway.
+ *
+ * Uses a single pooled {@link HttpClient} with explicit connect/read timeouts.
+ * Every call goes through a bounded bulkhead and a circuit breaker so a slow or
+ * failing Razorpay fast-fails with 503 instead of tying up request threads.
+ * Idempotent reads are retried with exponential backoff; order creation is not.
+ */
 @Component
 public class PaymentServiceClient {
-    
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentServiceClient.class);
+
     @Value("${razorpay.key.id}")
     private String razorpayKeyId;
-    
+
     @Value("${razorpay.key.secret}")
     private String razorpayKeySecret;
-    
-    private RazorpayClient razorpayClient;
-    
-    // Lazy initialization of Razorpay client
-    private RazorpayClient getClient() throws RazorpayException {
-        if (razorpayClient == null) {
-            razorpayClient = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-        }
-        return razorpayClient;
+
+    @Value("${razorpay.api.base-url:https://api.razorpay.com}")
+    private String baseUrl;
+
+    @Value("${razorpay.client.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${razorpay.client.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    @Value("${razorpay.client.max-concurrent-calls:20}")
+    private int maxConcurrentCalls;
+
+    @Value("${razorpay.client.max-wait-ms:100}")
+    private long maxWaitMs;
+
+    @Value("${razorpay.client.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${razorpay.client.retry.backoff-ms:200}")
+    private long backoffMs;
+
+    @Value("${razorpay.circuit-breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${razorpay.circuit-breaker.minimum-calls:10}")
+    private int breakerMinimumCalls;
+
+    @Value("${razorpay.circuit-breaker.failure-rate-threshold:50}")
+    private double breakerFailureRateThreshold;
+
+    @Value("${razorpay.circuit-breaker.open-duration-ms:30000}")
+    private long breakerOpenDurationMs;
+
+    @Value("${razorpay.circuit-breaker.half-open-calls:3}")
+    private int breakerHalfOpenCalls;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private HttpClient httpClient;
+    private String authorizationHeader;
+    private Semaphore bulkhead;
+    private CircuitBreaker circuitBreaker;
+    private Counter bulkheadRejections;
+    private Counter circuitRejections;
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        authorizationHeader = "Basic " + Base64.getEncoder().encodeToString(
+                (razorpayKeyId + ":" + razorpayKeySecret).getBytes(StandardCharsets.UTF_8));
+        bulkhead = new Semaphore(maxConcurrentCalls);
+        circuitBreaker = new CircuitBreaker("razorpay", breakerWindowSize, breakerMinimumCalls,
+                breakerFailureRateThreshold, Duration.ofMillis(breakerOpenDurationMs), breakerHalfOpenCalls);
+
+        bulkheadRejections = meterRegistry.counter("razorpay.client.rejected", "reason", "bulkhead_full");
+        circuitRejections = meterRegistry.counter("razorpay.client.rejected", "reason", "circuit_open");
+        Gauge.builder("razorpay.client.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(meterRegistry);
+        Gauge.builder("razorpay.client.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
     }
-    
+
     /**
      * Creates a Razorpay order for the given amount
      * Amount should be in rupees, will be converted to paise
      */
-    public Order createRazorpayOrder(Double amount, String receipt) throws RazorpayException {
+    public JSONObject createRazorpayOrder(Double amount, String receipt) {
         JSONObject orderRequest = new JSONObject();
         // Razorpay expects amount in paise (smallest currency unit)
-        orderRequest.put("amount", (int)(amount * 100));
+        orderRequest.put("amount", Math.round(amount * 100));
         orderRequest.put("currency", "INR");
         orderRequest.put("receipt", receipt);
-        
-        return getClient().orders.create(orderRequest);
+
+        HttpRequest request = requestBuilder("/v1/orders")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(orderRequest.toString()))
+                .build();
+        // Not retried: a timed-out create may still have succeeded on Razorpay's side
+        return execute("orders.create", request, false);
     }
-    
+
     /**
      * Fetches a Razorpay order by ID
      */
-    public Order fetchRazorpayOrder(String razorpayOrderId) throws RazorpayException {
-        return getClient().orders.fetch(razorpayOrderId);
+    public JSONObject fetchRazorpayOrder(String razorpayOrderId) {
+        HttpRequest request = requestBuilder("/v1/orders/" + razorpayOrderId).GET().build();
+        return execute("orders.fetch", request, true);
+    }
+
+    /**
+     * Lists the payment attempts made against a Razorpay order
+     */
+    public JSONObject fetchOrderPayments(String razorpayOrderId) {
+        HttpRequest request = requestBuilder("/v1/orders/" + razorpayOrderId + "/payments").GET().build();
+        return execute("orders.payments", request, true);
     }
-    
+
     public String getRazorpayKeyId() {
         return razorpayKeyId;
     }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private HttpRequest.Builder requestBuilder(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .header("Authorization", authorizationHeader)
+                .header("Accept", "application/json");
+    }
+
+    private JSONObject execute(String operation, HttpRequest request, boolean idempotent) {
+        int attempts = idempotent ? Math.max(1, maxAttempts) : 1;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return executeOnce(operation, request);
+            } catch (PaymentGatewayException e) {
+                if (!e.isRetryable() || attempt >= attempts) {
+                    throw e;
+                }
+                log.debug("Retrying Razorpay {} after attempt {} failed: {}", operation, attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private JSONObject executeOnce(String operation, HttpRequest request) {
+        acquireBulkhead();
+        try {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                circuitRejections.increment();
+                throw new ServiceUnavailableException(
+                        "Payment gateway is temporarily unavailable, please retry shortly",
+                        TimeUnit.MILLISECONDS.toSeconds(breakerOpenDurationMs));
+            }
+            return send(operation, request);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void acquireBulkhead() {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            bulkheadRejections.increment();
+            throw new ServiceUnavailableException("Payment gateway is busy, please retry shortly", 1);
+        }
+    }
+
+    private JSONObject send(String operation, HttpRequest request) {
+        long start = System.nanoTime();
+        String outcome = "io_error";
+        boolean healthy = false;
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            // 4xx is the caller's fault and says nothing about gateway health
+            healthy = status < 500 && status != 429;
+            if (status >= 200 && status < 300) {
+                outcome = "success";
+                return new JSONObject(response.body());
+            }
+            outcome = healthy ? "client_error" : "server_error";
+            throw new PaymentGatewayException(
+                    "Razorpay " + operation + " failed with HTTP " + status + ": " + errorDescription(response.body()),
+                    !healthy);
+        } catch (HttpTimeoutException e) {
+            outcome = "timeout";
+            throw new PaymentGatewayException("Razorpay " + operation + " timed out", e, true);
+        } catch (IOException e) {
+            throw new PaymentGatewayException("Razorpay " + operation + " failed: " + e.getMessage(), e, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+            throw new PaymentGatewayException("Interrupted while calling Razorpay " + operation, e, false);
+        } finally {
+            if (healthy) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure();
+            }
+            Timer.builder("razorpay.client.requests")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void backoff(int attempt) {
+        long delay = backoffMs * (1L << (attempt - 1));
+        delay += ThreadLocalRandom.current().nextLong(Math.max(1, delay / 2));
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayException("Interrupted while retrying Razorpay call", e, false);
+        }
+    }
+
+    private String errorDescription(String body) {
+        try {
+            JSONObject error = new JSONObject(body).optJSONObject("error");
+            if (error != null && error.has("description")) {
+                return error.getString("description");
+            }
+        } catch (JSONException ignored) {
+            // Non-JSON error page from a proxy, fall through
+        }
+        return body == null || body.length() <= 200 ? body : body.substring(0, 200);
+    }
 }
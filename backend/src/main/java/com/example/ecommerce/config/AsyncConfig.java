@@ -0,0 +1,100 @@
+package com.example.ecommerce.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Executors for background work. Order event listeners get their own pool with
+ * a bounded queue: when it is full the event is dropped, counted in
+ * {@code order.events.dropped} and logged, and the nightly rollup and time series
+ * refreshes repair the totals from the orders collection.
+ *
+ * Streaming MVC responses (order export) run on a separate bounded pool, so a
+ * slow download cannot hold a thread the listeners or the task executor need.
+ *
+ * Declaring any executor bean switches off Boot's {@code applicationTaskExecutor},
+ * so it is declared here as well, built from {@code spring.task.execution.*}.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    public static final String ORDER_EVENTS_EXECUTOR = "orderEventsExecutor";
+    public static final String MVC_ASYNC_EXECUTOR = "mvcAsyncExecutor";
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncConfig.class);
+
+    @Value("${web.async.threads:4}")
+    private int mvcAsyncThreads;
+
+    @Value("${web.async.queue-capacity:16}")
+    private int mvcAsyncQueueCapacity;
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor applicationTaskExecutorVirtualThreads(SimpleAsyncTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = ORDER_EVENTS_EXECUTOR)
+    public ThreadPoolTaskExecutor orderEventsExecutor(MeterRegistry meterRegistry,
+                                                      @Value("${analytics.events.threads:4}") int threads,
+                                                      @Value("${analytics.events.queue-capacity:10000}") int queueCapacity,
+                                                      @Value("${analytics.events.shutdown-wait-seconds:30}") int shutdownWaitSeconds) {
+        Counter dropped = meterRegistry.counter("order.events.dropped");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-events-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            dropped.increment();
+            log.warn("Order event queue is full ({} waiting); dropped an analytics update", pool.getQueue().size());
+        });
+        // Drain what is queued on a normal shutdown instead of discarding it
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(shutdownWaitSeconds);
+        return executor;
+    }
+
+    /**
+     * Rejects once its queue is full; Spring MVC then fails that request instead
+     * of letting it wait behind hour-long exports
+     */
+    @Bean(name = MVC_ASYNC_EXECUTOR)
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mvcAsyncThreads);
+        executor.setMaxPoolSize(mvcAsyncThreads);
+        executor.setQueueCapacity(mvcAsyncQueueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.dto.AdminOrderPage;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.PaymentStatus;
+import com.example.ecommerce.service.AdminOrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/orders")
+@Tag(name = "Admin Orders", description = "Order search (Admin only)")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminOrderController {
+
+    @Autowired
+    private AdminOrderService adminOrderService;
+
+    @GetMapping
+    @Operation(summary = "Search orders", description = "Newest first with cursor paging. Pass the returned nextCursor to get the next page.")
+    public ResponseEntity<AdminOrderPage> search(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) PaymentStatus paymentStatus,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) Double maxAmount,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(adminOrderService.search(status, paymentStatus, userId, from, to,
+                minAmount, maxAmount, cursor, size));
+    }
+
+    @PostMapping("/payment-status/backfill")
+    @Operation(summary = "Copy each order's latest payment status onto the order")
+    public ResponseEntity<Map<String, Object>> backfillPaymentStatus() {
+        return ResponseEntity.ok(Map.of("updated", adminOrderService.backfillPaymentStatus()));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.dto.ReconciliationReport;
+import com.example.ecommerce.service.PaymentReconciliationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/payments")
+@Tag(name = "Admin Payments", description = "Payment reconciliation (Admin only)")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminPaymentController {
+
+    @Autowired
+    private PaymentReconciliationService reconciliationService;
+
+    @GetMapping("/reconciliation/report")
+    @Operation(summary = "Dry-run reconciliation", description = "Reports what a reconciliation run would change without applying it")
+    public ResponseEntity<ReconciliationReport> dryRun(
+            @RequestParam(required = false, defaultValue = "1000") Integer limit) {
+        return ResponseEntity.ok(reconciliationService.reconcile(true, limit));
+    }
+
+    @PostMapping("/reconciliation/run")
+    @Operation(summary = "Reconcile stale CREATED payments against Razorpay now")
+    public ResponseEntity<ReconciliationReport> run(
+            @RequestParam(required = false, defaultValue = "10000") Integer limit) {
+        return ResponseEntity.ok(reconciliationService.reconcile(false, limit));
+    }
+}
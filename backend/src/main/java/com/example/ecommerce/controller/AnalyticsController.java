@@ -1,13 +1,31 @@
 package com.example.ecommerce.controller;
 
+import com.example.ecommerce.dto.SalesSummary;
+import com.example.ecommerce.dto.StatusCount;
+import com.example.ecommerce.dto.TopProduct;
+import com.example.ecommerce.dto.TimeseriesResponse;
+import com.example.ecommerce.dto.TopProductEstimate;
+import com.example.ecommerce.model.OrderStatus;
 import com.example.ecommerce.service.AnalyticsService;
+import com.example.ecommerce.service.OrderExportService;
+import com.example.ecommerce.service.SalesRollupService;
+import com.example.ecommerce.service.TimeseriesService;
+import com.example.ecommerce.service.TopProductsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 
@@ -20,23 +38,93 @@ public class AnalyticsController {
     @Autowired
     private AnalyticsService analyticsService;
     
+    @Autowired
+    private SalesRollupService salesRollupService;
+    
+    @Autowired
+    private TopProductsService topProductsService;
+    
+    @Autowired
+    private TimeseriesService timeseriesService;
+    
+    @Autowired
+    private OrderExportService orderExportService;
+    
     @GetMapping("/sales")
     @Operation(summary = "Get sales analytics", description = "Returns total orders, revenue, and average order value")
-    public ResponseEntity<Map<String, Object>> getSalesAnalytics(
+    public ResponseEntity<SalesSummary> getSalesAnalytics(
             @RequestParam(required = false, defaultValue = "30") Integer days) {
         return ResponseEntity.ok(analyticsService.getSalesAnalytics(days));
     }
     
+    @GetMapping("/timeseries")
+    @Operation(summary = "Get sales time series", description = "Revenue, orders, units and order-value p50/p90/p99 per minute, hour or day bucket. Defaults to the last 24 hours by hour.")
+    public ResponseEntity<TimeseriesResponse> getTimeseries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false, defaultValue = "hour") String granularity) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(24, ChronoUnit.HOURS);
+        return ResponseEntity.ok(timeseriesService.getTimeseries(start, end,
+                TimeseriesService.Granularity.fromKey(granularity)));
+    }
+    
     @GetMapping("/products/top")
-    @Operation(summary = "Get top selling products")
-    public ResponseEntity<List<Map<String, Object>>> getTopProducts(
-            @RequestParam(required = false, defaultValue = "5") Integer limit) {
-        return ResponseEntity.ok(analyticsService.getTopProducts(limit));
+    @Operation(summary = "Get top selling products", description = "Approximate ranking for window 1h, 24h or 30d, served from memory with per-entry error bounds")
+    public ResponseEntity<List<TopProductEstimate>> getTopProducts(
+            @RequestParam(required = false, defaultValue = "5") Integer limit,
+            @RequestParam(required = false, defaultValue = "30d") String window) {
+        return ResponseEntity.ok(topProductsService.getTopProducts(TopProductsService.Window.fromKey(window), limit));
+    }
+    
+    @GetMapping("/products/top/exact")
+    @Operation(summary = "Get exact top selling products", description = "Recomputes from order history; window 1h, 24h, 30d or all. Slow on large histories.")
+    public ResponseEntity<List<TopProduct>> getExactTopProducts(
+            @RequestParam(required = false, defaultValue = "5") Integer limit,
+            @RequestParam(required = false, defaultValue = "all") String window) {
+        Instant since = "all".equalsIgnoreCase(window)
+                ? null
+                : Instant.now().minus(TopProductsService.Window.fromKey(window).length());
+        return ResponseEntity.ok(analyticsService.getTopProducts(limit, since));
+    }
+    
+    @GetMapping("/orders/export")
+    @Operation(summary = "Export orders", description = "Streams orders with line items and payment IDs as csv (one row per item) or ndjson (one order per line). Optional createdAt range [from, to) and status filter.")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false, defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) OrderStatus status) {
+        OrderExportService.Format exportFormat = OrderExportService.Format.fromKey(format);
+        StreamingResponseBody body = orderExportService.start(exportFormat, from, to, status);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"orders." + exportFormat.getExtension() + "\"")
+                .body(body);
     }
     
     @GetMapping("/orders/status")
     @Operation(summary = "Get order counts by status")
-    public ResponseEntity<Map<String, Object>> getOrderStatusCounts() {
+    public ResponseEntity<List<StatusCount>> getOrderStatusCounts() {
         return ResponseEntity.ok(analyticsService.getOrderStatusCounts());
     }
+    
+    @PostMapping("/rollups/backfill")
+    @Operation(summary = "Rebuild daily sales rollups", description = "Recomputes sales_daily for [from, to] (UTC dates, to defaults to yesterday). Safe to re-run.")
+    public ResponseEntity<Map<String, Object>> backfillRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate toExclusive = to != null ? to.plusDays(1) : LocalDate.now(ZoneOffset.UTC);
+        return ResponseEntity.ok(salesRollupService.backfill(from, toExclusive));
+    }
+    
+    @PostMapping("/timeseries/backfill")
+    @Operation(summary = "Rebuild the sales time series", description = "Recomputes minute, hour and day buckets for [from, to] (UTC dates, to defaults to yesterday) from paid orders. Safe to re-run.")
+    public ResponseEntity<Map<String, Object>> backfillTimeseries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate toExclusive = to != null ? to.plusDays(1) : LocalDate.now(ZoneOffset.UTC);
+        return ResponseEntity.ok(timeseriesService.backfill(from, toExclusive));
+    }
 }
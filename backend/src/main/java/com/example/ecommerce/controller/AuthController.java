@@ -3,14 +3,19 @@ package com.example.ecommerce.controller;
 import com.example.ecommerce.dto.AuthResponse;
 import com.example.ecommerce.dto.LoginRequest;
 import com.example.ecommerce.dto.RegisterRequest;
+import com.example.ecommerce.exception.UnauthorizedException;
+import com.example.ecommerce.security.JwtPrincipal;
 import com.example.ecommerce.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/auth")
 @Tag(name = "Authentication", description = "User registration and login")
@@ -33,11 +38,21 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
     
+    @PostMapping("/logout")
+    @Operation(summary = "Logout", description = "Revokes the bearer token used for this request")
+    public ResponseEntity<?> logout(Authentication auth) {
+        if (!(auth.getDetails() instanceof JwtPrincipal principal)) {
+            throw new UnauthorizedException("Not authenticated with a bearer token");
+        }
+        authService.logout(principal);
+        return ResponseEntity.ok(Map.of("message", "Logged out"));
+    }
+    
     @PostMapping("/make-admin")
     @Operation(summary = "Promote user to admin (Demo only)")
     public ResponseEntity<?> makeAdmin(@RequestParam String email) {
         var user = authService.makeAdmin(email);
-        return ResponseEntity.ok(java.util.Map.of(
+        return ResponseEntity.ok(Map.of(
             "message", "User promoted to ADMIN",
             "email", user.getEmail(),
             "role", user.getRole().name()
@@ -1,6 +1,8 @@
 package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.PaymentRequest;
+import com.example.ecommerce.exception.PaymentGatewayException;
+import com.example.ecommerce.exception.ServiceUnavailableException;
 import com.example.ecommerce.service.PaymentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -28,6 +30,9 @@ public class PaymentController {
         try {
             Map<String, Object> payment = paymentService.createPayment(request.getOrderId());
             return ResponseEntity.ok(payment);
+        } catch (ServiceUnavailableException | PaymentGatewayException e) {
+            // Let the global handler map these to 503 / 502
+            throw e;
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -1,23 +1,32 @@
 package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.ProductRequest;
+import com.example.ecommerce.exception.ResourceNotFoundException;
 import com.example.ecommerce.model.Product;
 import com.example.ecommerce.service.FileService;
+import com.example.ecommerce.service.ImageDerivativeService;
 import com.example.ecommerce.service.ProductService;
+import com.example.ecommerce.util.ByteRange;
+import com.example.ecommerce.util.FileRegionWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,6 +41,15 @@ public class ProductController {
     @Autowired
     private FileService fileService;
     
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+    
+    @Value("${file.image.immutable-cache-control:public, max-age=31536000, immutable}")
+    private String immutableCacheControl;
+    
+    @Value("${file.image.max-age-seconds:300}")
+    private long imageMaxAgeSeconds;
+    
     @PostMapping
     @Operation(summary = "Create product (Admin only)")
     @SecurityRequirement(name = "bearerAuth")
@@ -135,12 +153,71 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
     
+    @PostMapping("/{id}/image/derivatives")
+    @Operation(summary = "Regenerate resized copies of the product image (Admin only)")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<Map<String, Object>> regenerateDerivatives(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("queued", imageDerivativeService.regenerate(id));
+        return ResponseEntity.accepted().body(response);
+    }
+    
     @GetMapping("/{id}/image")
-    @Operation(summary = "Get product image")
-    public ResponseEntity<byte[]> getImage(@PathVariable String id) throws IOException {
-        byte[] image = fileService.getProductImage(id);
-        return ResponseEntity.ok()
-                .contentType(MediaType.IMAGE_JPEG)
-                .body(image);
+    @Operation(summary = "Get product image", description = "Supports Range requests. ?w=<px> serves the narrowest resized copy at least that wide. With ?v=<imageHash> the response is cacheable forever.")
+    public void getImage(
+            @PathVariable String id,
+            @RequestParam(required = false) String v,
+            @RequestParam(required = false) Integer w,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        FileService.ProductImage image = fileService.getProductImage(id, w);
+        String etag = image.etag();
+        
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        // Until its derivatives exist a ?w= URL gets the original, which must not be pinned for a year
+        boolean asRequested = w == null || w <= 0 || image.width() > 0;
+        response.setHeader(HttpHeaders.CACHE_CONTROL, asRequested && image.hash() != null && image.hash().equals(v)
+                ? immutableCacheControl
+                : "public, max-age=" + imageMaxAgeSeconds + ", must-revalidate");
+        
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        
+        // A stale If-Range means the client's partial copy is outdated, so send everything
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            rangeHeader = null;
+        }
+        ByteRange range = ByteRange.parse(rangeHeader, image.size());
+        if (range == null) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + image.size());
+            return;
+        }
+        
+        response.setContentType(image.contentType());
+        if (range.length() < image.size()) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, range.contentRange(image.size()));
+        }
+        ByteBuffer cached = fileService.getCachedContent(image);
+        if (cached != null) {
+            FileRegionWriter.write(request, response, cached, range);
+            return;
+        }
+        try {
+            FileRegionWriter.write(request, response, image.path(), range);
+        } catch (NoSuchFileException e) {
+            fileService.evictProductImage(id);
+            // Drop the image headers set above so the 404 goes out clean
+            response.reset();
+            throw new ResourceNotFoundException("Image file not found");
+        }
     }
 }
@@ -0,0 +1,32 @@
+package com.example.ecommerce.dto;
+
+import java.util.List;
+
+/**
+ * A page of admin order search results
+ */
+public class AdminOrderPage {
+
+    private List<AdminOrderSummary> orders;
+    private int pageSize;
+    private String nextCursor;
+
+    public AdminOrderPage() {
+    }
+
+    public AdminOrderPage(List<AdminOrderSummary> orders, int pageSize, String nextCursor) {
+        this.orders = orders;
+        this.pageSize = pageSize;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<AdminOrderSummary> getOrders() { return orders; }
+    public void setOrders(List<AdminOrderSummary> orders) { this.orders = orders; }
+
+    public int getPageSize() { return pageSize; }
+    public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+
+    /** Pass back as {@code cursor} for the next page; null on the last page */
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
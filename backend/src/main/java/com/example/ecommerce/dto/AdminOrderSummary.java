@@ -0,0 +1,55 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.PaymentStatus;
+
+import java.time.Instant;
+
+/**
+ * One row of the admin order search
+ */
+public class AdminOrderSummary {
+
+    private String id;
+    private String userId;
+    private Double totalAmount;
+    private OrderStatus status;
+    private PaymentStatus paymentStatus;
+    private Instant createdAt;
+    private Instant paidAt;
+
+    public AdminOrderSummary() {
+    }
+
+    public AdminOrderSummary(Order order) {
+        this.id = order.getId();
+        this.userId = order.getUserId();
+        this.totalAmount = order.getTotalAmount();
+        this.status = order.getStatus();
+        this.paymentStatus = order.getPaymentStatus();
+        this.createdAt = order.getCreatedAt();
+        this.paidAt = order.getPaidAt();
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public Double getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(Double totalAmount) { this.totalAmount = totalAmount; }
+
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+
+    public PaymentStatus getPaymentStatus() { return paymentStatus; }
+    public void setPaymentStatus(PaymentStatus paymentStatus) { this.paymentStatus = paymentStatus; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getPaidAt() { return paidAt; }
+    public void setPaidAt(Instant paidAt) { this.paidAt = paidAt; }
+}
@@ -0,0 +1,83 @@
+package com.example.ecommerce.dto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReconciliationReport {
+
+    private static final int MAX_SAMPLES = 100;
+
+    private boolean dryRun;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private int scanned;
+    private int paid;
+    private int failed;
+    private int pending;
+    private int errors;
+    private boolean sweepCompleted;
+    private final List<Transition> transitions = new ArrayList<>();
+
+    public ReconciliationReport(boolean dryRun) {
+        this.dryRun = dryRun;
+        this.startedAt = Instant.now();
+    }
+
+    public void addTransition(Transition transition) {
+        if (transitions.size() < MAX_SAMPLES) {
+            transitions.add(transition);
+        }
+    }
+
+    public void incrementScanned(int count) { scanned += count; }
+    public void incrementPaid() { paid++; }
+    public void incrementFailed() { failed++; }
+    public void incrementPending() { pending++; }
+    public void incrementErrors() { errors++; }
+
+    public boolean isDryRun() { return dryRun; }
+    public void setDryRun(boolean dryRun) { this.dryRun = dryRun; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+
+    public int getScanned() { return scanned; }
+    public int getPaid() { return paid; }
+    public int getFailed() { return failed; }
+    public int getPending() { return pending; }
+    public int getErrors() { return errors; }
+
+    public boolean isSweepCompleted() { return sweepCompleted; }
+    public void setSweepCompleted(boolean sweepCompleted) { this.sweepCompleted = sweepCompleted; }
+
+    /** First {@value #MAX_SAMPLES} transitions found, for eyeballing a dry run */
+    public List<Transition> getTransitions() { return transitions; }
+
+    public static class Transition {
+
+        private final String paymentId;
+        private final String orderId;
+        private final String razorpayOrderId;
+        private final String razorpayPaymentId;
+        private final String action;
+
+        public Transition(String paymentId, String orderId, String razorpayOrderId,
+                          String razorpayPaymentId, String action) {
+            this.paymentId = paymentId;
+            this.orderId = orderId;
+            this.razorpayOrderId = razorpayOrderId;
+            this.razorpayPaymentId = razorpayPaymentId;
+            this.action = action;
+        }
+
+        public String getPaymentId() { return paymentId; }
+        public String getOrderId() { return orderId; }
+        public String getRazorpayOrderId() { return razorpayOrderId; }
+        public String getRazorpayPaymentId() { return razorpayPaymentId; }
+        public String getAction() { return action; }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ecommerce.dto;
+
+import java.time.Instant;
+
+public class SalesSummary {
+
+    private long totalOrders;
+    private double totalRevenue;
+    private double averageOrderValue;
+    private int periodDays;
+    private Instant startDate;
+    private Instant endDate;
+
+    public SalesSummary() {
+    }
+
+    public SalesSummary(long totalOrders, double totalRevenue, int periodDays, Instant startDate, Instant endDate) {
+        this.totalOrders = totalOrders;
+        this.totalRevenue = totalRevenue;
+        this.averageOrderValue = totalOrders == 0 ? 0 : totalRevenue / totalOrders;
+        this.periodDays = periodDays;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public long getTotalOrders() { return totalOrders; }
+    public void setTotalOrders(long totalOrders) { this.totalOrders = totalOrders; }
+
+    public double getTotalRevenue() { return totalRevenue; }
+    public void setTotalRevenue(double totalRevenue) { this.totalRevenue = totalRevenue; }
+
+    public double getAverageOrderValue() { return averageOrderValue; }
+    public void setAverageOrderValue(double averageOrderValue) { this.averageOrderValue = averageOrderValue; }
+
+    public int getPeriodDays() { return periodDays; }
+    public void setPeriodDays(int periodDays) { this.periodDays = periodDays; }
+
+    public Instant getStartDate() { return startDate; }
+    public void setStartDate(Instant startDate) { this.startDate = startDate; }
+
+    public Instant getEndDate() { return endDate; }
+    public void setEndDate(Instant endDate) { this.endDate = endDate; }
+}
@@ -0,0 +1,24 @@
+package com.example.ecommerce.dto;
+
+/**
+ * One row of the order-status aggregation
+ */
+public class StatusCount {
+
+    private String status;
+    private long count;
+
+    public StatusCount() {
+    }
+
+    public StatusCount(String status, long count) {
+        this.status = status;
+        this.count = count;
+    }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
@@ -0,0 +1,46 @@
+package com.example.ecommerce.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+public class TimeseriesPoint {
+
+    private Instant start;
+    private long orders;
+    private double revenue;
+    private long units;
+    private Double p50;
+    private Double p90;
+    private Double p99;
+    private Map<String, Long> orderValueSketch;
+
+    public TimeseriesPoint(Instant start) {
+        this.start = start;
+    }
+
+    public Instant getStart() { return start; }
+    public void setStart(Instant start) { this.start = start; }
+
+    public long getOrders() { return orders; }
+    public void setOrders(long orders) { this.orders = orders; }
+
+    public double getRevenue() { return revenue; }
+    public void setRevenue(double revenue) { this.revenue = revenue; }
+
+    public long getUnits() { return units; }
+    public void setUnits(long units) { this.units = units; }
+
+    /** Order-value percentiles; null when the bucket has no orders */
+    public Double getP50() { return p50; }
+    public void setP50(Double p50) { this.p50 = p50; }
+
+    public Double getP90() { return p90; }
+    public void setP90(Double p90) { this.p90 = p90; }
+
+    public Double getP99() { return p99; }
+    public void setP99(Double p99) { this.p99 = p99; }
+
+    /** Log-bucket index to count; sum the maps of several points to merge them */
+    public Map<String, Long> getOrderValueSketch() { return orderValueSketch; }
+    public void setOrderValueSketch(Map<String, Long> orderValueSketch) { this.orderValueSketch = orderValueSketch; }
+}
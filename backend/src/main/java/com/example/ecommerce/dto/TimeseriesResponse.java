@@ -0,0 +1,43 @@
+package com.example.ecommerce.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public class TimeseriesResponse {
+
+    private String granularity;
+    private Instant from;
+    private Instant to;
+    private double relativeAccuracy;
+    private TimeseriesPoint total;
+    private List<TimeseriesPoint> points;
+
+    public TimeseriesResponse(String granularity, Instant from, Instant to, double relativeAccuracy,
+                              TimeseriesPoint total, List<TimeseriesPoint> points) {
+        this.granularity = granularity;
+        this.from = from;
+        this.to = to;
+        this.relativeAccuracy = relativeAccuracy;
+        this.total = total;
+        this.points = points;
+    }
+
+    public String getGranularity() { return granularity; }
+    public void setGranularity(String granularity) { this.granularity = granularity; }
+
+    public Instant getFrom() { return from; }
+    public void setFrom(Instant from) { this.from = from; }
+
+    public Instant getTo() { return to; }
+    public void setTo(Instant to) { this.to = to; }
+
+    /** Percentiles are within this relative error of the exact value */
+    public double getRelativeAccuracy() { return relativeAccuracy; }
+    public void setRelativeAccuracy(double relativeAccuracy) { this.relativeAccuracy = relativeAccuracy; }
+
+    public TimeseriesPoint getTotal() { return total; }
+    public void setTotal(TimeseriesPoint total) { this.total = total; }
+
+    public List<TimeseriesPoint> getPoints() { return points; }
+    public void setPoints(List<TimeseriesPoint> points) { this.points = points; }
+}
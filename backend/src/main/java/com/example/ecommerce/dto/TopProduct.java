@@ -0,0 +1,24 @@
+package com.example.ecommerce.dto;
+
+public class TopProduct {
+
+    private String productId;
+    private String productName;
+    private long quantitySold;
+    private double revenue;
+
+    public TopProduct() {
+    }
+
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public String getProductName() { return productName; }
+    public void setProductName(String productName) { this.productName = productName; }
+
+    public long getQuantitySold() { return quantitySold; }
+    public void setQuantitySold(long quantitySold) { this.quantitySold = quantitySold; }
+
+    public double getRevenue() { return revenue; }
+    public void setRevenue(double revenue) { this.revenue = revenue; }
+}
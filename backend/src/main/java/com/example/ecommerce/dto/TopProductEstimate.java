@@ -0,0 +1,33 @@
+package com.example.ecommerce.dto;
+
+/**
+ * Approximate top-seller entry: the true quantity lies in
+ * [quantitySold - maxOverestimate, quantitySold]
+ */
+public class TopProductEstimate {
+
+    private String productId;
+    private long quantitySold;
+    private long maxOverestimate;
+    private boolean guaranteed;
+
+    public TopProductEstimate(String productId, long quantitySold, long maxOverestimate, boolean guaranteed) {
+        this.productId = productId;
+        this.quantitySold = quantitySold;
+        this.maxOverestimate = maxOverestimate;
+        this.guaranteed = guaranteed;
+    }
+
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public long getQuantitySold() { return quantitySold; }
+    public void setQuantitySold(long quantitySold) { this.quantitySold = quantitySold; }
+
+    public long getMaxOverestimate() { return maxOverestimate; }
+    public void setMaxOverestimate(long maxOverestimate) { this.maxOverestimate = maxOverestimate; }
+
+    /** True if this product is certainly within the top K, whatever the estimation error */
+    public boolean isGuaranteed() { return guaranteed; }
+    public void setGuaranteed(boolean guaranteed) { this.guaranteed = guaranteed; }
+}
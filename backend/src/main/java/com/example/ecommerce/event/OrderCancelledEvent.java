@@ -0,0 +1,13 @@
+package com.example.ecommerce.event;
+
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published once per order, right after it moved from {@code previousStatus} to CANCELLED
+ */
+public record OrderCancelledEvent(Order order, OrderStatus previousStatus, List<OrderLine> lines, Instant occurredAt) {
+}
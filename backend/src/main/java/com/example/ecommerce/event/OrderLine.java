@@ -0,0 +1,18 @@
+package com.example.ecommerce.event;
+
+import com.example.ecommerce.model.OrderItem;
+
+import java.util.List;
+
+/**
+ * The part of an order item the analytics listeners need, loaded once by the
+ * publisher so each listener does not query {@code order_items} again
+ */
+public record OrderLine(String productId, int quantity) {
+
+    public static List<OrderLine> of(List<OrderItem> items) {
+        return items.stream()
+                .map(item -> new OrderLine(item.getProductId(), item.getQuantity()))
+                .toList();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.ecommerce.event;
+
+import com.example.ecommerce.model.Order;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published once per order, right after its CREATED → PAID transition succeeded
+ */
+public record OrderPaidEvent(Order order, List<OrderLine> lines, Instant occurredAt) {
+}
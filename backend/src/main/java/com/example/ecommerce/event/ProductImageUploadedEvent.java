@@ -0,0 +1,9 @@
+package com.example.ecommerce.event;
+
+import java.time.Instant;
+
+/**
+ * Published after a new product image has been stored and the product points at it
+ */
+public record ProductImageUploadedEvent(String productId, String imagePath, Instant occurredAt) {
+}
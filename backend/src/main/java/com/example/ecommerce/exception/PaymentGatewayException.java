@@ -0,0 +1,20 @@
+package com.example.ecommerce.exception;
+
+public class PaymentGatewayException extends RuntimeException {
+
+    private final boolean retryable;
+
+    public PaymentGatewayException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public PaymentGatewayException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.ecommerce.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+
+/**
+ * An email waiting to be delivered. The ID is derived from the type and order,
+ * so writing the same email twice is a no-op. The message is rendered at send
+ * time from the order and its user.
+ */
+@Document(collection = "email_outbox")
+@CompoundIndex(name = "status_nextAttemptAt", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class EmailOutboxEntry {
+
+    public enum Type {
+        ORDER_CONFIRMATION
+    }
+
+    public enum Status {
+        PENDING, SENDING, SENT, FAILED, CANCELLED
+    }
+
+    @Id
+    private String id;
+    private Type type;
+    private String orderId;
+    private Status status;
+    private int attempts;
+    private Instant nextAttemptAt;
+    private String claimToken;
+    private Instant claimedUntil;
+    private String lastError;
+    private Instant createdAt;
+    private Instant sentAt;
+
+    // Set once the entry is finished (sent, failed for good or cancelled)
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expireAt;
+
+    public EmailOutboxEntry() {
+    }
+
+    public static String idFor(Type type, String orderId) {
+        return type.name() + ":" + orderId;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public String getOrderId() { return orderId; }
+    public void setOrderId(String orderId) { this.orderId = orderId; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(Instant nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getClaimToken() { return claimToken; }
+    public void setClaimToken(String claimToken) { this.claimToken = claimToken; }
+
+    public Instant getClaimedUntil() { return claimedUntil; }
+    public void setClaimedUntil(Instant claimedUntil) { this.claimedUntil = claimedUntil; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getSentAt() { return sentAt; }
+    public void setSentAt(Instant sentAt) { this.sentAt = sentAt; }
+
+    public Instant getExpireAt() { return expireAt; }
+    public void setExpireAt(Instant expireAt) { this.expireAt = expireAt; }
+}
@@ -0,0 +1,50 @@
+package com.example.ecommerce.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+
+/**
+ * One stored image file, keyed by the SHA-256 of its content. {@code refCount}
+ * is the number of products pointing at it; once it drops to zero the blob is
+ * stamped with {@code unreferencedSince} and garbage-collected after a grace period.
+ */
+@Document(collection = "image_blobs")
+public class ImageBlob {
+
+    @Id
+    private String id;
+    private String path;
+    private String contentType;
+    private long size;
+    private long refCount;
+    private Instant createdAt;
+
+    @Indexed(sparse = true)
+    private Instant unreferencedSince;
+
+    public ImageBlob() {
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public long getRefCount() { return refCount; }
+    public void setRefCount(long refCount) { this.refCount = refCount; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getUnreferencedSince() { return unreferencedSince; }
+    public void setUnreferencedSince(Instant unreferencedSince) { this.unreferencedSince = unreferencedSince; }
+}
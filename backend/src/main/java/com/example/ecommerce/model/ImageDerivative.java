@@ -0,0 +1,39 @@
+package com.example.ecommerce.model;
+
+/**
+ * A resized copy of a product image, stored relative to the upload directory
+ */
+public class ImageDerivative {
+
+    private int width;
+    private int height;
+    private String path;
+    private String contentType;
+    private long size;
+
+    public ImageDerivative() {
+    }
+
+    public ImageDerivative(int width, int height, String path, String contentType, long size) {
+        this.width = width;
+        this.height = height;
+        this.path = path;
+        this.contentType = contentType;
+        this.size = size;
+    }
+
+    public int getWidth() { return width; }
+    public void setWidth(int width) { this.width = width; }
+
+    public int getHeight() { return height; }
+    public void setHeight(int height) { this.height = height; }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+}
@@ -1,10 +1,28 @@
 package com.example.ecommerce.model;
 
+import com.example.ecommerce.event.OrderLine;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.Instant;
+import java.util.List;
 
+/**
+ * Every index ends in {createdAt: -1, _id: -1} so each supported filter shape is
+ * served newest-first straight from the index, which keyset paging relies on.
+ * paymentStatus mirrors the latest payment's status so admins can filter on it
+ * without a join. lines copies productId and quantity from order_items, so the
+ * PAID transition hands the analytics listeners everything they need; it is null
+ * on orders placed before it was added.
+ */
 @Document(collection = "orders")
+@CompoundIndexes({
+    @CompoundIndex(name = "createdAt_id", def = "{'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "status_createdAt_id", def = "{'status': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "userId_createdAt_id", def = "{'userId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "paymentStatus_createdAt_id", def = "{'paymentStatus': 1, 'createdAt': -1, '_id': -1}")
+})
 public class Order {
     
     @Id
@@ -12,7 +30,10 @@ public class Order {
     private String userId;
     private Double totalAmount;
     private OrderStatus status;
+    private PaymentStatus paymentStatus;
     private Instant createdAt;
+    private Instant paidAt;
+    private List<OrderLine> lines;
     
     public Order() {
         this.createdAt = Instant.now();
@@ -65,4 +86,28 @@ public class Order {
     public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
+    
+    public Instant getPaidAt() {
+        return paidAt;
+    }
+    
+    public void setPaidAt(Instant paidAt) {
+        this.paidAt = paidAt;
+    }
+    
+    public PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+    
+    public void setPaymentStatus(PaymentStatus paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+    
+    public List<OrderLine> getLines() {
+        return lines;
+    }
+    
+    public void setLines(List<OrderLine> lines) {
+        this.lines = lines;
+    }
 }
@@ -1,6 +1,7 @@
 package com.example.ecommerce.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "order_items")
@@ -8,6 +9,8 @@ public class OrderItem {
     
     @Id
     private String id;
+    
+    @Indexed
     private String orderId;
     private String productId;
     private Integer quantity;
@@ -1,17 +1,22 @@
 package com.example.ecommerce.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.Instant;
 
 @Document(collection = "payments")
+@CompoundIndex(name = "status_createdAt", def = "{'status': 1, 'createdAt': 1, '_id': 1}")
 public class Payment {
     
     @Id
     private String id;
+    @Indexed
     private String orderId;
     private Double amount;
     private PaymentStatus status;
+    @Indexed
     private String razorpayOrderId;
     private String razorpayPaymentId;
     private Instant createdAt;
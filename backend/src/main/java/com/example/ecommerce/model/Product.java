@@ -3,6 +3,8 @@ package com.example.ecommerce.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.List;
+
 @Document(collection = "products")
 public class Product {
     
@@ -14,6 +16,9 @@ public class Product {
     private Double price;
     private Integer stock;
     private String imagePath;
+    private String imageContentType;
+    private String imageHash;
+    private List<ImageDerivative> imageDerivatives;
     
     public Product() {
     }
@@ -46,4 +51,22 @@ public class Product {
     
     public String getImagePath() { return imagePath; }
     public void setImagePath(String imagePath) { this.imagePath = imagePath; }
+    
+    public String getImageContentType() { return imageContentType; }
+    public void setImageContentType(String imageContentType) { this.imageContentType = imageContentType; }
+    
+    public String getImageHash() { return imageHash; }
+    public void setImageHash(String imageHash) { this.imageHash = imageHash; }
+    
+    public List<ImageDerivative> getImageDerivatives() { return imageDerivatives; }
+    public void setImageDerivatives(List<ImageDerivative> imageDerivatives) { this.imageDerivatives = imageDerivatives; }
+    
+    /** Versioned image URL; it changes whenever the image does, so clients may cache it forever */
+    public String getImageUrl() {
+        if (id == null || imagePath == null) {
+            return null;
+        }
+        String url = "/api/products/" + id + "/image";
+        return imageHash != null ? url + "?v=" + imageHash : url;
+    }
 }
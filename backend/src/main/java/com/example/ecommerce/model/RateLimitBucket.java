@@ -0,0 +1,50 @@
+package com.example.ecommerce.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+
+/**
+ * Shared token-bucket state for cluster-wide rate limiting. Nodes read it, refill
+ * it locally and write it back conditionally on {@code version}, so concurrent
+ * updates from different nodes never overwrite each other.
+ */
+@Document(collection = "rate_limit_buckets")
+public class RateLimitBucket {
+
+    @Id
+    private String id;
+    private double tokens;
+    private long refilledAtMillis;
+
+    @Version
+    private Long version;
+
+    // Dropped once the bucket would have refilled completely anyway
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expireAt;
+
+    public RateLimitBucket() {
+    }
+
+    public RateLimitBucket(String id) {
+        this.id = id;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public double getTokens() { return tokens; }
+    public void setTokens(double tokens) { this.tokens = tokens; }
+
+    public long getRefilledAtMillis() { return refilledAtMillis; }
+    public void setRefilledAtMillis(long refilledAtMillis) { this.refilledAtMillis = refilledAtMillis; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public Instant getExpireAt() { return expireAt; }
+    public void setExpireAt(Instant expireAt) { this.expireAt = expireAt; }
+}
@@ -0,0 +1,51 @@
+package com.example.ecommerce.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+
+/**
+ * Keyset position of an in-progress reconciliation sweep, so a restarted node
+ * resumes where the previous run stopped instead of rescanning from the start.
+ * The node running the sweep holds a lease on it until {@code leaseUntil}.
+ */
+@Document(collection = "reconciliation_checkpoints")
+public class ReconciliationCheckpoint {
+
+    @Id
+    private String id;
+    private Instant lastCreatedAt;
+    private String lastPaymentId;
+    private Instant sweepStartedAt;
+    private Instant updatedAt;
+    private String leaseOwner;
+    private Instant leaseUntil;
+
+    public ReconciliationCheckpoint() {
+    }
+
+    public ReconciliationCheckpoint(String id) {
+        this.id = id;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Instant getLastCreatedAt() { return lastCreatedAt; }
+    public void setLastCreatedAt(Instant lastCreatedAt) { this.lastCreatedAt = lastCreatedAt; }
+
+    public String getLastPaymentId() { return lastPaymentId; }
+    public void setLastPaymentId(String lastPaymentId) { this.lastPaymentId = lastPaymentId; }
+
+    public Instant getSweepStartedAt() { return sweepStartedAt; }
+    public void setSweepStartedAt(Instant sweepStartedAt) { this.sweepStartedAt = sweepStartedAt; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+    public String getLeaseOwner() { return leaseOwner; }
+    public void setLeaseOwner(String leaseOwner) { this.leaseOwner = leaseOwner; }
+
+    public Instant getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(Instant leaseUntil) { this.leaseUntil = leaseUntil; }
+}
@@ -0,0 +1,61 @@
+package com.example.ecommerce.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+
+/**
+ * A revoked JWT ({@code TOKEN}, subject = jti) or a per-user cutoff ({@code USER},
+ * subject = user ID) that revokes every token issued before {@code notBefore}.
+ * Entries are removed by the TTL index once no token they cover can still be valid.
+ */
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+
+    public enum Type {
+        TOKEN, USER
+    }
+
+    @Id
+    private String id;
+    private Type type;
+    private String subject;
+    private Instant notBefore;
+
+    @Indexed
+    private Instant revokedAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expireAt;
+
+    public RevokedToken() {
+    }
+
+    public RevokedToken(Type type, String subject, Instant notBefore, Instant revokedAt, Instant expireAt) {
+        this.id = type.name() + ":" + subject;
+        this.type = type;
+        this.subject = subject;
+        this.notBefore = notBefore;
+        this.revokedAt = revokedAt;
+        this.expireAt = expireAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public Instant getNotBefore() { return notBefore; }
+    public void setNotBefore(Instant notBefore) { this.notBefore = notBefore; }
+
+    public Instant getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(Instant revokedAt) { this.revokedAt = revokedAt; }
+
+    public Instant getExpireAt() { return expireAt; }
+    public void setExpireAt(Instant expireAt) { this.expireAt = expireAt; }
+}
@@ -0,0 +1,53 @@
+package com.example.ecommerce.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-aggregated sales for one UTC day, keyed by {@code yyyy-MM-dd}.
+ *
+ * {@code orders}, {@code revenue} and {@code units} cover orders created that day
+ * that are currently PAID, matching what a live query over orders would return.
+ * {@code transitions} counts status changes by the day they happened.
+ */
+@Document(collection = "sales_daily")
+public class SalesDaily {
+
+    @Id
+    private String id;
+    private Instant day;
+    private long orders;
+    private double revenue;
+    private Map<String, Long> units = new HashMap<>();
+    private Map<String, Long> transitions = new HashMap<>();
+    private Instant updatedAt;
+
+    public SalesDaily() {
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Instant getDay() { return day; }
+    public void setDay(Instant day) { this.day = day; }
+
+    public long getOrders() { return orders; }
+    public void setOrders(long orders) { this.orders = orders; }
+
+    public double getRevenue() { return revenue; }
+    public void setRevenue(double revenue) { this.revenue = revenue; }
+
+    /** Units sold per product ID */
+    public Map<String, Long> getUnits() { return units; }
+    public void setUnits(Map<String, Long> units) { this.units = units; }
+
+    /** Status transitions that happened this day, by target status */
+    public Map<String, Long> getTransitions() { return transitions; }
+    public void setTransitions(Map<String, Long> transitions) { this.transitions = transitions; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
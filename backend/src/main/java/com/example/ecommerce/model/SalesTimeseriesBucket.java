@@ -0,0 +1,60 @@
+package com.example.ecommerce.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sales for one minute, hour or day, keyed by payment time and maintained with
+ * {@code $inc} as orders are paid or cancelled. {@code orderValueSketch} holds
+ * log-bucket counts of order values (see RelativeErrorSketch) so percentiles
+ * can be merged across any range of buckets.
+ */
+@Document(collection = "sales_timeseries")
+@CompoundIndex(name = "granularity_start", def = "{'granularity': 1, 'start': 1}")
+public class SalesTimeseriesBucket {
+
+    @Id
+    private String id;
+    private String granularity;
+    private Instant start;
+    private long orders;
+    private double revenue;
+    private long units;
+    private Map<String, Long> orderValueSketch = new HashMap<>();
+
+    // Fine-grained buckets age out; daily buckets have no expireAt and are kept
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expireAt;
+
+    public SalesTimeseriesBucket() {
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getGranularity() { return granularity; }
+    public void setGranularity(String granularity) { this.granularity = granularity; }
+
+    public Instant getStart() { return start; }
+    public void setStart(Instant start) { this.start = start; }
+
+    public long getOrders() { return orders; }
+    public void setOrders(long orders) { this.orders = orders; }
+
+    public double getRevenue() { return revenue; }
+    public void setRevenue(double revenue) { this.revenue = revenue; }
+
+    public long getUnits() { return units; }
+    public void setUnits(long units) { this.units = units; }
+
+    public Map<String, Long> getOrderValueSketch() { return orderValueSketch; }
+    public void setOrderValueSketch(Map<String, Long> orderValueSketch) { this.orderValueSketch = orderValueSketch; }
+
+    public Instant getExpireAt() { return expireAt; }
+    public void setExpireAt(Instant expireAt) { this.expireAt = expireAt; }
+}
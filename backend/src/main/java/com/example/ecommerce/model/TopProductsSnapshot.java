@@ -0,0 +1,89 @@
+package com.example.ecommerce.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persisted buckets of one node's top-products window, so a restarted node
+ * resumes ranking instead of starting from an empty sketch. Keyed by window and
+ * node, so nodes do not overwrite each other's counts.
+ */
+@Document(collection = "top_product_sketches")
+public class TopProductsSnapshot {
+
+    @Id
+    private String id;
+    private String window;
+    private String node;
+    private int capacity;
+    private List<Bucket> buckets = new ArrayList<>();
+    private Instant savedAt;
+    // Saved by a node that was shutting down; any node may take it over
+    private boolean closed;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expireAt;
+
+    public TopProductsSnapshot() {
+    }
+
+    public static String idFor(String window, String node) {
+        return window + ":" + node;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getWindow() { return window; }
+    public void setWindow(String window) { this.window = window; }
+
+    public String getNode() { return node; }
+    public void setNode(String node) { this.node = node; }
+
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    public List<Bucket> getBuckets() { return buckets; }
+    public void setBuckets(List<Bucket> buckets) { this.buckets = buckets; }
+
+    public Instant getSavedAt() { return savedAt; }
+    public void setSavedAt(Instant savedAt) { this.savedAt = savedAt; }
+
+    public boolean isClosed() { return closed; }
+    public void setClosed(boolean closed) { this.closed = closed; }
+
+    public Instant getExpireAt() { return expireAt; }
+    public void setExpireAt(Instant expireAt) { this.expireAt = expireAt; }
+
+    public static class Bucket {
+
+        private long startMillis;
+        private List<Entry> entries = new ArrayList<>();
+
+        public long getStartMillis() { return startMillis; }
+        public void setStartMillis(long startMillis) { this.startMillis = startMillis; }
+
+        public List<Entry> getEntries() { return entries; }
+        public void setEntries(List<Entry> entries) { this.entries = entries; }
+    }
+
+    public static class Entry {
+
+        private String productId;
+        private long count;
+        private long error;
+
+        public String getProductId() { return productId; }
+        public void setProductId(String productId) { this.productId = productId; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+
+        public long getError() { return error; }
+        public void setError(long error) { this.error = error; }
+    }
+}
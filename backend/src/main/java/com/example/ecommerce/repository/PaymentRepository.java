@@ -9,4 +9,6 @@ public interface PaymentRepository extends MongoRepository<Payment, String> {
     Optional<Payment> findByOrderId(String orderId);
     
     Optional<Payment> findByRazorpayOrderId(String razorpayOrderId);
+    
+    boolean existsByRazorpayOrderId(String razorpayOrderId);
 }
@@ -0,0 +1,7 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+}
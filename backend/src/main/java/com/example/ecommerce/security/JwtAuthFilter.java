@@ -1,6 +1,5 @@
 package com.example.ecommerce.security;
 
-import com.example.ecommerce.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,11 +14,33 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.List;
 
+/**
+ * Authenticates requests carrying a valid bearer token. A token that fails
+ * verification or was revoked does not end the request here: it continues as
+ * anonymous, so public routes still answer, {@link RateLimitFilter} limits it by
+ * client IP, and {@link JwtAuthenticationEntryPoint} turns it into a 401 only if
+ * the route needs authentication.
+ */
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
     
+    /**
+     * Request attribute marking a bearer token that was rejected
+     */
+    public static final String INVALID_TOKEN_ATTRIBUTE = JwtAuthFilter.class.getName() + ".INVALID_TOKEN";
+    
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    
     @Autowired
-    private JwtUtil jwtUtil;
+    private TokenRevocationService tokenRevocationService;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // A stale token left in the browser must not block logging in again
+        String uri = request.getRequestURI();
+        return uri.equals("/api/auth/login") || uri.equals("/api/auth/register");
+    }
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -31,24 +52,24 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             
-            try {
-                if (jwtUtil.isTokenValid(token)) {
-                    String userId = jwtUtil.extractUserId(token);
-                    String role = jwtUtil.extractRole(token);
-                    
-                    List<SimpleGrantedAuthority> authorities = List.of(
-                        new SimpleGrantedAuthority("ROLE_" + role)
-                    );
-                    
-                    UsernamePasswordAuthenticationToken auth = 
-                        new UsernamePasswordAuthenticationToken(userId, null, authorities);
-                    
-                    SecurityContextHolder.getContext().setAuthentication(auth);
-                }
-            } catch (Exception e) {
-                // Invalid token - continue without authentication
-                System.err.println("Invalid JWT token: " + e.getMessage());
+            // Verified at most once per token; repeats are served from the cache.
+            // The revocation check is an in-memory Bloom probe unless it hits.
+            JwtPrincipal principal = verifiedTokenCache.resolve(token);
+            if (principal == null || tokenRevocationService.isRevoked(principal)) {
+                request.setAttribute(INVALID_TOKEN_ATTRIBUTE, Boolean.TRUE);
+                filterChain.doFilter(request, response);
+                return;
             }
+            
+            List<SimpleGrantedAuthority> authorities = List.of(
+                new SimpleGrantedAuthority("ROLE_" + principal.role())
+            );
+            
+            UsernamePasswordAuthenticationToken auth = 
+                new UsernamePasswordAuthenticationToken(principal.userId(), null, authorities);
+            auth.setDetails(principal);
+            
+            SecurityContextHolder.getContext().setAuthentication(auth);
         }
         
         filterChain.doFilter(request, response);
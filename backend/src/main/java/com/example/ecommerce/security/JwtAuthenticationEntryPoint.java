@@ -0,0 +1,39 @@
+package com.example.ecommerce.security;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Answers an unauthenticated request to a protected route: 401 if it carried a
+ * token that {@link JwtAuthFilter} rejected, so clients know to log in again,
+ * otherwise the default 403.
+ */
+@Component
+public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
+
+    private static final byte[] INVALID_TOKEN_BODY =
+            "{\"error\":\"Unauthorized\",\"message\":\"Invalid or expired token\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final AuthenticationEntryPoint anonymous = new Http403ForbiddenEntryPoint();
+
+    @Override
+    public void commence(HttpServletRequest request, HttpServletResponse response,
+                         AuthenticationException authException) throws IOException, ServletException {
+        if (request.getAttribute(JwtAuthFilter.INVALID_TOKEN_ATTRIBUTE) == null) {
+            anonymous.commence(request, response, authException);
+            return;
+        }
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setContentType("application/json");
+        response.getOutputStream().write(INVALID_TOKEN_BODY);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.ecommerce.security;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature and expiry have already been verified
+ */
+public record JwtPrincipal(String userId, String email, String role, String tokenId,
+                           Instant issuedAt, Instant expiresAt) {
+}
@@ -0,0 +1,56 @@
+package com.example.ecommerce.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.local.SynchronizationStrategy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.Function;
+
+/**
+ * In-memory token buckets, one size-bounded store per route class. Entries
+ * expire after one refill period of inactivity: by then the bucket would be
+ * full again, so dropping it loses nothing.
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private final Store[] stores;
+
+    private static final class Store {
+        private final Cache<String, Bucket> buckets;
+        private final Function<String, Bucket> bucketFactory;
+
+        private Store(Cache<String, Bucket> buckets, Function<String, Bucket> bucketFactory) {
+            this.buckets = buckets;
+            this.bucketFactory = bucketFactory;
+        }
+    }
+
+    public LocalRateLimiter(RateLimitPolicy[] policies, long maxTrackedKeys, MeterRegistry meterRegistry) {
+        stores = new Store[policies.length];
+        for (RateLimitPolicy policy : policies) {
+            Cache<String, Bucket> buckets = Caffeine.newBuilder()
+                    .maximumSize(maxTrackedKeys)
+                    .expireAfterAccess(policy.period())
+                    .build();
+            Function<String, Bucket> factory = key -> Bucket.builder()
+                    .addLimit(policy.bandwidth())
+                    // Mutates state in place instead of allocating a new state per CAS attempt
+                    .withSynchronizationStrategy(SynchronizationStrategy.SYNCHRONIZED)
+                    .build();
+            Gauge.builder("rate.limit.tracked.keys", buckets, Cache::estimatedSize)
+                    .tag("policy", policy.routeClass().getKey())
+                    .tag("store", "local")
+                    .register(meterRegistry);
+            stores[policy.routeClass().ordinal()] = new Store(buckets, factory);
+        }
+    }
+
+    @Override
+    public boolean tryConsume(RateLimitPolicy policy, String key) {
+        Store store = stores[policy.routeClass().ordinal()];
+        return store.buckets.get(key, store.bucketFactory).tryConsume(1);
+    }
+}
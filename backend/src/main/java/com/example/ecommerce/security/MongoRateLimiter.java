@@ -0,0 +1,205 @@
+package com.example.ecommerce.security;
+
+import com.example.ecommerce.client.CircuitBreaker;
+import com.example.ecommerce.model.RateLimitBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Cluster-wide token buckets stored in Mongo, shared by every node.
+ *
+ * A node never asks Mongo for a single token. It takes a lease of up to
+ * {@code leaseFraction × capacity} tokens (at least {@code minLeaseTokens}, so
+ * small buckets are not synced on every request) with an optimistic compare-and-swap on
+ * the bucket's version, then serves requests for that key from the lease in
+ * memory. Unused tokens go back to the shared bucket on the next sync once the
+ * lease has expired. When the shared bucket is empty the node also remembers
+ * how long until the next token, so a client that is over its limit cannot
+ * turn every rejected request into a Mongo round trip.
+ *
+ * The sync runs under the key's lease lock, so the template passed in should
+ * use short timeouts (see RateLimitFilter). If Mongo is unreachable the
+ * decision falls back to a per-node limiter rather than failing every request,
+ * and a breaker that opens on the first failure keeps using it until a trial
+ * sync succeeds, so later requests do not each wait out a timeout.
+ */
+public class MongoRateLimiter implements RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoRateLimiter.class);
+
+    private static final int MAX_CAS_ATTEMPTS = 5;
+    private static final long CONTENDED_RETRY_MILLIS = 10;
+
+    private final MongoTemplate mongoTemplate;
+    private final RateLimiter fallback;
+    private final double leaseFraction;
+    private final int minLeaseTokens;
+    private final long leaseTtlNanos;
+    private final LeaseStore[] stores;
+    private final CircuitBreaker breaker;
+    private final Timer syncTimer;
+    private final Counter conflicts;
+    private final Counter fallbacks;
+
+    private static final class LeaseStore {
+        private final Cache<String, Lease> leases;
+        private final Function<String, Lease> leaseFactory;
+
+        private LeaseStore(Cache<String, Lease> leases, Function<String, Lease> leaseFactory) {
+            this.leases = leases;
+            this.leaseFactory = leaseFactory;
+        }
+    }
+
+    /**
+     * Tokens this node holds for one key. Guarded by its own lock so requests
+     * for different keys never contend. A ReentrantLock rather than a monitor,
+     * because the holder may wait on Mongo and must not pin a virtual thread.
+     */
+    private static final class Lease {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int remaining;
+        private long expiresAtNanos;
+        private long deniedUntilNanos;
+    }
+
+    private record Grant(int tokens, long waitMillis) {
+    }
+
+    public MongoRateLimiter(MongoTemplate mongoTemplate, RateLimitPolicy[] policies, RateLimiter fallback,
+                            double leaseFraction, int minLeaseTokens, long leaseTtlMillis, long maxTrackedKeys,
+                            Duration breakerOpenDuration, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.fallback = fallback;
+        this.leaseFraction = leaseFraction;
+        this.minLeaseTokens = Math.max(1, minLeaseTokens);
+        this.leaseTtlNanos = leaseTtlMillis * 1_000_000L;
+        this.stores = new LeaseStore[policies.length];
+        for (RateLimitPolicy policy : policies) {
+            Cache<String, Lease> leases = Caffeine.newBuilder()
+                    .maximumSize(maxTrackedKeys)
+                    .expireAfterAccess(policy.period())
+                    .build();
+            stores[policy.routeClass().ordinal()] = new LeaseStore(leases, key -> new Lease());
+        }
+        // Window of one: the first failed sync opens it
+        this.breaker = new CircuitBreaker("rate-limit-store", 1, 1, 100.0, breakerOpenDuration, 1);
+        this.syncTimer = Timer.builder("rate.limit.cluster.sync")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.conflicts = meterRegistry.counter("rate.limit.cluster.conflicts");
+        this.fallbacks = meterRegistry.counter("rate.limit.cluster.fallback");
+    }
+
+    @Override
+    public boolean tryConsume(RateLimitPolicy policy, String key) {
+        LeaseStore store = stores[policy.routeClass().ordinal()];
+        Lease lease = store.leases.get(key, store.leaseFactory);
+        long now = System.nanoTime();
+
+        lease.lock.lock();
+        try {
+            boolean expired = now - lease.expiresAtNanos >= 0;
+            if (lease.remaining > 0 && !expired) {
+                lease.remaining--;
+                return true;
+            }
+            if (now - lease.deniedUntilNanos < 0) {
+                return false;
+            }
+
+            if (!breaker.tryAcquirePermission()) {
+                fallbacks.increment();
+                return fallback.tryConsume(policy, key);
+            }
+
+            int leftover = expired ? lease.remaining : 0;
+            int wanted = Math.min(policy.capacity(),
+                    Math.max(minLeaseTokens, (int) (policy.capacity() * leaseFraction)));
+            Grant grant;
+            long start = System.nanoTime();
+            try {
+                grant = acquire(policy, key, wanted, leftover);
+                breaker.onSuccess();
+            } catch (DataAccessException e) {
+                breaker.onFailure();
+                fallbacks.increment();
+                log.warn("Shared rate-limit store unavailable, using local limits: {}", e.getMessage());
+                return fallback.tryConsume(policy, key);
+            } catch (RuntimeException e) {
+                breaker.onFailure();
+                throw e;
+            } finally {
+                syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+
+            if (grant.tokens() == 0) {
+                lease.remaining = 0;
+                lease.deniedUntilNanos = now + grant.waitMillis() * 1_000_000L;
+                return false;
+            }
+            lease.remaining = grant.tokens() - 1;
+            lease.expiresAtNanos = now + leaseTtlNanos;
+            return true;
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    /**
+     * Refills the shared bucket, returns {@code returned} unused tokens to it and
+     * takes up to {@code wanted}, retrying when another node wrote in between
+     */
+    private Grant acquire(RateLimitPolicy policy, String key, int wanted, int returned) {
+        String id = policy.routeClass().getKey() + ":" + key;
+        for (int attempt = 0; attempt < MAX_CAS_ATTEMPTS; attempt++) {
+            long nowMillis = System.currentTimeMillis();
+            RateLimitBucket bucket = mongoTemplate.findById(id, RateLimitBucket.class);
+
+            double tokens;
+            if (bucket == null) {
+                bucket = new RateLimitBucket(id);
+                tokens = policy.capacity();
+            } else {
+                long elapsed = Math.max(0, nowMillis - bucket.getRefilledAtMillis());
+                tokens = bucket.getTokens() + elapsed * policy.tokensPerMilli();
+            }
+            tokens = Math.min(policy.capacity(), tokens + returned);
+
+            int granted = (int) Math.min(wanted, Math.floor(tokens));
+            double left = tokens - granted;
+            long millisUntilFull = (long) Math.ceil((policy.capacity() - left) / policy.tokensPerMilli());
+
+            bucket.setTokens(left);
+            bucket.setRefilledAtMillis(nowMillis);
+            bucket.setExpireAt(Instant.ofEpochMilli(nowMillis + millisUntilFull));
+            try {
+                // Versioned save: insert if new, otherwise update only if nobody else has
+                mongoTemplate.save(bucket);
+            } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+                conflicts.increment();
+                continue;
+            }
+
+            long waitMillis = granted > 0 ? 0 : (long) Math.ceil((1 - left) / policy.tokensPerMilli());
+            return new Grant(granted, waitMillis);
+        }
+        // Heavily contended key: deny briefly rather than spin against Mongo
+        return new Grant(0, CONTENDED_RETRY_MILLIS);
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.ecommerce.security;
+
+import com.example.ecommerce.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a dedicated pool sized to the CPU count instead of on request
+ * threads. The pool has a bounded queue: once it is full, callers get a 503
+ * straight away rather than piling up behind a login spike and starving the
+ * rest of the API.
+ *
+ * The BCrypt cost is either fixed ({@code security.password.bcrypt.strength}) or
+ * calibrated at startup against {@code security.password.bcrypt.target-ms}.
+ */
+@Component
+public class PasswordHashingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private static final int MIN_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 16;
+
+    @Value("${security.password.bcrypt.strength:10}")
+    private int configuredStrength;
+
+    @Value("${security.password.bcrypt.target-ms:0}")
+    private long targetMs;
+
+    @Value("${security.password.hashing.threads:0}")
+    private int threads;
+
+    @Value("${security.password.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${security.password.hashing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+    private BCryptPasswordEncoder encoder;
+    private int strength;
+    private Timer queueWait;
+    private Counter rejections;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        strength = targetMs > 0 ? calibrate(targetMs) : configuredStrength;
+        encoder = new BCryptPasswordEncoder(strength);
+        log.info("Password hashing: BCrypt cost {}, {} threads, queue capacity {}", strength, poolSize, queueCapacity);
+
+        queueWait = Timer.builder("auth.password.queue.wait")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        rejections = meterRegistry.counter("auth.password.rejected");
+        Gauge.builder("auth.password.queue.size", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.password.bcrypt.strength", this, s -> s.strength)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String encode(String rawPassword) {
+        return await(submit("encode", () -> encoder.encode(rawPassword)));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(submit("matches", () -> encoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * True if the hash was produced with a different cost than the current one
+     */
+    public boolean needsRehash(String encodedPassword) {
+        // BCrypt hashes look like $2a$10$<salt+hash>
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(3) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hashes in the background without blocking the caller; completes exceptionally
+     * if the pool is saturated, in which case the caller can simply try again later
+     */
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        try {
+            submit("rehash", () -> {
+                try {
+                    result.complete(encoder.encode(rawPassword));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+                return null;
+            });
+        } catch (ServiceUnavailableException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private <T> Future<T> submit(String operation, Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Timer hashTimer = Timer.builder("auth.password.hash")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        try {
+            return executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } finally {
+                    hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new ServiceUnavailableException("Authentication is busy, please retry shortly", 1);
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceUnavailableException("Authentication timed out, please retry shortly", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceUnavailableException("Authentication was interrupted", 1);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Picks the highest cost whose hash time stays under the target. Each cost
+     * step doubles the work, so one measurement is enough to extrapolate.
+     */
+    private int calibrate(long targetMillis) {
+        int probeStrength = MIN_STRENGTH;
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(probeStrength);
+        probe.encode("calibration-warmup");
+        long start = System.nanoTime();
+        probe.encode("calibration-probe");
+        double probeMillis = Math.max(0.001, (System.nanoTime() - start) / 1_000_000.0);
+
+        int steps = (int) Math.floor(Math.log(targetMillis / probeMillis) / Math.log(2));
+        int calibrated = Math.max(MIN_STRENGTH, Math.min(MAX_STRENGTH, probeStrength + steps));
+        log.info("BCrypt cost {} took {} ms; calibrated cost {} for a {} ms target",
+                probeStrength, String.format("%.1f", probeMillis), calibrated, targetMillis);
+        return calibrated;
+    }
+}
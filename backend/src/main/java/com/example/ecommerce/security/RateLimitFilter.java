@@ -1,63 +1,197 @@
 package com.example.ecommerce.security;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoConnectionDetails;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/**
+ * Per-route-class rate limits keyed by authenticated user ID, falling back to
+ * the client IP for anonymous requests. Runs after {@link JwtAuthFilter} so the
+ * principal is already known; a request whose token was rejected arrives here
+ * anonymous and is limited by IP.
+ *
+ * {@code rate.limit.mode=local} keeps buckets in this JVM; {@code mongo} shares
+ * them across nodes through {@link MongoRateLimiter}. {@code X-Forwarded-For}
+ * is only honoured when the direct peer is a configured trusted proxy.
+ */
 @Component
 public class RateLimitFilter extends OncePerRequestFilter {
     
+    private static final byte[] REJECTED_BODY =
+        "{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded. Try again later.\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    
     @Value("${rate.limit.requests:100}")
     private int maxRequests;
     
     @Value("${rate.limit.duration:60}")
     private int durationSeconds;
     
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    @Value("${rate.limit.max-tracked-keys:100000}")
+    private long maxTrackedKeys;
+    
+    @Value("${rate.limit.mode:local}")
+    private String mode;
+    
+    @Value("${rate.limit.cluster.lease-fraction:0.1}")
+    private double leaseFraction;
+    
+    @Value("${rate.limit.cluster.lease-ttl-ms:1000}")
+    private long leaseTtlMs;
+    
+    @Value("${rate.limit.cluster.min-lease-tokens:5}")
+    private int minLeaseTokens;
+    
+    @Value("${rate.limit.cluster.timeout-ms:200}")
+    private int clusterTimeoutMs;
+    
+    @Value("${rate.limit.cluster.breaker-open-ms:5000}")
+    private long breakerOpenMs;
+    
+    @Value("${rate.limit.trusted-proxies:}")
+    private String trustedProxiesProperty;
+    
+    @Autowired
+    private Environment environment;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private MongoConnectionDetails mongoConnectionDetails;
+    
+    private RateLimitPolicy[] policies;
+    private Counter[] rejections;
+    private String[] retryAfterSeconds;
+    private RateLimiter rateLimiter;
+    private Set<String> trustedProxies;
+    private MongoClient clusterClient;
+    
+    @PostConstruct
+    void init() {
+        trustedProxies = Arrays.stream(trustedProxiesProperty.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        
+        RouteClass[] routeClasses = RouteClass.values();
+        policies = new RateLimitPolicy[routeClasses.length];
+        rejections = new Counter[routeClasses.length];
+        retryAfterSeconds = new String[routeClasses.length];
+        for (RouteClass routeClass : routeClasses) {
+            // rate.limit.requests / rate.limit.duration remain the defaults for unclassified routes
+            int fallbackRequests = routeClass == RouteClass.DEFAULT ? maxRequests : routeClass.getDefaultRequests();
+            int fallbackDuration = routeClass == RouteClass.DEFAULT ? durationSeconds : routeClass.getDefaultDurationSeconds();
+            int requests = environment.getProperty("rate.limit." + routeClass.getKey() + ".requests",
+                    Integer.class, fallbackRequests);
+            Duration period = Duration.ofSeconds(environment.getProperty(
+                    "rate.limit." + routeClass.getKey() + ".duration", Integer.class, fallbackDuration));
+            
+            int index = routeClass.ordinal();
+            policies[index] = new RateLimitPolicy(routeClass, requests, period);
+            rejections[index] = meterRegistry.counter("rate.limit.rejected", "policy", routeClass.getKey());
+            retryAfterSeconds[index] = String.valueOf(period.getSeconds());
+        }
+        
+        LocalRateLimiter local = new LocalRateLimiter(policies, maxTrackedKeys, meterRegistry);
+        if ("mongo".equalsIgnoreCase(mode)) {
+            // Own client with short timeouts: a sync holds the key's lease lock, so it must fail fast
+            clusterClient = MongoClients.create(MongoClientSettings.builder()
+                    .applyConnectionString(mongoConnectionDetails.getConnectionString())
+                    .applyToClusterSettings(cluster ->
+                            cluster.serverSelectionTimeout(clusterTimeoutMs, TimeUnit.MILLISECONDS))
+                    .applyToConnectionPoolSettings(pool -> pool.maxWaitTime(clusterTimeoutMs, TimeUnit.MILLISECONDS))
+                    .applyToSocketSettings(socket -> socket
+                            .connectTimeout(clusterTimeoutMs, TimeUnit.MILLISECONDS)
+                            .readTimeout(clusterTimeoutMs, TimeUnit.MILLISECONDS))
+                    .build());
+            MongoTemplate clusterTemplate = new MongoTemplate(clusterClient, mongoTemplate.getDb().getName());
+            rateLimiter = new MongoRateLimiter(clusterTemplate, policies, local, leaseFraction, minLeaseTokens,
+                    leaseTtlMs, maxTrackedKeys, Duration.ofMillis(breakerOpenMs), meterRegistry);
+        } else {
+            rateLimiter = local;
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (clusterClient != null) {
+            clusterClient.close();
+        }
+    }
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
         
-        String clientIp = getClientIp(request);
-        Bucket bucket = buckets.computeIfAbsent(clientIp, this::createBucket);
+        int index = RouteClass.classify(request.getMethod(), request.getRequestURI()).ordinal();
         
-        if (bucket.tryConsume(1)) {
+        if (rateLimiter.tryConsume(policies[index], clientKey(request))) {
             filterChain.doFilter(request, response);
         } else {
+            rejections[index].increment();
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", retryAfterSeconds[index]);
             response.setContentType("application/json");
-            response.getWriter().write(
-                "{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded. Try again later.\"}"
-            );
+            response.getOutputStream().write(REJECTED_BODY);
         }
     }
     
-    private Bucket createBucket(String key) {
-        Bandwidth limit = Bandwidth.classic(maxRequests, 
-            Refill.greedy(maxRequests, Duration.ofSeconds(durationSeconds)));
-        return Bucket.builder().addLimit(limit).build();
+    private String clientKey(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated()) {
+            return auth.getName();
+        }
+        return getClientIp(request);
     }
     
     private String getClientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (trustedProxies.isEmpty() || !trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
         String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+        if (xForwardedFor == null || xForwardedFor.isEmpty()) {
+            return remoteAddr;
+        }
+        // Walk from the right: the last hop that is not one of our proxies is the client
+        String[] hops = xForwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                return hop;
+            }
         }
-        return request.getRemoteAddr();
+        return remoteAddr;
     }
 }
@@ -0,0 +1,20 @@
+package com.example.ecommerce.security;
+
+import io.github.bucket4j.Bandwidth;
+
+import java.time.Duration;
+
+/**
+ * Limit applied to one route class: {@code capacity} requests per {@code period},
+ * refilled greedily.
+ */
+public record RateLimitPolicy(RouteClass routeClass, int capacity, Duration period) {
+
+    public Bandwidth bandwidth() {
+        return Bandwidth.builder().capacity(capacity).refillGreedy(capacity, period).build();
+    }
+
+    public double tokensPerMilli() {
+        return (double) capacity / period.toMillis();
+    }
+}
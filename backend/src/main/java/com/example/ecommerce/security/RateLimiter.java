@@ -0,0 +1,9 @@
+package com.example.ecommerce.security;
+
+/**
+ * Decides whether one more request under a policy is allowed for a client key
+ */
+public interface RateLimiter {
+
+    boolean tryConsume(RateLimitPolicy policy, String key);
+}
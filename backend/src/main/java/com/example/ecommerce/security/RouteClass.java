@@ -0,0 +1,47 @@
+package com.example.ecommerce.security;
+
+/**
+ * Groups endpoints that share a rate-limit policy. Classification only uses
+ * {@code startsWith} on the request URI so it allocates nothing per request.
+ */
+public enum RouteClass {
+    CATALOG("catalog", 300, 60),
+    AUTH("auth", 10, 60),
+    CART("cart", 120, 60),
+    CHECKOUT("checkout", 30, 60),
+    WEBHOOK("webhook", 1000, 60),
+    DEFAULT("default", 100, 60);
+
+    private final String key;
+    private final int defaultRequests;
+    private final int defaultDurationSeconds;
+
+    RouteClass(String key, int defaultRequests, int defaultDurationSeconds) {
+        this.key = key;
+        this.defaultRequests = defaultRequests;
+        this.defaultDurationSeconds = defaultDurationSeconds;
+    }
+
+    public String getKey() { return key; }
+    public int getDefaultRequests() { return defaultRequests; }
+    public int getDefaultDurationSeconds() { return defaultDurationSeconds; }
+
+    public static RouteClass classify(String method, String uri) {
+        if (uri.startsWith("/api/products")) {
+            return "GET".equals(method) ? CATALOG : DEFAULT;
+        }
+        if (uri.startsWith("/api/auth/")) {
+            return AUTH;
+        }
+        if (uri.startsWith("/api/cart")) {
+            return CART;
+        }
+        if (uri.startsWith("/api/payments") || (uri.startsWith("/api/orders") && "POST".equals(method))) {
+            return CHECKOUT;
+        }
+        if (uri.startsWith("/api/webhooks/")) {
+            return WEBHOOK;
+        }
+        return DEFAULT;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.ecommerce.security;
+
+import com.example.ecommerce.model.RevokedToken;
+import com.example.ecommerce.repository.RevokedTokenRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Revoked tokens and per-user cutoffs live in {@code revoked_tokens}. Each node
+ * mirrors them into two Bloom filters (token IDs and user IDs), so the check on
+ * every request is an in-memory probe. Mongo is only consulted on a Bloom hit,
+ * and that answer is cached briefly.
+ *
+ * Nodes poll for new revocations every {@code sync-interval-ms}; polling works
+ * on standalone MongoDB, where change streams are not available. Bloom filters
+ * cannot forget, so they are rebuilt from the unexpired entries every
+ * {@code rebuild-interval-ms}. The TTL index drops an entry once every token it
+ * covers has expired.
+ *
+ * If Mongo is unreachable at startup the node still comes up. Until the filters
+ * are built, every token is checked against Mongo as if it were a Bloom hit, and
+ * each sync retries the build.
+ */
+@Component
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMs;
+
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${jwt.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${jwt.revocation.sync-interval-ms:2000}")
+    private long syncIntervalMs;
+
+    @Value("${jwt.revocation.sync-overlap-ms:30000}")
+    private long syncOverlapMs;
+
+    private record Filters(BloomFilter tokenIds, BloomFilter userIds) {
+    }
+
+    private volatile Filters filters;
+    private volatile Instant syncedUpTo = Instant.EPOCH;
+
+    // Answers for Bloom hits; new revocations seen by sync invalidate their entry
+    private Cache<String, Boolean> revokedTokenIds;
+    private Cache<String, Instant> userCutoffs;
+    private Counter bloomHits;
+    private Counter revokedRejections;
+
+    @PostConstruct
+    void init() {
+        revokedTokenIds = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(syncIntervalMs))
+                .build();
+        userCutoffs = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(syncIntervalMs))
+                .build();
+        bloomHits = meterRegistry.counter("auth.revocation.bloom.hits");
+        revokedRejections = meterRegistry.counter("auth.revocation.rejected");
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            log.error("Could not build token revocation filters, retrying on the next sync: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * True if the token or every token of its user issued before it has been revoked
+     */
+    public boolean isRevoked(JwtPrincipal principal) {
+        Filters current = filters;
+        try {
+            String tokenId = principal.tokenId();
+            if (tokenId != null && (current == null || current.tokenIds().mightContain(tokenId))) {
+                bloomHits.increment();
+                boolean revoked = revokedTokenIds.get(tokenId,
+                        id -> revokedTokenRepository.existsById(RevokedToken.Type.TOKEN.name() + ":" + id));
+                if (revoked) {
+                    revokedRejections.increment();
+                    return true;
+                }
+            }
+            if (current == null || current.userIds().mightContain(principal.userId())) {
+                bloomHits.increment();
+                Instant cutoff = userCutoffs.get(principal.userId(),
+                        id -> revokedTokenRepository.findById(RevokedToken.Type.USER.name() + ":" + id)
+                                .map(RevokedToken::getNotBefore)
+                                .orElse(Instant.EPOCH));
+                Instant issuedAt = principal.issuedAt() != null ? principal.issuedAt() : Instant.EPOCH;
+                if (issuedAt.isBefore(cutoff)) {
+                    revokedRejections.increment();
+                    return true;
+                }
+            }
+            return false;
+        } catch (DataAccessException e) {
+            // Only reached on a Bloom hit; refuse rather than let a possibly revoked token through
+            log.warn("Could not confirm token revocation, rejecting: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Revokes a single token until its own expiry, e.g. on logout
+     */
+    public void revokeToken(JwtPrincipal principal) {
+        if (principal.tokenId() == null) {
+            // Issued before tokens carried a jti: the only handle is the user-level cutoff
+            revokeAllForUser(principal.userId());
+            return;
+        }
+        Instant now = Instant.now();
+        RevokedToken entry = new RevokedToken(RevokedToken.Type.TOKEN, principal.tokenId(),
+                null, now, principal.expiresAt());
+        revokedTokenRepository.save(entry);
+        add(filters, entry);
+    }
+
+    /**
+     * Revokes every token the user currently holds, e.g. after a role or password change.
+     * {@code iat} has second precision, so the cutoff is truncated to the second and
+     * tokens issued within that same second stay valid.
+     */
+    public void revokeAllForUser(String userId) {
+        Instant now = Instant.now();
+        RevokedToken entry = new RevokedToken(RevokedToken.Type.USER, userId,
+                now.truncatedTo(ChronoUnit.SECONDS), now, now.plusMillis(tokenLifetimeMs));
+        revokedTokenRepository.save(entry);
+        add(filters, entry);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:2000}")
+    public void sync() {
+        if (filters == null) {
+            rebuild();
+            return;
+        }
+        // Overlap covers clock skew between nodes and writes that committed out of order
+        Instant since = syncedUpTo.minusMillis(syncOverlapMs);
+        Query query = new Query(Criteria.where("revokedAt").gt(since))
+                .with(Sort.by(Sort.Direction.ASC, "revokedAt"));
+        List<RevokedToken> entries = mongoTemplate.find(query, RevokedToken.class);
+        Filters current = filters;
+        for (RevokedToken entry : entries) {
+            add(current, entry);
+            if (entry.getRevokedAt().isAfter(syncedUpTo)) {
+                syncedUpTo = entry.getRevokedAt();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-interval-ms:600000}",
+               initialDelayString = "${jwt.revocation.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        Instant now = Instant.now();
+        Query live = new Query(Criteria.where("expireAt").gt(now));
+        long count = mongoTemplate.count(live, RevokedToken.class);
+        long capacity = Math.max(expectedEntries, count * 2);
+        Filters fresh = new Filters(new BloomFilter(capacity, falsePositiveRate),
+                new BloomFilter(capacity, falsePositiveRate));
+
+        Instant newest = syncedUpTo;
+        try (Stream<RevokedToken> entries = mongoTemplate.stream(live, RevokedToken.class)) {
+            for (RevokedToken entry : (Iterable<RevokedToken>) entries::iterator) {
+                add(fresh, entry);
+                if (entry.getRevokedAt() != null && entry.getRevokedAt().isAfter(newest)) {
+                    newest = entry.getRevokedAt();
+                }
+            }
+        }
+        filters = fresh;
+        syncedUpTo = newest;
+        // Pick up revocations made locally while the new filters were being built
+        sync();
+        log.info("Rebuilt token revocation filters from {} entries", count);
+    }
+
+    private void add(Filters target, RevokedToken entry) {
+        // Without filters every lookup goes to Mongo; the next build picks the entry up
+        if (entry.getType() == RevokedToken.Type.TOKEN) {
+            if (target != null) {
+                target.tokenIds().put(entry.getSubject());
+            }
+            revokedTokenIds.invalidate(entry.getSubject());
+        } else {
+            if (target != null) {
+                target.userIds().put(entry.getSubject());
+            }
+            userCutoffs.invalidate(entry.getSubject());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.ecommerce.security;
+
+import com.example.ecommerce.util.JwtUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Bounded cache of already-verified tokens, keyed by the SHA-256 of the raw token
+ * (so the cache never holds bearer credentials) and expiring each entry at the
+ * token's own {@code exp}. Repeat requests with the same token skip HMAC
+ * verification and claim parsing entirely.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    // Cloning a prototype is cheaper than a provider lookup, and unlike a per-thread
+    // digest it does not build a new one for every virtual thread
+    private static final MessageDigest SHA_256;
+
+    static {
+        try {
+            SHA_256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.cache.max-size:100000}")
+    private long maxSize;
+
+    private Cache<ByteBuffer, JwtPrincipal> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, JwtPrincipal principal, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), principal.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, JwtPrincipal principal,
+                                                  long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, JwtPrincipal principal,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.tokens.verified");
+    }
+
+    /**
+     * Returns the verified principal for the token, or null if it is malformed,
+     * wrongly signed or expired
+     */
+    public JwtPrincipal resolve(String token) {
+        // ByteBuffer compares by content, which makes it a cheap map key for the digest
+        ByteBuffer key = ByteBuffer.wrap(sha256().digest(token.getBytes(StandardCharsets.UTF_8)));
+        JwtPrincipal principal = cache.getIfPresent(key);
+        if (principal != null) {
+            return principal;
+        }
+        try {
+            principal = jwtUtil.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        cache.put(key, principal);
+        return principal;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return (MessageDigest) SHA_256.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 provider does not support cloning", e);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.AdminOrderPage;
+import com.example.ecommerce.dto.AdminOrderSummary;
+import com.example.ecommerce.exception.BadRequestException;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.model.PaymentStatus;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Admin order search.
+ *
+ * Each request is mapped onto one of the compound indexes declared on
+ * {@link Order}, all of which end in {createdAt: -1, _id: -1}. The most selective
+ * equality filter picks the index (userId, then status, then paymentStatus,
+ * otherwise createdAt alone) and the query is pinned to it with a hint.
+ * Filters the chosen index cannot serve are applied to the documents it returns;
+ * they are only accepted when that scan is bounded, i.e. the index is userId or
+ * the request gives a date range of at most {@code max-residual-scan-days}.
+ * Anything else would walk most of the collection and is rejected up front.
+ *
+ * Pages are keyset-based: the cursor is the (createdAt, _id) of the last order
+ * returned, so every page costs the same no matter how deep it is.
+ */
+@Service
+public class AdminOrderService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminOrderService.class);
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${admin.orders.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${admin.orders.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${admin.orders.max-residual-scan-days:31}")
+    private long maxResidualScanDays;
+
+    public AdminOrderPage search(OrderStatus status, PaymentStatus paymentStatus, String userId,
+                                 Instant from, Instant to, Double minAmount, Double maxAmount,
+                                 String cursor, Integer size) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        if (minAmount != null && maxAmount != null && minAmount > maxAmount) {
+            throw new BadRequestException("'minAmount' must not exceed 'maxAmount'");
+        }
+        int pageSize = size == null ? defaultPageSize : size;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+
+        String index;
+        boolean residual;
+        if (userId != null) {
+            index = "userId_createdAt_id";
+            residual = false;
+        } else if (status != null) {
+            index = "status_createdAt_id";
+            residual = paymentStatus != null || minAmount != null || maxAmount != null;
+        } else if (paymentStatus != null) {
+            index = "paymentStatus_createdAt_id";
+            residual = minAmount != null || maxAmount != null;
+        } else {
+            index = "createdAt_id";
+            residual = minAmount != null || maxAmount != null;
+        }
+        if (residual && !isBoundedRange(from, to)) {
+            throw new BadRequestException("Filtering on paymentStatus or amount alongside another filter needs "
+                    + "either userId or a 'from'/'to' range of at most " + maxResidualScanDays + " days");
+        }
+
+        List<Criteria> criteria = new ArrayList<>();
+        if (userId != null) {
+            criteria.add(Criteria.where("userId").is(userId));
+        }
+        if (status != null) {
+            criteria.add(Criteria.where("status").is(status));
+        }
+        if (paymentStatus != null) {
+            criteria.add(Criteria.where("paymentStatus").is(paymentStatus));
+        }
+        if (from != null || to != null) {
+            Criteria createdAt = Criteria.where("createdAt");
+            if (from != null) {
+                createdAt.gte(from);
+            }
+            if (to != null) {
+                createdAt.lt(to);
+            }
+            criteria.add(createdAt);
+        }
+        if (minAmount != null || maxAmount != null) {
+            Criteria amount = Criteria.where("totalAmount");
+            if (minAmount != null) {
+                amount.gte(minAmount);
+            }
+            if (maxAmount != null) {
+                amount.lte(maxAmount);
+            }
+            criteria.add(amount);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            criteria.add(afterCursor(cursor));
+        }
+
+        Query query = (criteria.isEmpty()
+                ? new Query()
+                : new Query(new Criteria().andOperator(criteria.toArray(new Criteria[0]))))
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")))
+                .withHint(index)
+                .limit(pageSize + 1);
+        List<Order> orders = mongoTemplate.find(query, Order.class);
+
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            Order last = orders.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        List<AdminOrderSummary> rows = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            rows.add(new AdminOrderSummary(order));
+        }
+        return new AdminOrderPage(rows, pageSize, nextCursor);
+    }
+
+    /**
+     * Copies the latest payment status onto every order. Needed once for orders
+     * created before paymentStatus was tracked on the order itself.
+     */
+    public long backfillPaymentStatus() {
+        Query query = new Query().with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("_id")));
+        query.fields().include("orderId").include("status");
+
+        long updated = 0;
+        try (Stream<Payment> payments = mongoTemplate.stream(query, Payment.class)) {
+            BulkOperations bulk = null;
+            int pending = 0;
+            for (Payment payment : (Iterable<Payment>) payments::iterator) {
+                if (bulk == null) {
+                    // Ordered so a later payment for the same order wins within a batch
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Order.class);
+                }
+                bulk.updateOne(new Query(Criteria.where("id").is(payment.getOrderId())),
+                        Update.update("paymentStatus", payment.getStatus()));
+                if (++pending == BACKFILL_BATCH_SIZE) {
+                    updated += bulk.execute().getModifiedCount();
+                    bulk = null;
+                    pending = 0;
+                }
+            }
+            if (bulk != null) {
+                updated += bulk.execute().getModifiedCount();
+            }
+        }
+        log.info("Backfilled paymentStatus on {} orders", updated);
+        return updated;
+    }
+
+    private boolean isBoundedRange(Instant from, Instant to) {
+        return from != null && to != null
+                && Duration.between(from, to).compareTo(Duration.ofDays(maxResidualScanDays)) <= 0;
+    }
+
+    static Criteria afterCursor(String cursor) {
+        Instant createdAt;
+        Object id;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            createdAt = Instant.ofEpochMilli(Long.parseLong(decoded.substring(0, separator)));
+            String rawId = decoded.substring(separator + 1);
+            id = ObjectId.isValid(rawId) ? new ObjectId(rawId) : rawId;
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").lt(createdAt),
+                Criteria.where("createdAt").is(createdAt).and("_id").lt(id));
+    }
+
+    static String encodeCursor(Instant createdAt, String id) {
+        String raw = createdAt.toEpochMilli() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
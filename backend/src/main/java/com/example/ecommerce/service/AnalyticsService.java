@@ -1,103 +1,141 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.config.MetricsConfig;
+import com.example.ecommerce.dto.SalesSummary;
+import com.example.ecommerce.dto.StatusCount;
+import com.example.ecommerce.dto.TopProduct;
 import com.example.ecommerce.model.Order;
-import com.example.ecommerce.model.OrderItem;
 import com.example.ecommerce.model.OrderStatus;
-import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.model.SalesDaily;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
 import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
-import java.util.stream.Collectors;
 
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Dashboard analytics. Sales totals come from the {@code sales_daily} rollup;
+ * the rest are single server-side aggregation pipelines, so the JVM only ever
+ * sees the final, already-reduced rows.
+ */
 @Service
 public class AnalyticsService {
     
-    @Autowired
-    private OrderRepository orderRepository;
+    // Large $group stages may spill to disk instead of failing at the 100 MB stage limit
+    private static final AggregationOptions ALLOW_DISK_USE = AggregationOptions.builder()
+            .allowDiskUse(true)
+            .build();
     
     @Autowired
     private MongoTemplate mongoTemplate;
     
-    public Map<String, Object> getSalesAnalytics(Integer days) {
+    @Autowired
+    private SalesRollupService salesRollupService;
+    
+    /**
+     * Sales for the last {@code days} closed UTC days plus today so far: at most
+     * {@code days} rollup rows, and a live aggregation over today's orders only.
+     */
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public SalesSummary getSalesAnalytics(Integer days) {
         if (days == null) days = 30;
         
-        Instant startDate = Instant.now().minus(days, ChronoUnit.DAYS);
+        Instant now = Instant.now();
+        LocalDate today = SalesRollupService.dayOf(now);
+        LocalDate firstDay = today.minusDays(days);
         
-        Query query = new Query(Criteria.where("createdAt").gte(startDate)
-                .and("status").is(OrderStatus.PAID));
-        List<Order> paidOrders = mongoTemplate.find(query, Order.class);
-        
-        double totalRevenue = paidOrders.stream()
-                .mapToDouble(Order::getTotalAmount)
-                .sum();
+        long totalOrders = 0;
+        double totalRevenue = 0;
+        for (SalesDaily row : salesRollupService.findDays(firstDay, today)) {
+            totalOrders += row.getOrders();
+            totalRevenue += row.getRevenue();
+        }
         
-        Map<String, Object> result = new HashMap<>();
-        result.put("totalOrders", paidOrders.size());
-        result.put("totalRevenue", totalRevenue);
-        result.put("averageOrderValue", paidOrders.isEmpty() ? 0 : totalRevenue / paidOrders.size());
-        result.put("periodDays", days);
-        result.put("startDate", startDate.toString());
-        result.put("endDate", Instant.now().toString());
+        // Served by the {status, createdAt, _id} index on orders
+        Instant todayStart = today.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Aggregation aggregation = newAggregation(
+                match(Criteria.where("status").is(OrderStatus.PAID).and("createdAt").gte(todayStart)),
+                group().count().as("totalOrders").sum("totalAmount").as("totalRevenue"));
+        SalesSummary live = mongoTemplate.aggregate(aggregation, Order.class, SalesSummary.class)
+                .getUniqueMappedResult();
+        if (live != null) {
+            totalOrders += live.getTotalOrders();
+            totalRevenue += live.getTotalRevenue();
+        }
         
-        return result;
+        return new SalesSummary(totalOrders, totalRevenue, days,
+                firstDay.atStartOfDay(ZoneOffset.UTC).toInstant(), now);
     }
     
-    public List<Map<String, Object>> getTopProducts(Integer limit) {
+    /**
+     * Exact best sellers among paid orders created since {@code since} (all time if null).
+     * Scans order history, so it backs the admin fallback rather than the dashboard.
+     */
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public List<TopProduct> getTopProducts(Integer limit, Instant since) {
         if (limit == null) limit = 5;
         
-        // Get all order items from paid orders
-        Query orderQuery = new Query(Criteria.where("status").is(OrderStatus.PAID));
-        List<Order> paidOrders = mongoTemplate.find(orderQuery, Order.class);
-        
-        List<String> paidOrderIds = paidOrders.stream()
-                .map(Order::getId)
-                .collect(Collectors.toList());
-        
-        Query itemQuery = new Query(Criteria.where("orderId").in(paidOrderIds));
-        List<OrderItem> orderItems = mongoTemplate.find(itemQuery, OrderItem.class);
-        
-        // Aggregate by product
-        Map<String, Integer> productSales = new HashMap<>();
-        Map<String, Double> productRevenue = new HashMap<>();
-        
-        for (OrderItem item : orderItems) {
-            String productId = item.getProductId();
-            productSales.merge(productId, item.getQuantity(), Integer::sum);
-            productRevenue.merge(productId, item.getPrice() * item.getQuantity(), Double::sum);
+        Criteria paid = Criteria.where("status").is(OrderStatus.PAID);
+        if (since != null) {
+            paid = paid.and("createdAt").gte(since);
         }
         
-        // Sort by quantity sold
-        List<Map<String, Object>> topProducts = productSales.entrySet().stream()
-                .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
-                .limit(limit)
-                .map(entry -> {
-                    Map<String, Object> product = new HashMap<>();
-                    product.put("productId", entry.getKey());
-                    product.put("quantitySold", entry.getValue());
-                    product.put("revenue", productRevenue.get(entry.getKey()));
-                    return product;
-                })
-                .collect(Collectors.toList());
+        // order_items.orderId holds the order's _id as a string, hence the $toString before the join
+        Aggregation aggregation = newAggregation(
+                match(paid),
+                project().and(ConvertOperators.valueOf("_id").convertToString()).as("orderKey"),
+                lookup("order_items", "orderKey", "orderId", "items"),
+                unwind("items"),
+                group("items.productId")
+                        .sum("items.quantity").as("quantitySold")
+                        .sum(ArithmeticOperators.valueOf("items.price").multiplyBy("items.quantity")).as("revenue"),
+                sort(Sort.by(Sort.Direction.DESC, "quantitySold")),
+                limit(limit),
+                // Names are only looked up for the handful of products that made the cut
+                project("quantitySold", "revenue")
+                        .and(ConvertOperators.valueOf("_id").convertToObjectId()).as("productObjectId"),
+                lookup("products", "productObjectId", "_id", "product"),
+                project("quantitySold", "revenue")
+                        .and("_id").as("productId")
+                        .and(ArrayOperators.arrayOf("product.name").elementAt(0)).as("productName"),
+                sort(Sort.by(Sort.Direction.DESC, "quantitySold")))
+                .withOptions(ALLOW_DISK_USE);
         
-        return topProducts;
+        return mongoTemplate.aggregate(aggregation, "orders", TopProduct.class).getMappedResults();
     }
     
-    public Map<String, Object> getOrderStatusCounts() {
-        Map<String, Object> result = new HashMap<>();
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public List<StatusCount> getOrderStatusCounts() {
+        Aggregation aggregation = newAggregation(
+                group("status").count().as("count"),
+                project("count").and("status").previousOperation());
         
-        for (OrderStatus status : OrderStatus.values()) {
-            Query query = new Query(Criteria.where("status").is(status));
-            long count = mongoTemplate.count(query, Order.class);
-            result.put(status.name(), count);
+        Map<String, Long> counts = new HashMap<>();
+        for (StatusCount row : mongoTemplate.aggregate(aggregation, Order.class, StatusCount.class)
+                .getMappedResults()) {
+            if (row.getStatus() != null) {
+                counts.put(row.getStatus(), row.getCount());
+            }
         }
         
-        result.put("total", orderRepository.count());
+        // Every status is listed, in declaration order, even when no order has it yet
+        List<StatusCount> result = new ArrayList<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            result.add(new StatusCount(status.name(), counts.getOrDefault(status.name(), 0L)));
+        }
         return result;
     }
 }
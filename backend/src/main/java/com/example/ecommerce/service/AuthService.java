@@ -7,23 +7,47 @@ import com.example.ecommerce.exception.BadRequestException;
 import com.example.ecommerce.exception.UnauthorizedException;
 import com.example.ecommerce.model.User;
 import com.example.ecommerce.repository.UserRepository;
+import com.example.ecommerce.security.JwtPrincipal;
+import com.example.ecommerce.security.PasswordHashingService;
+import com.example.ecommerce.security.TokenRevocationService;
 import com.example.ecommerce.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.Executor;
+
 @Service
 public class AuthService {
     
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor taskExecutor;
     
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
     public AuthResponse register(RegisterRequest request) {
         // Check if email already exists
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -34,7 +58,7 @@ public class AuthService {
         User user = new User();
         user.setName(request.getName());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
         user.setRole(User.Role.USER);
         
         user = userRepository.save(user);
@@ -51,16 +75,36 @@ public class AuthService {
             .orElseThrow(() -> new UnauthorizedException("Invalid email or password"));
         
         // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new UnauthorizedException("Invalid email or password");
         }
         
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            upgradePasswordHash(user.getId(), user.getPassword(), request.getPassword());
+        }
+        
         // Generate token
         String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole().name());
         
         return new AuthResponse(token, user.getId(), user.getEmail(), user.getName(), user.getRole().name());
     }
     
+    /**
+     * Re-hashes with the current BCrypt cost in the background. The update is
+     * conditional on the old hash so a concurrent password change always wins.
+     * The write runs on the task executor so the BCrypt pool never waits on Mongo.
+     */
+    private void upgradePasswordHash(String userId, String oldHash, String rawPassword) {
+        passwordHashingService.encodeAsync(rawPassword).whenCompleteAsync((newHash, error) -> {
+            if (error != null) {
+                log.debug("Skipped password hash upgrade for user {}: {}", userId, error.getMessage());
+                return;
+            }
+            Query query = new Query(Criteria.where("id").is(userId).and("password").is(oldHash));
+            mongoTemplate.updateFirst(query, Update.update("password", newHash), User.class);
+        }, taskExecutor);
+    }
+    
     public User getUserById(String userId) {
         return userRepository.findById(userId).orElse(null);
     }
@@ -70,6 +114,14 @@ public class AuthService {
             .orElseThrow(() -> new BadRequestException("User not found with email: " + email));
         
         user.setRole(User.Role.ADMIN);
-        return userRepository.save(user);
+        user = userRepository.save(user);
+        
+        // Tokens carry the role, so the old ones must not outlive the change
+        tokenRevocationService.revokeAllForUser(user.getId());
+        return user;
+    }
+    
+    public void logout(JwtPrincipal principal) {
+        tokenRevocationService.revokeToken(principal);
     }
 }
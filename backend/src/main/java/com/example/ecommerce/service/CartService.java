@@ -1,11 +1,13 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.config.MetricsConfig;
 import com.example.ecommerce.dto.AddToCartRequest;
 import com.example.ecommerce.exception.BadRequestException;
 import com.example.ecommerce.exception.ResourceNotFoundException;
 import com.example.ecommerce.model.CartItem;
 import com.example.ecommerce.model.Product;
 import com.example.ecommerce.repository.CartRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +22,7 @@ public class CartService {
     @Autowired
     private ProductService productService;
     
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public CartItem addToCart(String userId, AddToCartRequest request) {
         // Check if product exists
         Product product = productService.getProductById(request.getProductId())
@@ -55,26 +58,33 @@ public class CartService {
         List<Map<String, Object>> result = new ArrayList<>();
         
         for (CartItem item : cartItems) {
-            Map<String, Object> cartItemWithProduct = new HashMap<>();
-            cartItemWithProduct.put("id", item.getId());
-            cartItemWithProduct.put("productId", item.getProductId());
-            cartItemWithProduct.put("quantity", item.getQuantity());
-            
-            productService.getProductById(item.getProductId()).ifPresent(product -> {
-                Map<String, Object> productInfo = new HashMap<>();
-                productInfo.put("id", product.getId());
-                productInfo.put("name", product.getName());
-                productInfo.put("price", product.getPrice());
-                productInfo.put("edition", product.getEdition());
-                cartItemWithProduct.put("product", productInfo);
-            });
-            
-            result.add(cartItemWithProduct);
+            result.add(toResponse(item, productService.getProductById(item.getProductId()).orElse(null)));
         }
         
         return result;
     }
     
+    /**
+     * A cart line as returned by the API; {@code product} is null if it has since been deleted
+     */
+    public static Map<String, Object> toResponse(CartItem item, Product product) {
+        Map<String, Object> cartItemWithProduct = new HashMap<>();
+        cartItemWithProduct.put("id", item.getId());
+        cartItemWithProduct.put("productId", item.getProductId());
+        cartItemWithProduct.put("quantity", item.getQuantity());
+        
+        if (product != null) {
+            Map<String, Object> productInfo = new HashMap<>();
+            productInfo.put("id", product.getId());
+            productInfo.put("name", product.getName());
+            productInfo.put("price", product.getPrice());
+            productInfo.put("edition", product.getEdition());
+            cartItemWithProduct.put("product", productInfo);
+        }
+        
+        return cartItemWithProduct;
+    }
+    
     public List<CartItem> getCartItemsByUserId(String userId) {
         return cartRepository.findByUserId(userId);
     }
@@ -0,0 +1,454 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.EmailOutboxEntry;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.util.EmailUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox for customer emails.
+ *
+ * Callers write an {@code email_outbox} entry before the state change that
+ * triggers the email (see PaymentService), so a crash cannot lose it. Entries
+ * for orders that are not PAID yet are rechecked, backing off as they age,
+ * without using up attempts, and dropped once they are older than
+ * {@code mail.outbox.unpaid-max-age-hours}. A scheduled worker claims due entries in batches with a lease, renders
+ * them from the current order and user, and sends each batch with one
+ * {@link JavaMailSender#send(SimpleMailMessage...)} call, which reuses a single
+ * SMTP connection. Failures are retried with capped exponential backoff and
+ * jitter; entries that keep failing end up FAILED.
+ *
+ * Sending is capped twice: overall, to stay under the relay's limit, and per
+ * recipient domain, since mailbox providers throttle bursts. Capped entries are
+ * deferred without using up an attempt.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired(required = false)
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private EmailUtil emailUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${mail.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${mail.outbox.claim-ttl-ms:120000}")
+    private long claimTtlMs;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff-base-ms:30000}")
+    private long backoffBaseMs;
+
+    @Value("${mail.outbox.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    @Value("${mail.outbox.rate-per-second:10}")
+    private int ratePerSecond;
+
+    @Value("${mail.outbox.domain-rate-per-minute:300}")
+    private int domainRatePerMinute;
+
+    @Value("${mail.outbox.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${mail.outbox.unpaid-max-age-hours:168}")
+    private long unpaidMaxAgeHours;
+
+    private Bucket relayBudget;
+    private Cache<String, Bucket> domainBudgets;
+    private Timer deliveryLatency;
+    private Counter sent;
+    private Counter retried;
+    private Counter failed;
+    private Counter deferred;
+    private final AtomicLong pendingDepth = new AtomicLong();
+    private final AtomicLong sendingDepth = new AtomicLong();
+
+    private enum Outcome { SENT, RETRY, DEFER, FAILED, CANCELLED }
+
+    private static final Duration CAPPED_DEFER = Duration.ofSeconds(1);
+    private static final Duration MAX_UNPAID_DEFER = Duration.ofMinutes(5);
+
+    /**
+     * @param deferFor how long a DEFER waits before the entry is due again
+     */
+    private record Result(EmailOutboxEntry entry, Outcome outcome, String error, Duration deferFor) {
+
+        Result(EmailOutboxEntry entry, Outcome outcome, String error) {
+            this(entry, outcome, error, CAPPED_DEFER);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        relayBudget = Bucket.builder()
+                .addLimit(Bandwidth.builder().capacity(ratePerSecond)
+                        .refillGreedy(ratePerSecond, Duration.ofSeconds(1)).build())
+                .build();
+        domainBudgets = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+
+        deliveryLatency = Timer.builder("mail.outbox.delivery.latency")
+                .description("Time from enqueue to accepted by the SMTP relay")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        sent = meterRegistry.counter("mail.outbox.sent");
+        retried = meterRegistry.counter("mail.outbox.retried");
+        failed = meterRegistry.counter("mail.outbox.failed");
+        deferred = meterRegistry.counter("mail.outbox.deferred");
+        Gauge.builder("mail.outbox.queue.depth", pendingDepth, AtomicLong::get)
+                .tag("status", "pending")
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.queue.depth", sendingDepth, AtomicLong::get)
+                .tag("status", "sending")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts unsent entries for the queue-depth gauges. Done on a schedule
+     * rather than on scrape, so a slow count never stalls the metrics endpoint.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.depth-refresh-ms:15000}",
+               initialDelayString = "${mail.outbox.initial-delay-ms:10000}")
+    public void refreshQueueDepth() {
+        try {
+            pendingDepth.set(mongoTemplate.count(new Query(Criteria.where("status")
+                    .is(EmailOutboxEntry.Status.PENDING)), EmailOutboxEntry.class));
+            sendingDepth.set(mongoTemplate.count(new Query(Criteria.where("status")
+                    .is(EmailOutboxEntry.Status.SENDING)), EmailOutboxEntry.class));
+        } catch (RuntimeException e) {
+            log.warn("Could not count outbox entries: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Queues the confirmation for an order. Idempotent: a second call for the
+     * same order leaves the existing entry alone.
+     */
+    public void enqueueOrderConfirmation(String orderId) {
+        EmailOutboxEntry.Type type = EmailOutboxEntry.Type.ORDER_CONFIRMATION;
+        Instant now = Instant.now();
+        Update update = new Update()
+                .setOnInsert("type", type)
+                .setOnInsert("orderId", orderId)
+                .setOnInsert("status", EmailOutboxEntry.Status.PENDING)
+                .setOnInsert("attempts", 0)
+                .setOnInsert("nextAttemptAt", now)
+                .setOnInsert("createdAt", now);
+        mongoTemplate.upsert(new Query(Criteria.where("id").is(EmailOutboxEntry.idFor(type, orderId))),
+                update, EmailOutboxEntry.class);
+    }
+
+    /**
+     * Withdraws a confirmation that has not been sent, e.g. because the order
+     * could not be moved to PAID after all
+     */
+    public void cancelOrderConfirmation(String orderId) {
+        Query query = new Query(Criteria.where("id")
+                .is(EmailOutboxEntry.idFor(EmailOutboxEntry.Type.ORDER_CONFIRMATION, orderId))
+                .and("status").is(EmailOutboxEntry.Status.PENDING));
+        mongoTemplate.updateFirst(query, finished(EmailOutboxEntry.Status.CANCELLED, Instant.now()),
+                EmailOutboxEntry.class);
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:1000}",
+               initialDelayString = "${mail.outbox.initial-delay-ms:10000}")
+    public void drain() {
+        if (!enabled || mailSender == null) {
+            return;
+        }
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<EmailOutboxEntry> batch;
+            try {
+                batch = claim();
+            } catch (RuntimeException e) {
+                log.warn("Could not claim outbox entries: {}", e.getMessage());
+                return;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            boolean relayCapped = deliver(batch);
+            if (batch.size() < batchSize || relayCapped) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Leases up to one batch of due entries to this worker. Entries whose lease
+     * ran out (a worker died mid-batch) are due again.
+     */
+    private List<EmailOutboxEntry> claim() {
+        Instant now = Instant.now();
+        Query due = new Query(claimable(now))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"))
+                .limit(batchSize);
+        due.fields().include("_id");
+        List<String> ids = mongoTemplate.find(due, EmailOutboxEntry.class).stream()
+                .map(EmailOutboxEntry::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        String token = UUID.randomUUID().toString();
+        Query claimQuery = new Query(new Criteria().andOperator(Criteria.where("id").in(ids), claimable(now)));
+        Update claimUpdate = new Update()
+                .set("status", EmailOutboxEntry.Status.SENDING)
+                .set("claimToken", token)
+                .set("claimedUntil", now.plusMillis(claimTtlMs));
+        mongoTemplate.updateMulti(claimQuery, claimUpdate, EmailOutboxEntry.class);
+        return mongoTemplate.find(new Query(Criteria.where("claimToken").is(token)), EmailOutboxEntry.class);
+    }
+
+    private static Criteria claimable(Instant now) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is(EmailOutboxEntry.Status.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(EmailOutboxEntry.Status.SENDING).and("claimedUntil").lt(now));
+    }
+
+    /**
+     * Renders and sends one claimed batch, then records every outcome in a single
+     * bulk write. Returns true if the relay budget ran out.
+     */
+    private boolean deliver(List<EmailOutboxEntry> batch) {
+        Set<String> orderIds = batch.stream().map(EmailOutboxEntry::getOrderId).collect(Collectors.toSet());
+        Map<String, Order> orders = mongoTemplate.find(new Query(Criteria.where("id").in(orderIds)), Order.class)
+                .stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        Set<String> userIds = orders.values().stream().map(Order::getUserId).collect(Collectors.toSet());
+        Map<String, User> users = mongoTemplate.find(new Query(Criteria.where("id").in(userIds)), User.class)
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        Instant now = Instant.now();
+        List<Result> results = new ArrayList<>(batch.size());
+        Map<SimpleMailMessage, EmailOutboxEntry> outgoing = new IdentityHashMap<>();
+        boolean relayCapped = false;
+
+        for (EmailOutboxEntry entry : batch) {
+            Order order = orders.get(entry.getOrderId());
+            if (order == null || order.getStatus() == OrderStatus.CANCELLED) {
+                results.add(new Result(entry, Outcome.CANCELLED, null));
+                continue;
+            }
+            if (order.getStatus() == OrderStatus.CREATED) {
+                // Written ahead of the PAID transition, which has not landed yet
+                results.add(awaitPayment(entry, now));
+                continue;
+            }
+            User user = users.get(order.getUserId());
+            if (user == null || user.getEmail() == null) {
+                results.add(new Result(entry, Outcome.FAILED, "No recipient"));
+                continue;
+            }
+            if (relayCapped || !relayBudget.tryConsume(1)) {
+                relayCapped = true;
+                results.add(new Result(entry, Outcome.DEFER, null));
+                continue;
+            }
+            if (!domainBudget(user.getEmail()).tryConsume(1)) {
+                results.add(new Result(entry, Outcome.DEFER, null));
+                continue;
+            }
+            outgoing.put(emailUtil.orderConfirmation(user.getEmail(), order.getId(), order.getTotalAmount()), entry);
+        }
+
+        if (!outgoing.isEmpty()) {
+            Map<Object, Exception> failures = send(outgoing.keySet().toArray(new SimpleMailMessage[0]));
+            for (Map.Entry<SimpleMailMessage, EmailOutboxEntry> message : outgoing.entrySet()) {
+                Exception error = failures.get(message.getKey());
+                results.add(error == null
+                        ? new Result(message.getValue(), Outcome.SENT, null)
+                        : new Result(message.getValue(), Outcome.RETRY, error.getMessage()));
+            }
+        }
+
+        record(results);
+        return relayCapped;
+    }
+
+    /**
+     * Defers an entry whose order is still CREATED: by its age, so the usual
+     * millisecond race is rechecked within a second and a stuck one only every
+     * few minutes. Cancelled once older than any payment that could still arrive.
+     */
+    private Result awaitPayment(EmailOutboxEntry entry, Instant now) {
+        Duration age = Duration.between(entry.getCreatedAt(), now);
+        if (age.compareTo(Duration.ofHours(unpaidMaxAgeHours)) > 0) {
+            log.info("Dropping confirmation {}: order still unpaid after {}", entry.getId(), age);
+            return new Result(entry, Outcome.CANCELLED, null);
+        }
+        Duration wait = age.compareTo(CAPPED_DEFER) < 0 ? CAPPED_DEFER
+                : age.compareTo(MAX_UNPAID_DEFER) > 0 ? MAX_UNPAID_DEFER : age;
+        return new Result(entry, Outcome.DEFER, null, wait);
+    }
+
+    /**
+     * Sends over one SMTP connection and returns the messages that failed
+     */
+    private Map<Object, Exception> send(SimpleMailMessage[] messages) {
+        try {
+            mailSender.send(messages);
+            return Map.of();
+        } catch (MailSendException e) {
+            if (!e.getFailedMessages().isEmpty()) {
+                return e.getFailedMessages();
+            }
+            return allFailed(messages, e);
+        } catch (MailException e) {
+            // Connection or authentication failure: nothing in the batch went out
+            log.warn("SMTP delivery failed for a batch of {}: {}", messages.length, e.getMessage());
+            return allFailed(messages, e);
+        }
+    }
+
+    private static Map<Object, Exception> allFailed(SimpleMailMessage[] messages, Exception error) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        for (SimpleMailMessage message : messages) {
+            failures.put(message, error);
+        }
+        return failures;
+    }
+
+    private void record(List<Result> results) {
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailOutboxEntry.class);
+        for (Result result : results) {
+            EmailOutboxEntry entry = result.entry();
+            // Only the holder of the lease may record the outcome
+            Query owned = new Query(Criteria.where("id").is(entry.getId()).and("claimToken").is(entry.getClaimToken()));
+            Update update;
+            switch (result.outcome()) {
+                case SENT -> {
+                    update = finished(EmailOutboxEntry.Status.SENT, now).set("sentAt", now)
+                            .set("attempts", entry.getAttempts() + 1);
+                    sent.increment();
+                    deliveryLatency.record(Duration.between(entry.getCreatedAt(), now).toMillis(), TimeUnit.MILLISECONDS);
+                }
+                case DEFER -> {
+                    update = retryAt(now.plus(result.deferFor()));
+                    deferred.increment();
+                }
+                case RETRY -> {
+                    int attempts = entry.getAttempts() + 1;
+                    if (attempts >= maxAttempts) {
+                        update = finished(EmailOutboxEntry.Status.FAILED, now).set("attempts", attempts)
+                                .set("lastError", result.error());
+                        failed.increment();
+                        log.warn("Giving up on email {} after {} attempts: {}", entry.getId(), attempts, result.error());
+                    } else {
+                        update = retryAt(now.plusMillis(backoffMillis(attempts))).set("attempts", attempts)
+                                .set("lastError", result.error());
+                        retried.increment();
+                    }
+                }
+                case FAILED -> {
+                    update = finished(EmailOutboxEntry.Status.FAILED, now).set("lastError", result.error());
+                    failed.increment();
+                }
+                default -> update = finished(EmailOutboxEntry.Status.CANCELLED, now);
+            }
+            bulk.updateOne(owned, update);
+        }
+        if (!results.isEmpty()) {
+            bulk.execute();
+        }
+    }
+
+    private Update finished(EmailOutboxEntry.Status status, Instant now) {
+        return new Update()
+                .set("status", status)
+                .unset("claimToken")
+                .unset("claimedUntil")
+                .set("expireAt", now.plus(retentionDays, ChronoUnit.DAYS));
+    }
+
+    private static Update retryAt(Instant nextAttemptAt) {
+        return new Update()
+                .set("status", EmailOutboxEntry.Status.PENDING)
+                .set("nextAttemptAt", nextAttemptAt)
+                .unset("claimToken")
+                .unset("claimedUntil");
+    }
+
+    /**
+     * base * 2^(attempts - 1), capped, with up to 20% jitter so retries from a
+     * failed burst do not all land on the relay at once
+     */
+    private long backoffMillis(int attempts) {
+        long delay = backoffBaseMs << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, backoffMaxMs);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private Bucket domainBudget(String email) {
+        String domain = email.substring(email.indexOf('@') + 1).toLowerCase();
+        return domainBudgets.get(domain, d -> Bucket.builder()
+                .addLimit(Bandwidth.builder().capacity(domainRatePerMinute)
+                        .refillGreedy(domainRatePerMinute, Duration.ofMinutes(1)).build())
+                .build());
+    }
+}
@@ -1,81 +1,296 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.event.ProductImageUploadedEvent;
 import com.example.ecommerce.exception.BadRequestException;
 import com.example.ecommerce.exception.ResourceNotFoundException;
+import com.example.ecommerce.model.ImageDerivative;
 import com.example.ecommerce.model.Product;
 import com.example.ecommerce.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Stores product images on disk and resolves them for serving.
+ *
+ * Uploads are stored through {@link ImageBlobService}; the product records the
+ * blob's path, sniffed content type and SHA-256, which versions the image URL. Resized derivatives are generated in the background by
+ * {@link ImageDerivativeService} after each upload.
+ *
+ * Lookups go through an in-memory productId -> image index that is filled at
+ * startup and refreshed in the background, so serving an image does not touch
+ * Mongo. The hottest files are additionally held in memory by {@link HotImageCache}.
+ */
 @Service
 public class FileService {
     
+    private static final Logger log = LoggerFactory.getLogger(FileService.class);
+    
     @Value("${file.upload.dir:uploads}")
     private String uploadDir;
     
+    @Value("${file.image.index-max-size:100000}")
+    private long indexMaxSize;
+    
+    @Value("${file.image.index-refresh-ms:60000}")
+    private long indexRefreshMs;
+    
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private ImageBlobService imageBlobService;
+    
+    @Autowired
+    private HotImageCache hotImageCache;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private LoadingCache<String, Optional<ImageSet>> imageIndex;
+    
+    /**
+     * A resolved image file: the original ({@code width} 0) or one of its derivatives.
+     * {@code hash} is the original's and is null for images uploaded before hashes were recorded.
+     */
+    public record ProductImage(Path path, String contentType, String hash, long size, long lastModified, int width) {
+        
+        public String etag() {
+            String suffix = width > 0 ? "-w" + width : "";
+            return hash != null
+                    ? "\"" + hash + suffix + "\""
+                    : "W/\"" + size + "-" + lastModified + suffix + "\"";
+        }
+    }
+    
+    /**
+     * An original and its derivatives, narrowest first
+     */
+    record ImageSet(ProductImage original, List<ProductImage> derivatives) {
+        
+        /** The narrowest derivative at least {@code width} wide, else the original */
+        ProductImage pick(Integer width) {
+            if (width != null && width > 0) {
+                for (ProductImage derivative : derivatives) {
+                    if (derivative.width() >= width) {
+                        return derivative;
+                    }
+                }
+            }
+            return original;
+        }
+    }
+    
+    @PostConstruct
+    void init() {
+        imageIndex = Caffeine.newBuilder()
+                .maximumSize(indexMaxSize)
+                .refreshAfterWrite(Duration.ofMillis(indexRefreshMs))
+                .recordStats()
+                .build(this::loadImage);
+        CaffeineCacheMetrics.monitor(meterRegistry, imageIndex, "images.index");
+        
+        Query query = new Query(Criteria.where("imagePath").ne(null));
+        query.fields().include("imagePath").include("imageContentType").include("imageHash")
+                .include("imageDerivatives");
+        int loaded = 0;
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                imageIndex.put(product.getId(), resolve(product));
+                loaded++;
+            }
+        }
+        log.info("Image index loaded with {} products", loaded);
+    }
+    
+    @CacheEvict(value = "products", allEntries = true)
     public String uploadProductImage(String productId, MultipartFile file) throws IOException {
         // Validate product exists
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", productId));
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product", productId);
+        }
         
         // Validate file
         if (file.isEmpty()) {
             throw new BadRequestException("File is empty");
         }
         
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new BadRequestException("Only image files are allowed");
+        // Stream to a content-addressed file; this takes a reference on the blob
+        ImageBlobService.StoredBlob blob;
+        try (InputStream in = file.getInputStream()) {
+            blob = imageBlobService.store(in);
         }
         
-        // Create upload directory if not exists
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        // Point the product at the new image and get the old one back in the same step
+        Update update = new Update()
+                .set("imagePath", blob.path())
+                .set("imageContentType", blob.contentType())
+                .set("imageHash", blob.hash())
+                .unset("imageDerivatives");
+        Product previous;
+        try {
+            previous = mongoTemplate.findAndModify(new Query(Criteria.where("id").is(productId)), update, Product.class);
+        } catch (RuntimeException e) {
+            imageBlobService.release(blob.hash(), blob.path());
+            throw e;
         }
+        if (previous == null) {
+            imageBlobService.release(blob.hash(), blob.path());
+            throw new ResourceNotFoundException("Product", productId);
+        }
+        imageBlobService.release(previous.getImageHash(), previous.getImagePath());
+        invalidateCachedContent(productId);
         
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null && originalFilename.contains(".") 
-                ? originalFilename.substring(originalFilename.lastIndexOf(".")) 
-                : ".jpg";
-        String filename = productId + "_" + UUID.randomUUID().toString().substring(0, 8) + extension;
-        
-        // Save file
-        Path filePath = uploadPath.resolve(filename);
-        Files.write(filePath, file.getBytes());
-        
-        // Update product with image path
-        product.setImagePath(filename);
-        productRepository.save(product);
+        Product product = new Product();
+        product.setId(productId);
+        product.setImagePath(blob.path());
+        product.setImageContentType(blob.contentType());
+        product.setImageHash(blob.hash());
+        imageIndex.put(productId, resolve(product));
+        eventPublisher.publishEvent(new ProductImageUploadedEvent(productId, blob.path(), Instant.now()));
         
-        return filename;
+        return blob.path();
     }
     
-    public byte[] getProductImage(String productId) throws IOException {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", productId));
-        
+    /**
+     * Resolves the image to serve for a requested display width. Until derivatives
+     * exist, or when none is wide enough, this is the original.
+     */
+    public ProductImage getProductImage(String productId, Integer width) {
+        // Load a miss outside the cache's compute: a Mongo read inside it would
+        // pin a virtual thread to its carrier
+        Optional<ImageSet> images = imageIndex.getIfPresent(productId);
+        if (images == null) {
+            images = loadImage(productId);
+            imageIndex.put(productId, images);
+        }
+        return images
+                .orElseThrow(() -> new ResourceNotFoundException("Image not found for product: " + productId))
+                .pick(width);
+    }
+    
+    /**
+     * The image's bytes from the hot image cache, or null when it should be read from disk
+     */
+    public ByteBuffer getCachedContent(ProductImage image) {
+        return hotImageCache.get(image.path(), image.size());
+    }
+    
+    /**
+     * Re-reads a product's image metadata, e.g. once its derivatives are ready
+     */
+    public void refreshProductImage(String productId) {
+        imageIndex.put(productId, loadImage(productId));
+    }
+    
+    /**
+     * Drops a product from the image index, e.g. when its file turned out to be missing
+     */
+    public void evictProductImage(String productId) {
+        invalidateCachedContent(productId);
+        imageIndex.invalidate(productId);
+    }
+    
+    /**
+     * Releases a deleted product's image so it can be garbage-collected
+     */
+    public void releaseProductImage(Product product) {
+        invalidateCachedContent(product.getId());
+        imageIndex.invalidate(product.getId());
+        imageBlobService.release(product.getImageHash(), product.getImagePath());
+    }
+    
+    private void invalidateCachedContent(String productId) {
+        Optional<ImageSet> images = imageIndex.getIfPresent(productId);
+        if (images != null && images.isPresent()) {
+            hotImageCache.invalidate(images.get().original().path());
+            for (ProductImage derivative : images.get().derivatives()) {
+                hotImageCache.invalidate(derivative.path());
+            }
+        }
+    }
+    
+    private Optional<ImageSet> loadImage(String productId) {
+        Query query = new Query(Criteria.where("id").is(productId));
+        query.fields().include("imagePath").include("imageContentType").include("imageHash")
+                .include("imageDerivatives");
+        Product product = mongoTemplate.findOne(query, Product.class);
+        return product == null ? Optional.empty() : resolve(product);
+    }
+    
+    private Optional<ImageSet> resolve(Product product) {
         if (product.getImagePath() == null) {
-            throw new ResourceNotFoundException("Image not found for product: " + productId);
+            return Optional.empty();
         }
-        
-        Path filePath = Paths.get(uploadDir).resolve(product.getImagePath());
-        if (!Files.exists(filePath)) {
-            throw new ResourceNotFoundException("Image file not found");
+        Path path = Paths.get(uploadDir).resolve(product.getImagePath());
+        try {
+            long size = Files.size(path);
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            String contentType = product.getImageContentType();
+            if (contentType == null) {
+                // Uploaded before the type was recorded; sniff it once here
+                contentType = ImageBlobService.detectImageType(readHeader(path));
+                if (contentType == null) {
+                    contentType = "application/octet-stream";
+                }
+            }
+            ProductImage original = new ProductImage(path, contentType, product.getImageHash(), size, lastModified, 0);
+            
+            List<ProductImage> derivatives = new ArrayList<>();
+            if (product.getImageDerivatives() != null) {
+                for (ImageDerivative derivative : product.getImageDerivatives()) {
+                    Path derivativePath = Paths.get(uploadDir).resolve(derivative.getPath());
+                    if (Files.exists(derivativePath)) {
+                        derivatives.add(new ProductImage(derivativePath, derivative.getContentType(),
+                                product.getImageHash(), derivative.getSize(), lastModified, derivative.getWidth()));
+                    }
+                }
+                derivatives.sort(Comparator.comparingInt(ProductImage::width));
+            }
+            return Optional.of(new ImageSet(original, List.copyOf(derivatives)));
+        } catch (IOException e) {
+            log.warn("Image file {} for product {} is unreadable: {}", path, product.getId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private static byte[] readHeader(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return in.readNBytes(12);
         }
-        
-        return Files.readAllBytes(filePath);
     }
 }
@@ -0,0 +1,131 @@
+package com.example.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Keeps the hottest image files in direct ByteBuffers, bounded by a byte budget.
+ *
+ * Caffeine's W-TinyLFU policy decides which entries stay: a new entry only
+ * displaces a resident one if it has been requested more often recently. In
+ * front of that sits a doorkeeper, so a file is copied off-heap on its second
+ * request within the doorkeeper window rather than on the first; one-off views
+ * of cold images never allocate direct memory.
+ *
+ * Direct buffers are released by the garbage collector after eviction, so
+ * {@code max-bytes} should stay well below {@code -XX:MaxDirectMemorySize}.
+ */
+@Component
+public class HotImageCache {
+
+    private static final Logger log = LoggerFactory.getLogger(HotImageCache.class);
+
+    @Value("${file.image.cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${file.image.cache.max-entry-bytes:2097152}")
+    private long maxEntryBytes;
+
+    @Value("${file.image.cache.doorkeeper-ms:600000}")
+    private long doorkeeperMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, ByteBuffer> buffers;
+    private Cache<String, Boolean> seen;
+
+    @PostConstruct
+    void init() {
+        if (maxBytes <= 0) {
+            log.info("Hot image cache disabled");
+            return;
+        }
+        buffers = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, ByteBuffer buffer) -> buffer.capacity())
+                .recordStats()
+                .build();
+        seen = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(doorkeeperMs))
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, buffers, "images.hot");
+        Gauge.builder("image.cache.resident.bytes", buffers,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("image.cache.hit.ratio", buffers, cache -> cache.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns a read-only view of the file's content if it is cached, loading it
+     * if it has been asked for before. Null means the caller should read the file.
+     */
+    public ByteBuffer get(Path path, long size) {
+        if (buffers == null || size <= 0 || size > maxEntryBytes) {
+            return null;
+        }
+        String key = path.toString();
+        ByteBuffer cached = buffers.getIfPresent(key);
+        if (cached != null) {
+            return cached.asReadOnlyBuffer();
+        }
+        if (seen.asMap().putIfAbsent(key, Boolean.TRUE) == null) {
+            return null;
+        }
+        ByteBuffer loaded;
+        try {
+            // Read outside the cache's compute so a virtual thread is not pinned
+            // for the file read; a concurrent load of the same file just loses
+            loaded = load(path);
+        } catch (UncheckedIOException e) {
+            log.debug("Could not cache image {}: {}", path, e.getMessage());
+            return null;
+        }
+        ByteBuffer existing = buffers.asMap().putIfAbsent(key, loaded);
+        return (existing != null ? existing : loaded).asReadOnlyBuffer();
+    }
+
+    public void invalidate(Path path) {
+        if (buffers != null) {
+            buffers.invalidate(path.toString());
+            seen.invalidate(path.toString());
+        }
+    }
+
+    private static ByteBuffer load(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.exception.BadRequestException;
+import com.example.ecommerce.model.ImageBlob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Content-addressed storage for product images.
+ *
+ * An upload is streamed to a temp file while its SHA-256 is computed, so heap
+ * use does not depend on the file size. The file is then moved atomically to
+ * {@code blobs/<first two hex chars>/<sha256>.<ext>}; identical content is kept
+ * once. Each blob has a reference count in {@code image_blobs}, one per product
+ * using it. Blobs that drop to zero are deleted, with their derivatives, by a
+ * scheduled sweep once they have been unreferenced for {@code gc-grace-ms}.
+ *
+ * File operations on one hash are serialised by a striped lock, so a sweep
+ * cannot delete a file that a concurrent upload has just claimed. The lock is
+ * per JVM, which matches the upload directory being local to the node.
+ */
+@Service
+public class ImageBlobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageBlobService.class);
+
+    static final String BLOB_DIR = "blobs";
+    static final String DERIVATIVE_DIR = "derivatives";
+    private static final String TEMP_DIR = "tmp";
+    private static final int HEADER_BYTES = 12;
+    private static final int GC_BATCH_SIZE = 1000;
+
+    @Value("${file.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${file.blob.gc-grace-ms:3600000}")
+    private long gcGraceMs;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ReentrantLock[] locks = new ReentrantLock[64];
+    private Counter deduplicated;
+    private Counter collected;
+
+    public record StoredBlob(String hash, String path, String contentType, long size) {
+    }
+
+    @PostConstruct
+    void init() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        deduplicated = meterRegistry.counter("image.blobs.deduplicated");
+        collected = meterRegistry.counter("image.blobs.collected");
+    }
+
+    /**
+     * Stores an image and takes one reference on it. The caller must
+     * {@link #release} that reference if it ends up not using the blob.
+     */
+    public StoredBlob store(InputStream input) throws IOException {
+        Path root = Paths.get(uploadDir);
+        Path tempDir = root.resolve(TEMP_DIR);
+        Files.createDirectories(tempDir);
+        Path temp = Files.createTempFile(tempDir, "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            String contentType;
+            long size;
+            try (InputStream in = new DigestInputStream(input, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                // Trust the bytes, not the client's Content-Type
+                byte[] header = in.readNBytes(HEADER_BYTES);
+                contentType = detectImageType(header);
+                if (contentType == null) {
+                    throw new BadRequestException("Only JPEG, PNG, GIF and WebP images are allowed");
+                }
+                out.write(header);
+                size = header.length + in.transferTo(out);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String path = BLOB_DIR + "/" + hash.substring(0, 2) + "/" + hash + extensionFor(contentType);
+            Path target = root.resolve(path);
+
+            ReentrantLock lock = lockFor(hash);
+            lock.lock();
+            try {
+                if (Files.exists(target)) {
+                    deduplicated.increment();
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+                Update update = new Update()
+                        .inc("refCount", 1)
+                        .unset("unreferencedSince")
+                        .setOnInsert("path", path)
+                        .setOnInsert("contentType", contentType)
+                        .setOnInsert("size", size)
+                        .setOnInsert("createdAt", Instant.now());
+                mongoTemplate.upsert(new Query(Criteria.where("id").is(hash)), update, ImageBlob.class);
+            } finally {
+                lock.unlock();
+            }
+            return new StoredBlob(hash, path, contentType, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Drops one reference to an image. Files that predate content addressing
+     * belonged to exactly one upload and are deleted straight away.
+     */
+    public void release(String hash, String path) {
+        if (path == null) {
+            return;
+        }
+        if (hash == null || !path.startsWith(BLOB_DIR + "/")) {
+            deleteFiles(path);
+            return;
+        }
+        ImageBlob blob = mongoTemplate.findAndModify(new Query(Criteria.where("id").is(hash)),
+                new Update().inc("refCount", -1), FindAndModifyOptions.options().returnNew(true), ImageBlob.class);
+        if (blob != null && blob.getRefCount() <= 0) {
+            Query unreferenced = new Query(Criteria.where("id").is(hash)
+                    .and("refCount").lte(0)
+                    .and("unreferencedSince").exists(false));
+            mongoTemplate.updateFirst(unreferenced, Update.update("unreferencedSince", Instant.now()), ImageBlob.class);
+        }
+    }
+
+    /**
+     * Deletes blobs that have had no references for the grace period, plus
+     * upload temp files left behind by a crash
+     */
+    @Scheduled(fixedDelayString = "${file.blob.gc-interval-ms:3600000}",
+               initialDelayString = "${file.blob.gc-initial-delay-ms:300000}")
+    public void collectGarbage() {
+        Instant cutoff = Instant.now().minusMillis(gcGraceMs);
+        Query expired = new Query(Criteria.where("refCount").lte(0).and("unreferencedSince").lt(cutoff))
+                .limit(GC_BATCH_SIZE);
+        expired.fields().include("_id");
+        List<ImageBlob> candidates = mongoTemplate.find(expired, ImageBlob.class);
+
+        int removed = 0;
+        for (ImageBlob candidate : candidates) {
+            ReentrantLock lock = lockFor(candidate.getId());
+            lock.lock();
+            try {
+                // Re-check under the lock: an upload may have claimed it since the query
+                ImageBlob blob = mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(candidate.getId())
+                        .and("refCount").lte(0)), ImageBlob.class);
+                if (blob != null) {
+                    deleteFiles(blob.getPath());
+                    removed++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        collected.increment(removed);
+        if (removed > 0) {
+            log.info("Image GC removed {} unreferenced blobs", removed);
+        }
+        deleteStaleTempFiles(cutoff);
+    }
+
+    private void deleteFiles(String path) {
+        Path root = Paths.get(uploadDir);
+        String filename = Paths.get(path).getFileName().toString();
+        String baseName = filename.contains(".") ? filename.substring(0, filename.lastIndexOf('.')) : filename;
+        try {
+            Files.deleteIfExists(root.resolve(path));
+            Path derivatives = root.resolve(DERIVATIVE_DIR);
+            if (Files.isDirectory(derivatives)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(derivatives, baseName + "_w*")) {
+                    for (Path derivative : stream) {
+                        Files.deleteIfExists(derivative);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete image {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void deleteStaleTempFiles(Instant cutoff) {
+        Path tempDir = Paths.get(uploadDir).resolve(TEMP_DIR);
+        if (!Files.isDirectory(tempDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(tempDir, "*.part")) {
+            for (Path temp : stream) {
+                if (Files.getLastModifiedTime(temp).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean upload temp files: {}", e.getMessage());
+        }
+    }
+
+    private ReentrantLock lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), locks.length)];
+    }
+
+    /**
+     * Identifies the image formats we serve from their magic bytes; null for anything else
+     */
+    static String detectImageType(byte[] header) {
+        if (startsWith(header, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(header, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(header, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int... expected) {
+        if (data.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((data[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String extensionFor(String contentType) {
+        return switch (contentType) {
+            case "image/png" -> ".png";
+            case "image/gif" -> ".gif";
+            case "image/webp" -> ".webp";
+            default -> ".jpg";
+        };
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.event.ProductImageUploadedEvent;
+import com.example.ecommerce.exception.ResourceNotFoundException;
+import com.example.ecommerce.model.ImageDerivative;
+import com.example.ecommerce.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates resized, recompressed copies of product images so listings can
+ * fetch a thumbnail instead of the full upload.
+ *
+ * Each upload enqueues one job on a small bounded pool; when the queue is full
+ * the job is dropped and the original keeps being served until derivatives are
+ * regenerated on request. A job writes one file per configured width narrower
+ * than the original (JPEG, or PNG when the image has transparency), named after
+ * the source blob, then records them on the product only if it still points at
+ * the same upload.
+ */
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    @Value("${file.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${file.image.derivative-widths:160,320,640,1280}")
+    private int[] widths;
+
+    @Value("${file.image.derivative-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${file.image.derivative-threads:2}")
+    private int threads;
+
+    @Value("${file.image.derivative-queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${file.image.max-source-pixels:40000000}")
+    private long maxSourcePixels;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor executor;
+    private Timer generateTimer;
+    private Counter rejections;
+    private Counter failures;
+
+    @PostConstruct
+    void init() {
+        Arrays.sort(widths);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivatives-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Resizing is background work; keep it from competing with request threads
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        generateTimer = Timer.builder("image.derivatives.generate").register(meterRegistry);
+        rejections = meterRegistry.counter("image.derivatives.rejected");
+        failures = meterRegistry.counter("image.derivatives.failed");
+        Gauge.builder("image.derivatives.queue.size", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EventListener
+    public void onImageUploaded(ProductImageUploadedEvent event) {
+        enqueue(event.productId(), event.imagePath());
+    }
+
+    /**
+     * Queues derivative generation for a product's current image.
+     * Returns false if the job is already queued or the queue is full.
+     */
+    public boolean enqueue(String productId, String imagePath) {
+        String key = productId + "/" + imagePath;
+        if (!inFlight.add(key)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateTimer.record(() -> generate(productId, imagePath));
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            rejections.increment();
+            log.warn("Derivative queue full; product {} keeps serving its original image", productId);
+            return false;
+        }
+    }
+
+    /**
+     * Regenerates derivatives for a product's current image, e.g. after a dropped
+     * job or for images uploaded before derivatives existed
+     */
+    public boolean regenerate(String productId) {
+        Query query = new Query(Criteria.where("id").is(productId));
+        query.fields().include("imagePath");
+        Product product = mongoTemplate.findOne(query, Product.class);
+        if (product == null || product.getImagePath() == null) {
+            throw new ResourceNotFoundException("Image not found for product: " + productId);
+        }
+        return enqueue(productId, product.getImagePath());
+    }
+
+    private void generate(String productId, String imagePath) {
+        Path source = Paths.get(uploadDir).resolve(imagePath);
+        Path targetDir = Paths.get(uploadDir).resolve(ImageBlobService.DERIVATIVE_DIR);
+        try {
+            BufferedImage original = read(source);
+            if (original == null) {
+                // No ImageIO reader for the format (WebP on a stock JDK); the original is served as is
+                log.info("No derivatives for product {}: unsupported format or image too large", productId);
+                return;
+            }
+            Files.createDirectories(targetDir);
+
+            boolean alpha = original.getColorModel().hasAlpha();
+            String extension = alpha ? ".png" : ".jpg";
+            // Blob file names are content hashes, so derivatives are shared by every product using the image
+            String sourceName = source.getFileName().toString();
+            String baseName = sourceName.contains(".") ? sourceName.substring(0, sourceName.lastIndexOf('.')) : sourceName;
+
+            List<ImageDerivative> derivatives = new ArrayList<>();
+            for (int width : widths) {
+                if (width >= original.getWidth()) {
+                    break;
+                }
+                int height = Math.max(1, Math.round((float) original.getHeight() * width / original.getWidth()));
+                BufferedImage resized = resize(original, width, height, alpha);
+
+                String filename = baseName + "_w" + width + extension;
+                Path target = targetDir.resolve(filename);
+                Path temp = Files.createTempFile(targetDir, filename, ".tmp");
+                try {
+                    if (alpha) {
+                        ImageIO.write(resized, "png", temp.toFile());
+                    } else {
+                        writeJpeg(resized, temp);
+                    }
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+                derivatives.add(new ImageDerivative(width, height, ImageBlobService.DERIVATIVE_DIR + "/" + filename,
+                        alpha ? "image/png" : "image/jpeg", Files.size(target)));
+            }
+
+            // Only attach to the product if it was not given a new image meanwhile. Files are left
+            // in place either way: they belong to the blob and are deleted when it is collected.
+            Query query = new Query(Criteria.where("id").is(productId).and("imagePath").is(imagePath));
+            long matched = mongoTemplate.updateFirst(query, Update.update("imageDerivatives", derivatives),
+                    Product.class).getMatchedCount();
+            if (matched == 0) {
+                return;
+            }
+            fileService.refreshProductImage(productId);
+            log.debug("Generated {} derivatives for product {}", derivatives.size(), productId);
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            log.warn("Could not generate derivatives for product {}: {}", productId, e.getMessage());
+        }
+    }
+
+    /**
+     * Decodes the image, refusing anything whose declared dimensions exceed
+     * {@code max-source-pixels} before allocating the raster
+     */
+    private BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxSourcePixels) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Halves the image until it is within 2x of the target, then scales the rest
+     * of the way. A single bilinear step from a much larger image skips most
+     * source pixels and aliases badly.
+     */
+    static BufferedImage resize(BufferedImage source, int width, int height, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            int nextWidth = Math.max(width, currentWidth / 2);
+            int nextHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.exception.BadRequestException;
+import com.example.ecommerce.exception.ServiceUnavailableException;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.Payment;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Streams orders with their line items and payment straight from a Mongo cursor
+ * to the response. Orders are processed in batches of {@code batch-size}: one
+ * {@code $in} query fetches the batch's items, another its payments, the rows
+ * are written, then everything is dropped. Heap use depends on the batch size,
+ * not the export size.
+ *
+ * The writer is flushed after every batch. A slow client then blocks the
+ * servlet output stream, which in turn stops the cursor from being advanced.
+ */
+@Service
+public class OrderExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExportService.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String CSV_HEADER = "orderId,createdAt,paidAt,status,userId,totalAmount,"
+            + "paymentId,paymentStatus,razorpayOrderId,razorpayPaymentId,productId,quantity,price\n";
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format fromKey(String key) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(key)) {
+                    return format;
+                }
+            }
+            throw new BadRequestException("Unknown export format '" + key + "', expected csv or ndjson");
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${analytics.export.batch-size:500}")
+    private int batchSize;
+
+    @Value("${analytics.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private Semaphore slots;
+
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Claims one of the {@code max-concurrent} export slots and returns the body that
+     * streams the export and frees the slot. Each export holds an MVC async thread
+     * until the client has read everything, so extra exports get a 503 instead.
+     */
+    public StreamingResponseBody start(Format format, Instant from, Instant to, OrderStatus status) {
+        if (!slots.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many exports are running, please retry shortly", 30);
+        }
+        return out -> {
+            try {
+                export(format, from, to, status, out);
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    public void export(Format format, Instant from, Instant to, OrderStatus status, OutputStream out)
+            throws IOException {
+        Criteria criteria = new Criteria();
+        if (status != null) {
+            criteria = criteria.and("status").is(status);
+        }
+        if (from != null || to != null) {
+            Criteria createdAt = criteria.and("createdAt");
+            if (from != null) {
+                createdAt.gte(from);
+            }
+            if (to != null) {
+                createdAt.lt(to);
+            }
+        }
+        Query query = new Query(criteria)
+                // Oldest first. createdAt_id and status_createdAt_id are {createdAt: -1},
+                // so the planner walks them in reverse order to serve this ascending sort
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .cursorBatchSize(batchSize);
+
+        long started = System.nanoTime();
+        long orders = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        try (Stream<Order> cursor = mongoTemplate.stream(query, Order.class)) {
+            Iterator<Order> iterator = cursor.iterator();
+            List<Order> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize || !iterator.hasNext()) {
+                    writeBatch(format, batch, writer);
+                    orders += batch.size();
+                    batch.clear();
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        log.info("Exported {} orders as {} in {} ms", orders, format, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void writeBatch(Format format, List<Order> batch, Writer writer) throws IOException {
+        List<String> orderIds = new ArrayList<>(batch.size());
+        for (Order order : batch) {
+            orderIds.add(order.getId());
+        }
+
+        Query itemQuery = new Query(Criteria.where("orderId").in(orderIds));
+        itemQuery.fields().include("orderId").include("productId").include("quantity").include("price");
+        Map<String, List<OrderItem>> itemsByOrder = new HashMap<>();
+        for (OrderItem item : mongoTemplate.find(itemQuery, OrderItem.class)) {
+            itemsByOrder.computeIfAbsent(item.getOrderId(), id -> new ArrayList<>()).add(item);
+        }
+
+        Map<String, Payment> paymentsByOrder = new HashMap<>();
+        for (Payment payment : mongoTemplate.find(new Query(Criteria.where("orderId").in(orderIds)), Payment.class)) {
+            paymentsByOrder.put(payment.getOrderId(), payment);
+        }
+
+        for (Order order : batch) {
+            List<OrderItem> items = itemsByOrder.getOrDefault(order.getId(), List.of());
+            Payment payment = paymentsByOrder.get(order.getId());
+            if (format == Format.CSV) {
+                writeCsv(order, items, payment, writer);
+            } else {
+                writeJson(order, items, payment, writer);
+            }
+        }
+    }
+
+    private void writeCsv(Order order, List<OrderItem> items, Payment payment, Writer writer) throws IOException {
+        StringBuilder prefix = new StringBuilder(256);
+        appendCsv(prefix, order.getId()).append(',');
+        appendCsv(prefix, order.getCreatedAt()).append(',');
+        appendCsv(prefix, order.getPaidAt()).append(',');
+        appendCsv(prefix, order.getStatus()).append(',');
+        appendCsv(prefix, order.getUserId()).append(',');
+        appendCsv(prefix, order.getTotalAmount()).append(',');
+        appendCsv(prefix, payment != null ? payment.getId() : null).append(',');
+        appendCsv(prefix, payment != null ? payment.getStatus() : null).append(',');
+        appendCsv(prefix, payment != null ? payment.getRazorpayOrderId() : null).append(',');
+        appendCsv(prefix, payment != null ? payment.getRazorpayPaymentId() : null).append(',');
+
+        if (items.isEmpty()) {
+            writer.append(prefix).append(",,\n");
+            return;
+        }
+        // One row per line item, order columns repeated
+        for (OrderItem item : items) {
+            writer.append(prefix);
+            StringBuilder row = new StringBuilder(64);
+            appendCsv(row, item.getProductId()).append(',');
+            appendCsv(row, item.getQuantity()).append(',');
+            appendCsv(row, item.getPrice()).append('\n');
+            writer.append(row);
+        }
+    }
+
+    private static StringBuilder appendCsv(StringBuilder row, Object value) {
+        if (value == null) {
+            return row;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return row.append(text);
+        }
+        return row.append('"').append(text.replace("\"", "\"\"")).append('"');
+    }
+
+    private void writeJson(Order order, List<OrderItem> items, Payment payment, Writer writer) throws IOException {
+        // The generator must not close or flush the shared writer; batching decides when to flush
+        JsonGenerator json = JSON_FACTORY.createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+
+        json.writeStartObject();
+        json.writeStringField("orderId", order.getId());
+        writeInstant(json, "createdAt", order.getCreatedAt());
+        writeInstant(json, "paidAt", order.getPaidAt());
+        json.writeStringField("status", order.getStatus() != null ? order.getStatus().name() : null);
+        json.writeStringField("userId", order.getUserId());
+        if (order.getTotalAmount() != null) {
+            json.writeNumberField("totalAmount", order.getTotalAmount());
+        }
+
+        json.writeArrayFieldStart("items");
+        for (OrderItem item : items) {
+            json.writeStartObject();
+            json.writeStringField("productId", item.getProductId());
+            if (item.getQuantity() != null) {
+                json.writeNumberField("quantity", item.getQuantity());
+            }
+            if (item.getPrice() != null) {
+                json.writeNumberField("price", item.getPrice());
+            }
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+
+        if (payment != null) {
+            json.writeObjectFieldStart("payment");
+            json.writeStringField("id", payment.getId());
+            json.writeStringField("status", payment.getStatus() != null ? payment.getStatus().name() : null);
+            json.writeStringField("razorpayOrderId", payment.getRazorpayOrderId());
+            json.writeStringField("razorpayPaymentId", payment.getRazorpayPaymentId());
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+        json.flush();
+        writer.write('\n');
+    }
+
+    private static void writeInstant(JsonGenerator json, String field, Instant value) throws IOException {
+        if (value != null) {
+            json.writeStringField(field, value.toString());
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.config.MetricsConfig;
+import com.example.ecommerce.event.OrderCancelledEvent;
+import com.example.ecommerce.event.OrderLine;
 import com.example.ecommerce.exception.BadRequestException;
 import com.example.ecommerce.exception.ResourceNotFoundException;
 import com.example.ecommerce.model.*;
 import com.example.ecommerce.repository.OrderRepository;
 import com.example.ecommerce.repository.PaymentRepository;
-import com.example.ecommerce.util.EmailUtil;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.*;
 
 @Service
@@ -35,8 +42,9 @@ public class OrderService {
     private MongoTemplate mongoTemplate;
     
     @Autowired
-    private EmailUtil emailUtil;
+    private ApplicationEventPublisher eventPublisher;
     
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public Map<String, Object> createOrder(String userId) {
         List<CartItem> cartItems = cartService.getCartItemsByUserId(userId);
         
@@ -66,6 +74,9 @@ public class OrderService {
         }
         
         Order order = new Order(userId, totalAmount);
+        order.setLines(orderItemsData.stream()
+                .map(itemData -> new OrderLine((String) itemData.get("productId"), (Integer) itemData.get("quantity")))
+                .toList());
         order = orderRepository.save(order);
         
         List<OrderItem> savedOrderItems = new ArrayList<>();
@@ -86,24 +97,7 @@ public class OrderService {
         
         cartService.clearCart(userId);
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", order.getId());
-        response.put("userId", order.getUserId());
-        response.put("totalAmount", order.getTotalAmount());
-        response.put("status", order.getStatus().toString());
-        response.put("createdAt", order.getCreatedAt().toString());
-        
-        List<Map<String, Object>> items = new ArrayList<>();
-        for (OrderItem item : savedOrderItems) {
-            Map<String, Object> itemMap = new HashMap<>();
-            itemMap.put("productId", item.getProductId());
-            itemMap.put("quantity", item.getQuantity());
-            itemMap.put("price", item.getPrice());
-            items.add(itemMap);
-        }
-        response.put("items", items);
-        
-        return response;
+        return toResponse(order, savedOrderItems, null);
     }
     
     public Map<String, Object> getOrderById(String orderId) {
@@ -115,12 +109,22 @@ public class OrderService {
         
         Optional<Payment> paymentOpt = paymentRepository.findByOrderId(orderId);
         
+        return toResponse(order, orderItems, paymentOpt.orElse(null));
+    }
+    
+    /**
+     * The order as returned by the API; {@code payment} may be null
+     */
+    public static Map<String, Object> toResponse(Order order, List<OrderItem> orderItems, Payment payment) {
         Map<String, Object> response = new HashMap<>();
         response.put("id", order.getId());
         response.put("userId", order.getUserId());
         response.put("totalAmount", order.getTotalAmount());
         response.put("status", order.getStatus().toString());
         response.put("createdAt", order.getCreatedAt().toString());
+        if (order.getPaymentStatus() != null) {
+            response.put("paymentStatus", order.getPaymentStatus().toString());
+        }
         
         List<Map<String, Object>> items = new ArrayList<>();
         for (OrderItem item : orderItems) {
@@ -132,14 +136,14 @@ public class OrderService {
         }
         response.put("items", items);
         
-        paymentOpt.ifPresent(payment -> {
+        if (payment != null) {
             Map<String, Object> paymentMap = new HashMap<>();
             paymentMap.put("id", payment.getId());
             paymentMap.put("status", payment.getStatus().toString());
             paymentMap.put("amount", payment.getAmount());
             paymentMap.put("razorpayOrderId", payment.getRazorpayOrderId());
             response.put("payment", paymentMap);
-        });
+        }
         
         return response;
     }
@@ -156,6 +160,14 @@ public class OrderService {
             throw new BadRequestException("Order is already cancelled");
         }
         
+        // Conditional on the status we read, so concurrent cancels cannot restore stock
+        // twice and a payment landing in between is not silently overwritten
+        OrderStatus previousStatus = order.getStatus();
+        Order cancelled = transitionStatus(orderId, previousStatus, OrderStatus.CANCELLED);
+        if (cancelled == null) {
+            throw new BadRequestException("Order status changed concurrently, please retry");
+        }
+        
         Query query = new Query(Criteria.where("orderId").is(orderId));
         List<OrderItem> orderItems = mongoTemplate.find(query, OrderItem.class);
         
@@ -164,12 +176,12 @@ public class OrderService {
         }
         
         String message = "Order cancelled successfully. Stock restored.";
-        if (order.getStatus() == OrderStatus.PAID) {
+        if (previousStatus == OrderStatus.PAID) {
             message = "Order cancelled. Stock restored. Refund will be processed separately.";
         }
         
-        order.setStatus(OrderStatus.CANCELLED);
-        orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderCancelledEvent(cancelled, previousStatus, OrderLine.of(orderItems), Instant.now()));
+        order = cancelled;
         
         Map<String, Object> response = new HashMap<>();
         response.put("id", order.getId());
@@ -179,17 +191,48 @@ public class OrderService {
         return response;
     }
     
-    public void updateOrderStatus(String orderId, OrderStatus status) {
-        orderRepository.findById(orderId).ifPresent(order -> {
-            order.setStatus(status);
-            orderRepository.save(order);
-        });
+    /**
+     * Product and quantity of each item in the order, for the events that carry them.
+     * Read from the order itself when it has them, else from order_items.
+     */
+    public List<OrderLine> linesOf(Order order) {
+        return order.getLines() != null ? order.getLines() : linesOf(order.getId());
     }
     
-    public void sendOrderConfirmationEmail(String orderId, String userEmail) {
-        orderRepository.findById(orderId).ifPresent(order -> {
-            emailUtil.sendOrderConfirmation(userEmail, orderId, order.getTotalAmount());
-        });
+    public List<OrderLine> linesOf(String orderId) {
+        Query query = new Query(Criteria.where("orderId").is(orderId));
+        query.fields().include("productId").include("quantity");
+        return OrderLine.of(mongoTemplate.find(query, OrderItem.class));
+    }
+    
+    /**
+     * Atomically moves an order from one status to another and returns the updated
+     * order, or null if it was not in the expected status
+     */
+    public Order transitionStatus(String orderId, OrderStatus from, OrderStatus to) {
+        Query query = new Query(Criteria.where("id").is(orderId).and("status").is(from));
+        Update update = Update.update("status", to);
+        if (to == OrderStatus.PAID) {
+            update.set("paidAt", Instant.now()).set("paymentStatus", PaymentStatus.SUCCESS);
+        }
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+    }
+    
+    /**
+     * Mirrors a payment status change onto its orders. When {@code expected} is
+     * given, only orders still showing that status are updated, so a late failure
+     * never overwrites SUCCESS.
+     */
+    public void updatePaymentStatus(Collection<String> orderIds, PaymentStatus to, PaymentStatus expected) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Criteria criteria = Criteria.where("id").in(orderIds);
+        if (expected != null) {
+            criteria = criteria.and("paymentStatus").is(expected);
+        }
+        mongoTemplate.updateMulti(new Query(criteria), Update.update("paymentStatus", to), Order.class);
     }
     
     public Optional<Order> findById(String orderId) {
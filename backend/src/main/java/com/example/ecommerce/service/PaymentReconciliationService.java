@@ -0,0 +1,360 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.client.PaymentServiceClient;
+import com.example.ecommerce.dto.ReconciliationReport;
+import com.example.ecommerce.exception.BadRequestException;
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.model.PaymentStatus;
+import com.example.ecommerce.model.ReconciliationCheckpoint;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recovers payments whose webhook was lost.
+ *
+ * Pages through CREATED payments older than {@code min-age-minutes} using a
+ * keyset cursor over the (status, createdAt, _id) index, asks Razorpay for the
+ * state of each order with bounded parallelism and a shared rate budget, then
+ * applies the resulting transitions page by page. The cursor is checkpointed
+ * after every page so an interrupted sweep resumes where it stopped.
+ *
+ * Only a Razorpay payment in {@code captured} state marks the order paid;
+ * {@code authorized} money can still be voided, so it stays pending. A run
+ * holds a lease on the checkpoint, renewed with every page, so two nodes never
+ * sweep at the same time.
+ */
+@Service
+public class PaymentReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReconciliationService.class);
+
+    private static final String CHECKPOINT_ID = "payments";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PaymentServiceClient paymentServiceClient;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Value("${payment.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.reconcile.min-age-minutes:15}")
+    private long minAgeMinutes;
+
+    @Value("${payment.reconcile.lookback-hours:168}")
+    private long lookbackHours;
+
+    @Value("${payment.reconcile.page-size:200}")
+    private int pageSize;
+
+    @Value("${payment.reconcile.parallelism:8}")
+    private int parallelism;
+
+    @Value("${payment.reconcile.rate-per-second:50}")
+    private int ratePerSecond;
+
+    @Value("${payment.reconcile.max-payments-per-run:10000}")
+    private int maxPaymentsPerRun;
+
+    @Value("${payment.reconcile.lease-ms:600000}")
+    private long leaseMs;
+
+    private final String leaseOwner = UUID.randomUUID().toString();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService executor;
+    private Bucket rateBudget;
+
+    private enum Action { PAID, FAILED, PENDING, ERROR }
+
+    private record Resolution(Payment payment, Action action, String razorpayPaymentId) {
+    }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "payment-reconciler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        rateBudget = Bucket.builder()
+                .addLimit(Bandwidth.builder().capacity(ratePerSecond)
+                        .refillGreedy(ratePerSecond, Duration.ofSeconds(1)).build())
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${payment.reconcile.interval-ms:300000}",
+               initialDelayString = "${payment.reconcile.initial-delay-ms:60000}")
+    public void scheduledRun() {
+        if (!enabled || running.get()) {
+            return;
+        }
+        try {
+            ReconciliationReport report = reconcile(false, maxPaymentsPerRun);
+            if (report.getScanned() > 0) {
+                log.info("Payment reconciliation: scanned={} paid={} failed={} pending={} errors={}",
+                        report.getScanned(), report.getPaid(), report.getFailed(),
+                        report.getPending(), report.getErrors());
+            }
+        } catch (BadRequestException e) {
+            log.debug("Skipping scheduled reconciliation: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Payment reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Runs one reconciliation pass over at most {@code limit} payments.
+     * A dry run starts from the beginning, applies nothing and leaves the checkpoint untouched.
+     */
+    public ReconciliationReport reconcile(boolean dryRun, int limit) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("A reconciliation run is already in progress");
+        }
+        try {
+            return doReconcile(dryRun, Math.max(1, limit));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReconciliationReport doReconcile(boolean dryRun, int limit) {
+        ReconciliationReport report = new ReconciliationReport(dryRun);
+        Instant now = Instant.now();
+        Instant olderThan = now.minus(minAgeMinutes, ChronoUnit.MINUTES);
+        Instant newerThan = now.minus(lookbackHours, ChronoUnit.HOURS);
+
+        ReconciliationCheckpoint checkpoint = dryRun ? new ReconciliationCheckpoint(CHECKPOINT_ID) : acquireLease(now);
+        if (checkpoint == null) {
+            throw new BadRequestException("A reconciliation run is already in progress on another node");
+        }
+        if (checkpoint.getSweepStartedAt() == null) {
+            checkpoint.setSweepStartedAt(now);
+        }
+
+        try {
+            while (report.getScanned() < limit) {
+                int requested = Math.min(pageSize, limit - report.getScanned());
+                List<Payment> page = nextPage(checkpoint, newerThan, olderThan, requested);
+                report.incrementScanned(page.size());
+
+                apply(resolveConcurrently(page), dryRun, report);
+
+                if (!page.isEmpty()) {
+                    Payment last = page.get(page.size() - 1);
+                    checkpoint.setLastCreatedAt(last.getCreatedAt());
+                    checkpoint.setLastPaymentId(last.getId());
+                    checkpoint.setUpdatedAt(Instant.now());
+                    if (!dryRun && !saveCheckpoint(checkpoint)) {
+                        log.warn("Lost the reconciliation lease after {} payments; stopping this run",
+                                report.getScanned());
+                        break;
+                    }
+                }
+                if (page.size() < requested) {
+                    report.setSweepCompleted(true);
+                    break;
+                }
+            }
+        } finally {
+            if (!dryRun) {
+                // A finished sweep drops the checkpoint, so the next run starts over and
+                // revisits payments that were still pending; otherwise just free the lease
+                if (report.isSweepCompleted()) {
+                    mongoTemplate.remove(ownedCheckpoint(), ReconciliationCheckpoint.class);
+                } else {
+                    mongoTemplate.updateFirst(ownedCheckpoint(),
+                            new Update().unset("leaseOwner").unset("leaseUntil"), ReconciliationCheckpoint.class);
+                }
+            }
+        }
+        report.setFinishedAt(Instant.now());
+        return report;
+    }
+
+    /**
+     * Takes the checkpoint's lease, creating the checkpoint if there is none.
+     * Returns null while another node holds an unexpired lease.
+     */
+    private ReconciliationCheckpoint acquireLease(Instant now) {
+        Query query = new Query(Criteria.where("id").is(CHECKPOINT_ID).orOperator(
+                Criteria.where("leaseUntil").is(null),
+                Criteria.where("leaseUntil").lt(now),
+                Criteria.where("leaseOwner").is(leaseOwner)));
+        Update update = new Update()
+                .set("leaseOwner", leaseOwner)
+                .set("leaseUntil", now.plusMillis(leaseMs));
+        try {
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), ReconciliationCheckpoint.class);
+        } catch (DuplicateKeyException e) {
+            // The upsert raced an existing checkpoint whose lease is still held
+            return null;
+        }
+    }
+
+    /**
+     * Stores the cursor and renews the lease. Returns false if another node has
+     * taken the lease over in the meantime.
+     */
+    private boolean saveCheckpoint(ReconciliationCheckpoint checkpoint) {
+        Update update = new Update()
+                .set("lastCreatedAt", checkpoint.getLastCreatedAt())
+                .set("lastPaymentId", checkpoint.getLastPaymentId())
+                .set("sweepStartedAt", checkpoint.getSweepStartedAt())
+                .set("updatedAt", checkpoint.getUpdatedAt())
+                .set("leaseUntil", Instant.now().plusMillis(leaseMs));
+        return mongoTemplate.updateFirst(ownedCheckpoint(), update, ReconciliationCheckpoint.class)
+                .getMatchedCount() > 0;
+    }
+
+    private Query ownedCheckpoint() {
+        return new Query(Criteria.where("id").is(CHECKPOINT_ID).and("leaseOwner").is(leaseOwner));
+    }
+
+    private List<Payment> nextPage(ReconciliationCheckpoint checkpoint, Instant newerThan,
+                                   Instant olderThan, int size) {
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(Criteria.where("status").is(PaymentStatus.CREATED));
+        criteria.add(Criteria.where("createdAt").gte(newerThan).lt(olderThan));
+
+        Instant lastCreatedAt = checkpoint.getLastCreatedAt();
+        if (lastCreatedAt != null) {
+            Object lastId = ObjectId.isValid(checkpoint.getLastPaymentId())
+                    ? new ObjectId(checkpoint.getLastPaymentId())
+                    : checkpoint.getLastPaymentId();
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("createdAt").gt(lastCreatedAt),
+                    Criteria.where("createdAt").is(lastCreatedAt).and("_id").gt(lastId)));
+        }
+
+        Query query = new Query(new Criteria().andOperator(criteria.toArray(new Criteria[0])))
+                .with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("_id")))
+                .limit(size);
+        return mongoTemplate.find(query, Payment.class);
+    }
+
+    private List<Resolution> resolveConcurrently(List<Payment> page) {
+        List<CompletableFuture<Resolution>> futures = new ArrayList<>(page.size());
+        for (Payment payment : page) {
+            futures.add(CompletableFuture.supplyAsync(() -> resolve(payment), executor));
+        }
+        List<Resolution> resolutions = new ArrayList<>(futures.size());
+        for (CompletableFuture<Resolution> future : futures) {
+            resolutions.add(future.join());
+        }
+        return resolutions;
+    }
+
+    private Resolution resolve(Payment payment) {
+        if (payment.getRazorpayOrderId() == null) {
+            return new Resolution(payment, Action.PENDING, null);
+        }
+        try {
+            rateBudget.asBlocking().consume(1);
+            JSONObject collection = paymentServiceClient.fetchOrderPayments(payment.getRazorpayOrderId());
+            JSONArray items = collection.optJSONArray("items");
+
+            boolean attempted = false;
+            boolean allFailed = true;
+            for (int i = 0; items != null && i < items.length(); i++) {
+                JSONObject attempt = items.getJSONObject(i);
+                String status = attempt.optString("status");
+                if ("captured".equals(status)) {
+                    return new Resolution(payment, Action.PAID, attempt.getString("id"));
+                }
+                attempted = true;
+                // A refunded attempt returned the money, so it settles nothing either
+                if (!"failed".equals(status) && !"refunded".equals(status)) {
+                    allFailed = false;
+                }
+            }
+            return new Resolution(payment, attempted && allFailed ? Action.FAILED : Action.PENDING, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Resolution(payment, Action.ERROR, null);
+        } catch (RuntimeException e) {
+            log.warn("Could not resolve Razorpay order {}: {}", payment.getRazorpayOrderId(), e.getMessage());
+            return new Resolution(payment, Action.ERROR, null);
+        }
+    }
+
+    private void apply(List<Resolution> resolutions, boolean dryRun, ReconciliationReport report) {
+        List<String> failedRazorpayOrderIds = new ArrayList<>();
+
+        for (Resolution resolution : resolutions) {
+            Payment payment = resolution.payment();
+            switch (resolution.action()) {
+                case PAID -> {
+                    if (!dryRun) {
+                        try {
+                            paymentService.handlePaymentSuccess(payment.getRazorpayOrderId(),
+                                    resolution.razorpayPaymentId());
+                        } catch (RuntimeException e) {
+                            log.warn("Could not apply reconciled payment {}: {}", payment.getId(), e.getMessage());
+                            report.incrementErrors();
+                            continue;
+                        }
+                    }
+                    report.incrementPaid();
+                    report.addTransition(transition(payment, resolution, "PAID"));
+                }
+                case FAILED -> {
+                    failedRazorpayOrderIds.add(payment.getRazorpayOrderId());
+                    report.incrementFailed();
+                    report.addTransition(transition(payment, resolution, "FAILED"));
+                }
+                case PENDING -> report.incrementPending();
+                case ERROR -> report.incrementErrors();
+            }
+        }
+
+        if (!dryRun && !failedRazorpayOrderIds.isEmpty()) {
+            paymentService.markPaymentsFailed(failedRazorpayOrderIds);
+        }
+    }
+
+    private ReconciliationReport.Transition transition(Payment payment, Resolution resolution, String action) {
+        return new ReconciliationReport.Transition(payment.getId(), payment.getOrderId(),
+                payment.getRazorpayOrderId(), resolution.razorpayPaymentId(), action);
+    }
+}
@@ -1,22 +1,37 @@
 package com.example.ecommerce.service;
 
 import com.example.ecommerce.client.PaymentServiceClient;
+import com.example.ecommerce.config.MetricsConfig;
+import com.example.ecommerce.event.OrderPaidEvent;
 import com.example.ecommerce.exception.BadRequestException;
 import com.example.ecommerce.exception.ResourceNotFoundException;
 import com.example.ecommerce.model.*;
 import com.example.ecommerce.repository.PaymentRepository;
-import com.example.ecommerce.repository.UserRepository;
-import com.razorpay.RazorpayException;
+import io.micrometer.core.annotation.Timed;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class PaymentService {
     
+    private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+    
     @Autowired
     private PaymentRepository paymentRepository;
     
@@ -27,8 +42,15 @@ public class PaymentService {
     private PaymentServiceClient paymentServiceClient;
     
     @Autowired
-    private UserRepository userRepository;
+    private EmailOutboxService emailOutboxService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public Map<String, Object> createPayment(String orderId) {
         Order order = orderService.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", orderId));
@@ -57,20 +79,14 @@ public class PaymentService {
         
         Double amount = order.getTotalAmount();
         
-        String razorpayOrderId;
-        try {
-            com.razorpay.Order razorpayOrder = paymentServiceClient.createRazorpayOrder(
-                amount, 
-                "order_" + orderId
-            );
-            razorpayOrderId = razorpayOrder.get("id");
-        } catch (RazorpayException e) {
-            throw new RuntimeException("Failed to create Razorpay order: " + e.getMessage());
-        }
+        // Gateway failures surface as 502/503 via PaymentGatewayException / ServiceUnavailableException
+        JSONObject razorpayOrder = paymentServiceClient.createRazorpayOrder(amount, "order_" + orderId);
+        String razorpayOrderId = razorpayOrder.getString("id");
         
         Payment payment = new Payment(orderId, amount);
         payment.setRazorpayOrderId(razorpayOrderId);
         payment = paymentRepository.save(payment);
+        orderService.updatePaymentStatus(List.of(orderId), PaymentStatus.CREATED, null);
         
         Map<String, Object> response = new HashMap<>();
         response.put("paymentId", payment.getId());
@@ -83,29 +99,102 @@ public class PaymentService {
         return response;
     }
     
-    public void handlePaymentSuccess(String razorpayOrderId, String razorpayPaymentId) {
-        Payment payment = paymentRepository.findByRazorpayOrderId(razorpayOrderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Payment not found for Razorpay order: " + razorpayOrderId));
+    /**
+     * Moves the payment to SUCCESS and its order to PAID with conditional findAndModify
+     * updates, queuing the confirmation email in between: the outbox holds it back
+     * until the order is PAID, and the order only becomes PAID after it is queued.
+     * The PAID order comes back with its lines, so a first delivery costs three
+     * round trips. Returns true only for the call that performed the transition, so
+     * duplicate webhooks (or a webhook racing reconciliation) cause no further writes
+     * or emails.
+     *
+     * If a previous call died between the writes, the payment is SUCCESS but the
+     * order still CREATED; the next delivery for the payment finishes the order.
+     */
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public boolean handlePaymentSuccess(String razorpayOrderId, String razorpayPaymentId) {
+        Query paymentQuery = new Query(Criteria.where("razorpayOrderId").is(razorpayOrderId)
+                .and("status").in(PaymentStatus.CREATED, PaymentStatus.FAILED));
+        Update paymentUpdate = new Update()
+                .set("status", PaymentStatus.SUCCESS)
+                .set("razorpayPaymentId", razorpayPaymentId);
+        Payment payment = mongoTemplate.findAndModify(paymentQuery, paymentUpdate,
+                FindAndModifyOptions.options().returnNew(true), Payment.class);
+        if (payment == null) {
+            return completeInterruptedOrder(razorpayOrderId);
+        }
         
-        payment.setStatus(PaymentStatus.SUCCESS);
-        payment.setRazorpayPaymentId(razorpayPaymentId);
-        paymentRepository.save(payment);
+        emailOutboxService.enqueueOrderConfirmation(payment.getOrderId());
+        Order order = orderService.transitionStatus(payment.getOrderId(), OrderStatus.CREATED, OrderStatus.PAID);
+        if (order == null) {
+            if (orderService.findById(payment.getOrderId()).map(Order::getStatus).orElse(null) == OrderStatus.PAID) {
+                // A concurrent delivery finished the order in between and published it
+                return false;
+            }
+            log.warn("Payment {} captured but order {} was no longer CREATED; needs a refund review",
+                    payment.getId(), payment.getOrderId());
+            emailOutboxService.cancelOrderConfirmation(payment.getOrderId());
+            orderService.updatePaymentStatus(List.of(payment.getOrderId()), PaymentStatus.SUCCESS, null);
+            return true;
+        }
         
-        orderService.updateOrderStatus(payment.getOrderId(), OrderStatus.PAID);
+        eventPublisher.publishEvent(new OrderPaidEvent(order, orderService.linesOf(order), Instant.now()));
+        return true;
+    }
+    
+    /**
+     * Handles a delivery whose payment is no longer CREATED or FAILED. Usually the
+     * order is PAID already and nothing is written; if the call that flipped the
+     * payment died before settling the order, this queues the confirmation and
+     * finishes the CREATED → PAID move.
+     */
+    private boolean completeInterruptedOrder(String razorpayOrderId) {
+        Query lookup = new Query(Criteria.where("razorpayOrderId").is(razorpayOrderId));
+        lookup.fields().include("orderId").include("status");
+        Payment payment = mongoTemplate.findOne(lookup, Payment.class);
+        if (payment == null) {
+            throw new ResourceNotFoundException("Payment not found for Razorpay order: " + razorpayOrderId);
+        }
+        if (payment.getStatus() != PaymentStatus.SUCCESS
+                || orderService.findById(payment.getOrderId()).map(Order::getStatus).orElse(null) != OrderStatus.CREATED) {
+            return false;
+        }
         
-        // Send confirmation email
-        orderService.findById(payment.getOrderId()).ifPresent(order -> {
-            userRepository.findById(order.getUserId()).ifPresent(user -> {
-                orderService.sendOrderConfirmationEmail(order.getId(), user.getEmail());
-            });
-        });
+        emailOutboxService.enqueueOrderConfirmation(payment.getOrderId());
+        Order order = orderService.transitionStatus(payment.getOrderId(), OrderStatus.CREATED, OrderStatus.PAID);
+        if (order == null) {
+            return false;
+        }
+        log.info("Completed order {} left CREATED after its payment {} succeeded", payment.getOrderId(), payment.getId());
+        eventPublisher.publishEvent(new OrderPaidEvent(order, orderService.linesOf(order), Instant.now()));
+        return true;
     }
     
     public void handlePaymentFailure(String razorpayOrderId) {
-        paymentRepository.findByRazorpayOrderId(razorpayOrderId).ifPresent(payment -> {
-            payment.setStatus(PaymentStatus.FAILED);
-            paymentRepository.save(payment);
-        });
+        // Never downgrade a payment that already succeeded
+        Query query = new Query(Criteria.where("razorpayOrderId").is(razorpayOrderId)
+                .and("status").is(PaymentStatus.CREATED));
+        Payment failed = mongoTemplate.findAndModify(query, Update.update("status", PaymentStatus.FAILED),
+                FindAndModifyOptions.options().returnNew(true), Payment.class);
+        if (failed != null) {
+            orderService.updatePaymentStatus(List.of(failed.getOrderId()), PaymentStatus.FAILED, PaymentStatus.CREATED);
+        }
+    }
+    
+    /**
+     * Marks still-CREATED payments as FAILED in a single update, used by reconciliation
+     */
+    public long markPaymentsFailed(Collection<String> razorpayOrderIds) {
+        Query query = new Query(Criteria.where("razorpayOrderId").in(razorpayOrderIds)
+                .and("status").is(PaymentStatus.CREATED));
+        query.fields().include("orderId");
+        List<String> orderIds = mongoTemplate.find(query, Payment.class).stream()
+                .map(Payment::getOrderId)
+                .toList();
+        long modified = mongoTemplate.updateMulti(query, Update.update("status", PaymentStatus.FAILED), Payment.class)
+                .getModifiedCount();
+        orderService.updatePaymentStatus(orderIds, PaymentStatus.FAILED, PaymentStatus.CREATED);
+        return modified;
     }
     
     public Optional<Payment> getPaymentByOrderId(String orderId) {
@@ -1,9 +1,11 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.config.MetricsConfig;
 import com.example.ecommerce.dto.ProductRequest;
 import com.example.ecommerce.exception.ResourceNotFoundException;
 import com.example.ecommerce.model.Product;
 import com.example.ecommerce.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -28,6 +30,9 @@ public class ProductService {
     @Autowired
     private MongoTemplate mongoTemplate;
     
+    @Autowired
+    private FileService fileService;
+    
     @CacheEvict(value = "products", allEntries = true)
     public Product createProduct(Product product) {
         return productRepository.save(product);
@@ -38,6 +43,7 @@ public class ProductService {
         return productRepository.findAll(pageable);
     }
     
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public Page<Product> getProductsFiltered(Double minPrice, Double maxPrice, 
                                               String edition, Pageable pageable) {
         List<Criteria> criteriaList = new ArrayList<>();
@@ -69,10 +75,12 @@ public class ProductService {
                 () -> mongoTemplate.count(countQuery, Product.class));
     }
     
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public Optional<Product> getProductById(String id) {
         return productRepository.findById(id);
     }
     
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
     public Page<Product> searchProducts(String query, Pageable pageable) {
         return productRepository.findByNameContainingIgnoreCase(query, pageable);
     }
@@ -93,10 +101,11 @@ public class ProductService {
     
     @CacheEvict(value = "products", allEntries = true)
     public void deleteProduct(String id) {
-        if (!productRepository.existsById(id)) {
+        Product removed = mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(id)), Product.class);
+        if (removed == null) {
             throw new ResourceNotFoundException("Product", id);
         }
-        productRepository.deleteById(id);
+        fileService.releaseProductImage(removed);
     }
     
     public Product updateStock(String productId, int quantityChange) {
@@ -0,0 +1,270 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.config.AsyncConfig;
+import com.example.ecommerce.event.OrderCancelledEvent;
+import com.example.ecommerce.event.OrderLine;
+import com.example.ecommerce.event.OrderPaidEvent;
+import com.example.ecommerce.exception.BadRequestException;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.SalesDaily;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Maintains {@code sales_daily}: one row per UTC day, updated with {@code $inc}
+ * as orders are paid or cancelled, so dashboards read a handful of small rows
+ * instead of scanning order history.
+ *
+ * The incremental path runs exactly once per transition because the transitions
+ * themselves are atomic. The backfill recomputes sales figures for a day range from
+ * the orders collection and overwrites them, so running it again is harmless; a
+ * nightly run over the last few days also repairs any increment that was lost.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final int BULK_BATCH_SIZE = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${analytics.rollup.max-backfill-days:3660}")
+    private int maxBackfillDays;
+
+    @Value("${analytics.rollup.refresh-days:2}")
+    private int refreshDays;
+
+    private final AtomicBoolean backfilling = new AtomicBoolean();
+
+    public static String dayKey(LocalDate day) {
+        return day.toString();
+    }
+
+    public static LocalDate dayOf(Instant instant) {
+        return LocalDate.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    @Async(AsyncConfig.ORDER_EVENTS_EXECUTOR)
+    @EventListener
+    public void onOrderPaid(OrderPaidEvent event) {
+        try {
+            apply(event.order(), event.lines(), 1, OrderStatus.PAID, event.occurredAt());
+        } catch (RuntimeException e) {
+            // The nightly refresh recomputes recent days, so a missed increment is repaired
+            log.warn("Could not update sales rollup for paid order {}: {}", event.order().getId(), e.getMessage());
+        }
+    }
+
+    @Async(AsyncConfig.ORDER_EVENTS_EXECUTOR)
+    @EventListener
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        try {
+            // Only paid orders were counted; cancelling an unpaid one just records the transition
+            int sign = event.previousStatus() == OrderStatus.PAID ? -1 : 0;
+            apply(event.order(), event.lines(), sign, OrderStatus.CANCELLED, event.occurredAt());
+        } catch (RuntimeException e) {
+            log.warn("Could not update sales rollup for cancelled order {}: {}", event.order().getId(), e.getMessage());
+        }
+    }
+
+    private void apply(Order order, List<OrderLine> lines, int sign, OrderStatus transition, Instant occurredAt) {
+        LocalDate createdDay = dayOf(order.getCreatedAt());
+        LocalDate transitionDay = dayOf(occurredAt);
+        Update transitionUpdate = new Update().inc("transitions." + transition.name(), 1);
+
+        if (sign != 0) {
+            Update salesUpdate = new Update()
+                    .inc("orders", sign)
+                    .inc("revenue", sign * order.getTotalAmount());
+            for (Map.Entry<String, Integer> units : unitsByProduct(lines).entrySet()) {
+                salesUpdate.inc("units." + units.getKey(), sign * units.getValue());
+            }
+            if (createdDay.equals(transitionDay)) {
+                salesUpdate.inc("transitions." + transition.name(), 1);
+                upsertDay(createdDay, salesUpdate);
+                return;
+            }
+            upsertDay(createdDay, salesUpdate);
+        }
+        upsertDay(transitionDay, transitionUpdate);
+    }
+
+    private static Map<String, Integer> unitsByProduct(List<OrderLine> lines) {
+        Map<String, Integer> units = new HashMap<>();
+        for (OrderLine line : lines) {
+            units.merge(line.productId(), line.quantity(), Integer::sum);
+        }
+        return units;
+    }
+
+    private void upsertDay(LocalDate day, Update update) {
+        update.setOnInsert("day", day.atStartOfDay(ZoneOffset.UTC).toInstant())
+                .set("updatedAt", Instant.now());
+        mongoTemplate.upsert(new Query(Criteria.where("id").is(dayKey(day))), update, SalesDaily.class);
+    }
+
+    /**
+     * Rollup rows for days in [from, toExclusive), with only the totals loaded
+     */
+    public List<SalesDaily> findDays(LocalDate from, LocalDate toExclusive) {
+        Query query = new Query(Criteria.where("id").gte(dayKey(from)).lt(dayKey(toExclusive)));
+        query.fields().include("orders").include("revenue").include("day");
+        return mongoTemplate.find(query, SalesDaily.class);
+    }
+
+    @Scheduled(cron = "${analytics.rollup.refresh-cron:0 15 0 * * *}", zone = "UTC")
+    public void refreshRecentDays() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        try {
+            backfill(today.minusDays(refreshDays), today);
+        } catch (BadRequestException e) {
+            log.debug("Skipping rollup refresh: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Sales rollup refresh failed", e);
+        }
+    }
+
+    /**
+     * Recomputes orders, revenue and units for days in [from, toExclusive) from the
+     * orders collection. Today is excluded because it is still receiving increments;
+     * transition counts are left alone since order history does not record them.
+     */
+    public Map<String, Object> backfill(LocalDate from, LocalDate toExclusive) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        if (toExclusive.isAfter(today)) {
+            toExclusive = today;
+        }
+        if (!from.isBefore(toExclusive)) {
+            throw new BadRequestException("Backfill range is empty; it must end before today (UTC)");
+        }
+        if (ChronoUnit.DAYS.between(from, toExclusive) > maxBackfillDays) {
+            throw new BadRequestException("Backfill range is limited to " + maxBackfillDays + " days");
+        }
+        if (!backfilling.compareAndSet(false, true)) {
+            throw new BadRequestException("A rollup backfill is already in progress");
+        }
+        try {
+            Instant start = from.atStartOfDay(ZoneOffset.UTC).toInstant();
+            Instant end = toExclusive.atStartOfDay(ZoneOffset.UTC).toInstant();
+
+            // Zero the range first so days that no longer have paid orders are corrected too
+            mongoTemplate.updateMulti(
+                    new Query(Criteria.where("id").gte(dayKey(from)).lt(dayKey(toExclusive))),
+                    new Update().set("orders", 0L).set("revenue", 0.0).set("units", new Document()),
+                    SalesDaily.class);
+
+            long days = writeDailyTotals(start, end);
+            writeDailyUnits(start, end);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("from", from.toString());
+            result.put("to", toExclusive.minusDays(1).toString());
+            result.put("daysWithSales", days);
+            return result;
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    private long writeDailyTotals(Instant start, Instant end) {
+        Aggregation aggregation = newAggregation(
+                match(Criteria.where("status").is(OrderStatus.PAID).and("createdAt").gte(start).lt(end)),
+                project("totalAmount").and(DateOperators.dateOf("createdAt").toString("%Y-%m-%d")).as("day"),
+                group("day").count().as("orders").sum("totalAmount").as("revenue"),
+                sort(Sort.Direction.ASC, "_id"));
+
+        long days = 0;
+        BulkOperations bulk = null;
+        int pending = 0;
+        try (Stream<Document> rows = mongoTemplate.aggregateStream(aggregation, "orders", Document.class)) {
+            for (Document row : (Iterable<Document>) rows::iterator) {
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesDaily.class);
+                }
+                String key = row.getString("_id");
+                bulk.upsert(new Query(Criteria.where("id").is(key)), new Update()
+                        .set("orders", ((Number) row.get("orders")).longValue())
+                        .set("revenue", ((Number) row.get("revenue")).doubleValue())
+                        .set("updatedAt", Instant.now())
+                        .setOnInsert("day", LocalDate.parse(key).atStartOfDay(ZoneOffset.UTC).toInstant()));
+                days++;
+                if (++pending == BULK_BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = null;
+                    pending = 0;
+                }
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+        return days;
+    }
+
+    private void writeDailyUnits(Instant start, Instant end) {
+        Aggregation aggregation = newAggregation(
+                match(Criteria.where("status").is(OrderStatus.PAID).and("createdAt").gte(start).lt(end)),
+                project()
+                        .and(ConvertOperators.valueOf("_id").convertToString()).as("orderKey")
+                        .and(DateOperators.dateOf("createdAt").toString("%Y-%m-%d")).as("day"),
+                lookup("order_items", "orderKey", "orderId", "items"),
+                unwind("items"),
+                group(Aggregation.fields("day").and("productId", "items.productId"))
+                        .sum("items.quantity").as("units"))
+                .withOptions(newAggregationOptions().allowDiskUse(true).build());
+
+        BulkOperations bulk = null;
+        int pending = 0;
+        try (Stream<Document> rows = mongoTemplate.aggregateStream(aggregation, "orders", Document.class)) {
+            for (Document row : (Iterable<Document>) rows::iterator) {
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesDaily.class);
+                }
+                Document id = row.get("_id", Document.class);
+                bulk.updateOne(new Query(Criteria.where("id").is(id.getString("day"))),
+                        new Update().set("units." + id.getString("productId"),
+                                ((Number) row.get("units")).longValue()));
+                if (++pending == BULK_BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = null;
+                    pending = 0;
+                }
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+    }
+}
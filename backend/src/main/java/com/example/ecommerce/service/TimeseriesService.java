@@ -0,0 +1,359 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.config.AsyncConfig;
+import com.example.ecommerce.config.MetricsConfig;
+import com.example.ecommerce.dto.TimeseriesPoint;
+import com.example.ecommerce.dto.TimeseriesResponse;
+import com.example.ecommerce.event.OrderCancelledEvent;
+import com.example.ecommerce.event.OrderLine;
+import com.example.ecommerce.event.OrderPaidEvent;
+import com.example.ecommerce.exception.BadRequestException;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.SalesTimeseriesBucket;
+import com.example.ecommerce.util.RelativeErrorSketch;
+import io.micrometer.core.annotation.Timed;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AccumulatorOperators;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Pre-bucketed sales time series. Each paid order increments one minute, one
+ * hour and one day bucket in a single bulk write, including the order value's
+ * log bucket. A query therefore reads at most {@code max-points} small
+ * documents and never touches the orders collection. Cancelling a paid order
+ * reverses its increments in the buckets of its original payment time.
+ *
+ * Increments are best effort: a dropped event or a failed write leaves a bucket
+ * short. The backfill recomputes whole days from the orders collection and a
+ * nightly run over the last few days repairs anything that was lost.
+ */
+@Service
+public class TimeseriesService {
+
+    private static final Logger log = LoggerFactory.getLogger(TimeseriesService.class);
+
+    private static final int BULK_BATCH_SIZE = 1000;
+
+    public enum Granularity {
+        MINUTE("minute", ChronoUnit.MINUTES, Duration.ofDays(7)),
+        HOUR("hour", ChronoUnit.HOURS, Duration.ofDays(90)),
+        DAY("day", ChronoUnit.DAYS, null);
+
+        private final String key;
+        private final ChronoUnit unit;
+        private final Duration retention;
+
+        Granularity(String key, ChronoUnit unit, Duration retention) {
+            this.key = key;
+            this.unit = unit;
+            this.retention = retention;
+        }
+
+        public String getKey() { return key; }
+
+        public static Granularity fromKey(String key) {
+            for (Granularity granularity : values()) {
+                if (granularity.key.equalsIgnoreCase(key)) {
+                    return granularity;
+                }
+            }
+            throw new BadRequestException("Unknown granularity '" + key + "', expected minute, hour or day");
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${analytics.timeseries.relative-accuracy:0.01}")
+    private double relativeAccuracy;
+
+    @Value("${analytics.timeseries.max-points:2000}")
+    private int maxPoints;
+
+    @Value("${analytics.timeseries.max-backfill-days:3660}")
+    private int maxBackfillDays;
+
+    @Value("${analytics.timeseries.refresh-days:2}")
+    private int refreshDays;
+
+    private final AtomicBoolean backfilling = new AtomicBoolean();
+
+    @Async(AsyncConfig.ORDER_EVENTS_EXECUTOR)
+    @EventListener
+    public void onOrderPaid(OrderPaidEvent event) {
+        Order order = event.order();
+        Instant paidAt = order.getPaidAt() != null ? order.getPaidAt() : event.occurredAt();
+        try {
+            record(order, event.lines(), paidAt, 1);
+        } catch (RuntimeException e) {
+            log.warn("Could not record paid order {} in time series: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    @Async(AsyncConfig.ORDER_EVENTS_EXECUTOR)
+    @EventListener
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        Order order = event.order();
+        if (event.previousStatus() != OrderStatus.PAID || order.getPaidAt() == null) {
+            return;
+        }
+        try {
+            record(order, event.lines(), order.getPaidAt(), -1);
+        } catch (RuntimeException e) {
+            log.warn("Could not reverse cancelled order {} in time series: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    private void record(Order order, List<OrderLine> lines, Instant paidAt, int sign) {
+        long units = 0;
+        for (OrderLine line : lines) {
+            units += line.quantity();
+        }
+        int valueIndex = new RelativeErrorSketch(relativeAccuracy).indexOf(order.getTotalAmount());
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesTimeseriesBucket.class);
+        for (Granularity granularity : Granularity.values()) {
+            Instant start = paidAt.truncatedTo(granularity.unit);
+            Update update = new Update()
+                    .inc("orders", sign)
+                    .inc("revenue", sign * order.getTotalAmount())
+                    .inc("units", sign * units)
+                    .inc("orderValueSketch." + valueIndex, sign)
+                    .setOnInsert("granularity", granularity.key)
+                    .setOnInsert("start", start);
+            if (granularity.retention != null) {
+                update.setOnInsert("expireAt", start.plus(granularity.retention));
+            }
+            bulk.upsert(new Query(Criteria.where("id").is(bucketId(granularity, start))), update);
+        }
+        bulk.execute();
+    }
+
+    private static String bucketId(Granularity granularity, Instant start) {
+        return granularity.key + ":" + start;
+    }
+
+    @Scheduled(cron = "${analytics.timeseries.refresh-cron:0 20 0 * * *}", zone = "UTC")
+    public void refreshRecentDays() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        try {
+            backfill(today.minusDays(refreshDays), today);
+        } catch (BadRequestException e) {
+            log.debug("Skipping time series refresh: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Sales time series refresh failed", e);
+        }
+    }
+
+    /**
+     * Recomputes every bucket of the UTC days [from, toExclusive) from the paid
+     * orders in the orders collection, keyed by paidAt. Today is excluded because it
+     * is still receiving increments, and minute and hour buckets older than their
+     * retention are not recreated. Running it again is harmless.
+     */
+    public Map<String, Object> backfill(LocalDate from, LocalDate toExclusive) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        if (toExclusive.isAfter(today)) {
+            toExclusive = today;
+        }
+        if (!from.isBefore(toExclusive)) {
+            throw new BadRequestException("Backfill range is empty; it must end before today (UTC)");
+        }
+        if (ChronoUnit.DAYS.between(from, toExclusive) > maxBackfillDays) {
+            throw new BadRequestException("Backfill range is limited to " + maxBackfillDays + " days");
+        }
+        if (!backfilling.compareAndSet(false, true)) {
+            throw new BadRequestException("A time series backfill is already in progress");
+        }
+        try {
+            Instant start = from.atStartOfDay(ZoneOffset.UTC).toInstant();
+            Instant end = toExclusive.atStartOfDay(ZoneOffset.UTC).toInstant();
+            Instant now = Instant.now();
+
+            Map<String, SalesTimeseriesBucket> buckets = new HashMap<>();
+            Map<String, RelativeErrorSketch> sketches = new HashMap<>();
+            long orders = 0;
+            try (Stream<Document> rows = mongoTemplate.aggregateStream(paidOrders(start, end), "orders", Document.class)) {
+                for (Document row : (Iterable<Document>) rows::iterator) {
+                    Instant paidAt = row.getDate("paidAt").toInstant();
+                    double amount = ((Number) row.get("totalAmount")).doubleValue();
+                    long units = ((Number) row.get("units")).longValue();
+                    for (Granularity granularity : Granularity.values()) {
+                        Instant bucketStart = paidAt.truncatedTo(granularity.unit);
+                        if (granularity.retention != null && !bucketStart.plus(granularity.retention).isAfter(now)) {
+                            continue;
+                        }
+                        String id = bucketId(granularity, bucketStart);
+                        SalesTimeseriesBucket bucket = buckets.computeIfAbsent(id, key -> {
+                            SalesTimeseriesBucket fresh = new SalesTimeseriesBucket();
+                            fresh.setGranularity(granularity.key);
+                            fresh.setStart(bucketStart);
+                            if (granularity.retention != null) {
+                                fresh.setExpireAt(bucketStart.plus(granularity.retention));
+                            }
+                            return fresh;
+                        });
+                        bucket.setOrders(bucket.getOrders() + 1);
+                        bucket.setRevenue(bucket.getRevenue() + amount);
+                        bucket.setUnits(bucket.getUnits() + units);
+                        sketches.computeIfAbsent(id, key -> new RelativeErrorSketch(relativeAccuracy)).add(amount);
+                    }
+                    orders++;
+                }
+            }
+
+            // Zero the range first so buckets that no longer have paid orders are corrected too
+            mongoTemplate.updateMulti(
+                    new Query(Criteria.where("start").gte(start).lt(end)),
+                    new Update().set("orders", 0L).set("revenue", 0.0).set("units", 0L)
+                            .set("orderValueSketch", new Document()),
+                    SalesTimeseriesBucket.class);
+            writeBuckets(buckets, sketches);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("from", from.toString());
+            result.put("to", toExclusive.minusDays(1).toString());
+            result.put("paidOrders", orders);
+            result.put("buckets", buckets.size());
+            return result;
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    /**
+     * Paid orders with paidAt in [start, end) and their unit counts. An order is
+     * never paid before it is created, so the createdAt bound lets the
+     * status_createdAt_id index narrow the scan.
+     */
+    private static Aggregation paidOrders(Instant start, Instant end) {
+        return newAggregation(
+                match(Criteria.where("status").is(OrderStatus.PAID)
+                        .and("createdAt").lt(end)
+                        .and("paidAt").gte(start).lt(end)),
+                project("totalAmount", "paidAt")
+                        .and(ConvertOperators.valueOf("_id").convertToString()).as("orderKey"),
+                lookup("order_items", "orderKey", "orderId", "items"),
+                project("totalAmount", "paidAt")
+                        .and(AccumulatorOperators.Sum.sumOf("items.quantity")).as("units"))
+                .withOptions(newAggregationOptions().allowDiskUse(true).build());
+    }
+
+    private void writeBuckets(Map<String, SalesTimeseriesBucket> buckets, Map<String, RelativeErrorSketch> sketches) {
+        BulkOperations bulk = null;
+        int pending = 0;
+        for (Map.Entry<String, SalesTimeseriesBucket> entry : buckets.entrySet()) {
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesTimeseriesBucket.class);
+            }
+            SalesTimeseriesBucket bucket = entry.getValue();
+            Update update = new Update()
+                    .set("orders", bucket.getOrders())
+                    .set("revenue", bucket.getRevenue())
+                    .set("units", bucket.getUnits())
+                    .set("orderValueSketch", sketches.get(entry.getKey()).toMap())
+                    .setOnInsert("granularity", bucket.getGranularity())
+                    .setOnInsert("start", bucket.getStart());
+            if (bucket.getExpireAt() != null) {
+                update.setOnInsert("expireAt", bucket.getExpireAt());
+            }
+            bulk.upsert(new Query(Criteria.where("id").is(entry.getKey())), update);
+            if (++pending == BULK_BATCH_SIZE) {
+                bulk.execute();
+                bulk = null;
+                pending = 0;
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+    }
+
+    /**
+     * Buckets in [from, to), aligned to the granularity and zero-filled, plus a
+     * total whose percentiles come from merging every bucket's sketch
+     */
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public TimeseriesResponse getTimeseries(Instant from, Instant to, Granularity granularity) {
+        Instant alignedFrom = from.truncatedTo(granularity.unit);
+        if (!alignedFrom.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        long points = (Duration.between(alignedFrom, to).toMillis() + granularity.unit.getDuration().toMillis() - 1)
+                / granularity.unit.getDuration().toMillis();
+        if (points > maxPoints) {
+            throw new BadRequestException("Range spans " + points + " " + granularity.key
+                    + " buckets; at most " + maxPoints + " are allowed. Use a coarser granularity.");
+        }
+
+        Query query = new Query(Criteria.where("granularity").is(granularity.key)
+                .and("start").gte(alignedFrom).lt(to))
+                .with(Sort.by(Sort.Direction.ASC, "start"));
+        Iterator<SalesTimeseriesBucket> buckets = mongoTemplate.find(query, SalesTimeseriesBucket.class).iterator();
+        SalesTimeseriesBucket next = buckets.hasNext() ? buckets.next() : null;
+
+        RelativeErrorSketch totalSketch = new RelativeErrorSketch(relativeAccuracy);
+        TimeseriesPoint total = new TimeseriesPoint(alignedFrom);
+        List<TimeseriesPoint> series = new ArrayList<>((int) points);
+        for (Instant start = alignedFrom; start.isBefore(to); start = start.plus(1, granularity.unit)) {
+            TimeseriesPoint point = new TimeseriesPoint(start);
+            if (next != null && next.getStart().equals(start)) {
+                RelativeErrorSketch sketch = new RelativeErrorSketch(relativeAccuracy);
+                sketch.merge(next.getOrderValueSketch());
+                totalSketch.merge(next.getOrderValueSketch());
+                point.setOrders(next.getOrders());
+                point.setRevenue(next.getRevenue());
+                point.setUnits(next.getUnits());
+                point.setOrderValueSketch(sketch.toMap());
+                applyPercentiles(point, sketch);
+                next = buckets.hasNext() ? buckets.next() : null;
+            }
+            total.setOrders(total.getOrders() + point.getOrders());
+            total.setRevenue(total.getRevenue() + point.getRevenue());
+            total.setUnits(total.getUnits() + point.getUnits());
+            series.add(point);
+        }
+        total.setOrderValueSketch(totalSketch.toMap());
+        applyPercentiles(total, totalSketch);
+
+        return new TimeseriesResponse(granularity.key, alignedFrom, to, relativeAccuracy, total, series);
+    }
+
+    private static void applyPercentiles(TimeseriesPoint point, RelativeErrorSketch sketch) {
+        point.setP50(sketch.quantile(0.5));
+        point.setP90(sketch.quantile(0.9));
+        point.setP99(sketch.quantile(0.99));
+    }
+}
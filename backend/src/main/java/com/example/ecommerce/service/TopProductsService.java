@@ -0,0 +1,339 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.config.AsyncConfig;
+import com.example.ecommerce.config.MetricsConfig;
+import com.example.ecommerce.dto.TopProductEstimate;
+import com.example.ecommerce.event.OrderLine;
+import com.example.ecommerce.event.OrderPaidEvent;
+import com.example.ecommerce.exception.BadRequestException;
+import com.example.ecommerce.model.TopProductsSnapshot;
+import com.example.ecommerce.util.SpaceSavingSketch;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Approximate best sellers for the last hour, day and 30 days, answered from
+ * memory.
+ *
+ * Each window is a ring of time buckets, each bucket a {@link SpaceSavingSketch}
+ * fed with units sold on every successful payment. A query merges the live
+ * buckets; the result is cached for {@code query-cache-ms}, so repeated
+ * dashboard polls are a volatile read. Buckets are snapshotted to Mongo
+ * periodically and on shutdown, one document per window and node, and restored
+ * on startup. A node also takes over the snapshots of nodes that shut down or
+ * stopped saving, merging them into its own sketch; removing the document is
+ * the claim, so no snapshot is counted twice. Each node ranks the orders it has
+ * seen itself plus what it took over. Cancellations are not
+ * subtracted: Space-Saving only supports increments. Use the exact endpoint when
+ * that matters.
+ */
+@Service
+public class TopProductsService {
+
+    private static final Logger log = LoggerFactory.getLogger(TopProductsService.class);
+
+    public enum Window {
+        HOUR("1h", Duration.ofMinutes(5), 12),
+        DAY("24h", Duration.ofHours(1), 24),
+        MONTH("30d", Duration.ofDays(1), 30);
+
+        private final String key;
+        private final long bucketMillis;
+        private final int bucketCount;
+
+        Window(String key, Duration bucketSize, int bucketCount) {
+            this.key = key;
+            this.bucketMillis = bucketSize.toMillis();
+            this.bucketCount = bucketCount;
+        }
+
+        public String getKey() { return key; }
+
+        public Duration length() {
+            return Duration.ofMillis(bucketMillis * bucketCount);
+        }
+
+        public static Window fromKey(String key) {
+            for (Window window : values()) {
+                if (window.key.equalsIgnoreCase(key)) {
+                    return window;
+                }
+            }
+            throw new BadRequestException("Unknown window '" + key + "', expected one of 1h, 24h, 30d");
+        }
+    }
+
+    private record Ranking(List<SpaceSavingSketch.Estimate> entries, long floor, long computedAtMillis) {
+    }
+
+    /**
+     * Ring of per-bucket sketches for one window. The bucket for a timestamp is
+     * reset the first time the ring wraps around onto it.
+     */
+    private static final class BucketedSketch {
+        private final Window window;
+        private final int capacity;
+        private final SpaceSavingSketch[] sketches;
+        private final long[] starts;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Ranking ranking;
+
+        private BucketedSketch(Window window, int capacity) {
+            this.window = window;
+            this.capacity = capacity;
+            this.sketches = new SpaceSavingSketch[window.bucketCount];
+            this.starts = new long[window.bucketCount];
+        }
+
+        private void add(String productId, long units, long atMillis) {
+            lock.lock();
+            try {
+                long start = atMillis - Math.floorMod(atMillis, window.bucketMillis);
+                int slot = (int) Math.floorMod(atMillis / window.bucketMillis, (long) window.bucketCount);
+                if (sketches[slot] == null || starts[slot] != start) {
+                    if (sketches[slot] != null && starts[slot] > start) {
+                        return; // event older than the window this slot now holds
+                    }
+                    sketches[slot] = new SpaceSavingSketch(capacity);
+                    starts[slot] = start;
+                }
+                sketches[slot].add(productId, units);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isLive(int slot, long nowMillis) {
+            return sketches[slot] != null && starts[slot] > nowMillis - window.length().toMillis();
+        }
+
+        private Ranking rank(long nowMillis) {
+            lock.lock();
+            try {
+                List<SpaceSavingSketch> live = new ArrayList<>();
+                for (int i = 0; i < sketches.length; i++) {
+                    if (isLive(i, nowMillis)) {
+                        live.add(sketches[i]);
+                    }
+                }
+                SpaceSavingSketch merged = SpaceSavingSketch.merge(capacity, live);
+                return new Ranking(merged.entries(), merged.minCount(), nowMillis);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private TopProductsSnapshot snapshot(String node, boolean closed, long nowMillis) {
+            lock.lock();
+            try {
+                TopProductsSnapshot snapshot = new TopProductsSnapshot();
+                snapshot.setId(TopProductsSnapshot.idFor(window.key, node));
+                snapshot.setWindow(window.key);
+                snapshot.setNode(node);
+                snapshot.setCapacity(capacity);
+                snapshot.setClosed(closed);
+                snapshot.setSavedAt(Instant.ofEpochMilli(nowMillis));
+                snapshot.setExpireAt(Instant.ofEpochMilli(nowMillis).plus(window.length()));
+                for (int i = 0; i < sketches.length; i++) {
+                    if (!isLive(i, nowMillis)) {
+                        continue;
+                    }
+                    TopProductsSnapshot.Bucket bucket = new TopProductsSnapshot.Bucket();
+                    bucket.setStartMillis(starts[i]);
+                    for (SpaceSavingSketch.Estimate estimate : sketches[i].entries()) {
+                        TopProductsSnapshot.Entry entry = new TopProductsSnapshot.Entry();
+                        entry.setProductId(estimate.key());
+                        entry.setCount(estimate.count());
+                        entry.setError(estimate.error());
+                        bucket.getEntries().add(entry);
+                    }
+                    snapshot.getBuckets().add(bucket);
+                }
+                return snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Adds a snapshot's live buckets to this sketch, merging buckets that
+         * cover the same period
+         */
+        private void merge(TopProductsSnapshot snapshot, long nowMillis) {
+            lock.lock();
+            try {
+                for (TopProductsSnapshot.Bucket bucket : snapshot.getBuckets()) {
+                    if (bucket.getStartMillis() <= nowMillis - window.length().toMillis()) {
+                        continue;
+                    }
+                    List<SpaceSavingSketch.Estimate> entries = new ArrayList<>(bucket.getEntries().size());
+                    for (TopProductsSnapshot.Entry entry : bucket.getEntries()) {
+                        entries.add(new SpaceSavingSketch.Estimate(entry.getProductId(), entry.getCount(), entry.getError()));
+                    }
+                    SpaceSavingSketch restored = SpaceSavingSketch.restore(capacity, entries);
+                    int slot = (int) Math.floorMod(bucket.getStartMillis() / window.bucketMillis, (long) window.bucketCount);
+                    if (sketches[slot] == null || starts[slot] < bucket.getStartMillis()) {
+                        sketches[slot] = restored;
+                        starts[slot] = bucket.getStartMillis();
+                    } else if (starts[slot] == bucket.getStartMillis()) {
+                        sketches[slot] = SpaceSavingSketch.merge(capacity, List.of(sketches[slot], restored));
+                    }
+                }
+                ranking = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${analytics.topk.capacity:1000}")
+    private int capacity;
+
+    @Value("${analytics.topk.query-cache-ms:1000}")
+    private long queryCacheMs;
+
+    @Value("${analytics.topk.node-id:${HOSTNAME:}}")
+    private String nodeId;
+
+    @Value("${analytics.topk.orphan-after-ms:600000}")
+    private long orphanAfterMs;
+
+    private final Map<Window, BucketedSketch> windows = new EnumMap<>(Window.class);
+
+    @PostConstruct
+    void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = localHostName();
+        }
+        long now = System.currentTimeMillis();
+        for (Window window : Window.values()) {
+            BucketedSketch sketch = new BucketedSketch(window, capacity);
+            adopt(sketch, true, now);
+            windows.put(window, sketch);
+        }
+    }
+
+    private static String localHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    /**
+     * Claims and merges this window's snapshots that no live node owns: ones
+     * saved on shutdown, or not refreshed for {@code orphan-after-ms}. On
+     * startup the node's own snapshot is claimed too.
+     */
+    private void adopt(BucketedSketch sketch, boolean includeOwn, long now) {
+        Criteria orphaned = new Criteria().orOperator(
+                Criteria.where("closed").is(true),
+                Criteria.where("savedAt").lt(Instant.ofEpochMilli(now - orphanAfterMs)));
+        Criteria claimable = includeOwn
+                ? new Criteria().orOperator(Criteria.where("node").is(nodeId), orphaned)
+                : new Criteria().andOperator(Criteria.where("node").ne(nodeId), orphaned);
+        Query query = new Query(Criteria.where("window").is(sketch.window.key).and("capacity").is(capacity)
+                .andOperator(claimable));
+        TopProductsSnapshot snapshot;
+        while ((snapshot = mongoTemplate.findAndRemove(query, TopProductsSnapshot.class)) != null) {
+            sketch.merge(snapshot, now);
+            if (!nodeId.equals(snapshot.getNode())) {
+                log.info("Took over top-products window {} from node {}", sketch.window.key, snapshot.getNode());
+            }
+        }
+    }
+
+    @Async(AsyncConfig.ORDER_EVENTS_EXECUTOR)
+    @EventListener
+    public void onOrderPaid(OrderPaidEvent event) {
+        try {
+            long at = event.occurredAt().toEpochMilli();
+            for (OrderLine line : event.lines()) {
+                for (BucketedSketch sketch : windows.values()) {
+                    sketch.add(line.productId(), line.quantity(), at);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not record order {} in top-products sketch: {}", event.order().getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Top {@code limit} products for the window. Each entry carries its maximum
+     * overestimate, and is flagged guaranteed when even its lower bound beats
+     * the next candidate's upper bound.
+     */
+    @Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+    public List<TopProductEstimate> getTopProducts(Window window, int limit) {
+        int k = Math.max(1, Math.min(limit, capacity));
+        BucketedSketch sketch = windows.get(window);
+        long now = System.currentTimeMillis();
+        Ranking ranking = sketch.ranking;
+        if (ranking == null || now - ranking.computedAtMillis() > queryCacheMs) {
+            ranking = sketch.rank(now);
+            sketch.ranking = ranking;
+        }
+
+        List<SpaceSavingSketch.Estimate> entries = ranking.entries();
+        long nextBest = k < entries.size() ? entries.get(k).count() : ranking.floor();
+        List<TopProductEstimate> top = new ArrayList<>(Math.min(k, entries.size()));
+        for (int i = 0; i < k && i < entries.size(); i++) {
+            SpaceSavingSketch.Estimate estimate = entries.get(i);
+            top.add(new TopProductEstimate(estimate.key(), estimate.count(), estimate.error(),
+                    estimate.lowerBound() >= nextBest));
+        }
+        return top;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.topk.snapshot-interval-ms:60000}",
+               initialDelayString = "${analytics.topk.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        save(false);
+    }
+
+    private void save(boolean closing) {
+        long now = System.currentTimeMillis();
+        for (BucketedSketch sketch : windows.values()) {
+            try {
+                if (!closing) {
+                    adopt(sketch, false, now);
+                }
+                mongoTemplate.save(sketch.snapshot(nodeId, closing, now));
+            } catch (RuntimeException e) {
+                log.warn("Could not snapshot top-products window {}: {}", sketch.window.key, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        save(true);
+    }
+}
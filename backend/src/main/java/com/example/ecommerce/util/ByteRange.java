@@ -0,0 +1,56 @@
+package com.example.ecommerce.util;
+
+/**
+ * A single satisfiable byte range of a representation, both ends inclusive.
+ */
+public record ByteRange(long start, long end) {
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public String contentRange(long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+
+    public static ByteRange full(long size) {
+        return new ByteRange(0, size - 1);
+    }
+
+    /**
+     * Parses a {@code Range} header against a representation of {@code size} bytes.
+     * Returns the whole representation when the header is absent, is not a byte
+     * range, or asks for several ranges (servers may ignore those), and null when
+     * the range cannot be satisfied.
+     */
+    public static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return full(size);
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return full(size);
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the final N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return null;
+                }
+                return new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start < 0 || start >= size || end < start) {
+                return null;
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return full(size);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.ecommerce.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes part of a file to a servlet response without copying it onto the heap.
+ *
+ * When the connector offers sendfile (Tomcat NIO does for responses it has not
+ * started writing), the file region is handed to the connector and the kernel
+ * copies it straight to the socket. Otherwise the region is pushed through
+ * {@link FileChannel#transferTo}, which moves it in small chunks. Content that
+ * is already in memory, e.g. in a direct buffer, is written from a slice of it.
+ */
+public final class FileRegionWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileRegionWriter() {
+    }
+
+    /**
+     * Opens the file before touching the response, so a missing file surfaces as
+     * {@link java.nio.file.NoSuchFileException} while the response can still be reset.
+     */
+    public static void write(HttpServletRequest request, HttpServletResponse response,
+                             Path file, ByteRange range) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            response.setContentLengthLong(range.length());
+            if ("HEAD".equals(request.getMethod()) || range.length() == 0) {
+                return;
+            }
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, range.start());
+                // Tomcat's end offset is exclusive
+                request.setAttribute(SENDFILE_END, range.end() + 1);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    public static void write(HttpServletRequest request, HttpServletResponse response,
+                             ByteBuffer content, ByteRange range) throws IOException {
+        response.setContentLengthLong(range.length());
+        if ("HEAD".equals(request.getMethod()) || range.length() == 0) {
+            return;
+        }
+        ByteBuffer region = content.duplicate();
+        region.limit((int) range.end() + 1).position((int) range.start());
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        while (region.hasRemaining()) {
+            out.write(region);
+        }
+    }
+}
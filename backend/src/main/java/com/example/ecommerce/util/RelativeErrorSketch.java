@@ -0,0 +1,87 @@
+package com.example.ecommerce.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Quantile sketch with relative accuracy, in the style of DDSketch. Values are
+ * counted in logarithmic buckets {@code (gamma^(i-1), gamma^i]}, where
+ * {@code gamma = (1 + alpha) / (1 - alpha)}. Every quantile is therefore within a factor
+ * {@code alpha} of the true value.
+ *
+ * Buckets are plain counts keyed by index. That makes sketches mergeable by
+ * summing, and updatable in Mongo with {@code $inc} on {@code field.<index>}.
+ */
+public class RelativeErrorSketch {
+
+    private static final double MIN_VALUE = 1e-2;
+
+    private final double gamma;
+    private final double logGamma;
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long totalCount;
+
+    public RelativeErrorSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1)");
+        }
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /** Bucket index for a value; values below 0.01 share the lowest bucket */
+    public int indexOf(double value) {
+        return (int) Math.ceil(Math.log(Math.max(value, MIN_VALUE)) / logGamma);
+    }
+
+    public void add(double value) {
+        add(indexOf(value), 1);
+    }
+
+    public void add(int index, long count) {
+        long updated = counts.merge(index, count, Long::sum);
+        if (updated <= 0) {
+            counts.remove(index);
+        }
+        totalCount += count;
+    }
+
+    /** Adds counts serialized by {@link #toMap()} (or maintained in Mongo with $inc) */
+    public void merge(Map<String, ? extends Number> serialized) {
+        if (serialized == null) {
+            return;
+        }
+        for (Map.Entry<String, ? extends Number> entry : serialized.entrySet()) {
+            add(Integer.parseInt(entry.getKey()), entry.getValue().longValue());
+        }
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Value at quantile {@code q} in [0, 1], or null if the sketch is empty
+     */
+    public Double quantile(double q) {
+        if (totalCount <= 0) {
+            return null;
+        }
+        long rank = (long) Math.floor(q * (totalCount - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            seen += entry.getValue();
+            if (seen > rank) {
+                // Midpoint of the bucket in relative terms, which keeps the error within alpha
+                return 2 * Math.pow(gamma, entry.getKey()) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, counts.lastKey()) / (gamma + 1);
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> map = new TreeMap<>();
+        counts.forEach((index, count) -> map.put(String.valueOf(index), count));
+        return map;
+    }
+}
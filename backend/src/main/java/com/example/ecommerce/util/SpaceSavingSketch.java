@@ -0,0 +1,196 @@
+package com.example.ecommerce.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitters summary (Metwally et al.) holding at most
+ * {@code capacity} counters. Any key whose true total exceeds
+ * {@code totalWeight / capacity} is guaranteed to be tracked. Each estimate
+ * overcounts by at most its {@code error}, so {@code count - error} is a lower bound.
+ *
+ * Counters sit in a min-heap so replacing the smallest one is O(log capacity).
+ * Not thread-safe; callers synchronize.
+ */
+public class SpaceSavingSketch {
+
+    public record Estimate(String key, long count, long error) {
+
+        public long lowerBound() {
+            return count - error;
+        }
+    }
+
+    private static final class Counter {
+        private String key;
+        private long count;
+        private long error;
+        private int index;
+
+        private Counter(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private static final Comparator<Estimate> BY_COUNT_DESC =
+            Comparator.comparingLong(Estimate::count).reversed().thenComparing(Estimate::key);
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private int size;
+    private long totalWeight;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    public void add(String key, long weight) {
+        totalWeight += weight;
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += weight;
+            siftDown(counter.index);
+            return;
+        }
+        if (size < capacity) {
+            counter = new Counter(key, weight, 0);
+            counter.index = size;
+            heap[size++] = counter;
+            counters.put(key, counter);
+            siftUp(counter.index);
+            return;
+        }
+        // Evict the smallest counter; the newcomer inherits its count as possible overcount
+        Counter min = heap[0];
+        counters.remove(min.key);
+        min.key = key;
+        min.error = min.count;
+        min.count += weight;
+        counters.put(key, min);
+        siftDown(0);
+    }
+
+    /** Smallest tracked count; any untracked key occurred at most this often */
+    public long minCount() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** All tracked counters, highest count first */
+    public List<Estimate> entries() {
+        List<Estimate> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Estimate(heap[i].key, heap[i].count, heap[i].error));
+        }
+        entries.sort(BY_COUNT_DESC);
+        return entries;
+    }
+
+    /**
+     * Combines summaries of disjoint streams. A key missing from one part may
+     * still have occurred there up to that part's {@link #minCount()} times, which
+     * is added to both its count and its error so the bounds stay valid.
+     */
+    public static SpaceSavingSketch merge(int capacity, List<SpaceSavingSketch> parts) {
+        Map<String, long[]> combined = new HashMap<>();
+        long minSum = 0;
+        long totalWeight = 0;
+        for (SpaceSavingSketch part : parts) {
+            minSum += part.minCount();
+            totalWeight += part.totalWeight;
+        }
+        long floor = minSum;
+        for (SpaceSavingSketch part : parts) {
+            long partMin = part.minCount();
+            for (int i = 0; i < part.size; i++) {
+                Counter counter = part.heap[i];
+                // Start from the sum of every part's floor, then swap this part's floor for its real counter
+                long[] value = combined.computeIfAbsent(counter.key, k -> new long[] {floor, floor});
+                value[0] += counter.count - partMin;
+                value[1] += counter.error - partMin;
+            }
+        }
+        List<Estimate> estimates = new ArrayList<>(combined.size());
+        combined.forEach((key, value) -> estimates.add(new Estimate(key, value[0], value[1])));
+        estimates.sort(BY_COUNT_DESC);
+        SpaceSavingSketch merged = restore(capacity,
+                estimates.subList(0, Math.min(capacity, estimates.size())));
+        merged.totalWeight = totalWeight;
+        return merged;
+    }
+
+    /** Rebuilds a sketch from previously exported {@link #entries()} */
+    public static SpaceSavingSketch restore(int capacity, List<Estimate> entries) {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        for (Estimate estimate : entries) {
+            if (sketch.size == capacity) {
+                break;
+            }
+            Counter counter = new Counter(estimate.key(), estimate.count(), estimate.error());
+            counter.index = sketch.size;
+            sketch.heap[sketch.size++] = counter;
+            sketch.counters.put(counter.key, counter);
+            sketch.siftUp(counter.index);
+            sketch.totalWeight += estimate.count() - estimate.error();
+        }
+        return sketch;
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.index = index;
+    }
+}
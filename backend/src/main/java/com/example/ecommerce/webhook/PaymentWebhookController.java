@@ -3,8 +3,10 @@ package com.example.ecommerce.webhook;
 import com.example.ecommerce.service.PaymentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,45 +18,49 @@ import java.util.Map;
 @Tag(name = "Webhooks", description = "Payment webhook handlers")
 public class PaymentWebhookController {
     
+    private static final Logger log = LoggerFactory.getLogger(PaymentWebhookController.class);
+    
     @Autowired
     private PaymentService paymentService;
     
-    @Value("${razorpay.webhook.secret:}")
-    private String webhookSecret;
+    @Autowired
+    private WebhookSignatureVerifier signatureVerifier;
+    
+    @Autowired
+    private WebhookEventParser eventParser;
     
     @PostMapping("/payment")
     @Operation(summary = "Razorpay webhook endpoint")
-    @SuppressWarnings("unchecked")
     public ResponseEntity<?> handlePaymentWebhook(
-            @RequestBody Map<String, Object> payload,
-            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature) {
+            @RequestBody byte[] body,
+            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
+        
+        // Signature is computed over the exact bytes Razorpay sent, so verify before parsing
+        if (!signatureVerifier.verify(body, signature)) {
+            log.warn("Rejected webhook with invalid signature (event id {})", eventId);
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid webhook signature");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
         
         try {
-            String event = (String) payload.get("event");
-            System.out.println("Received webhook event: " + event);
+            WebhookEvent webhookEvent = eventParser.parse(body, eventId);
+            String event = webhookEvent.event();
+            log.debug("Received webhook event {} ({})", event, eventId);
             
-            if ("payment.captured".equals(event) || "payment.authorized".equals(event)) {
-                Map<String, Object> payloadData = (Map<String, Object>) payload.get("payload");
-                Map<String, Object> paymentEntity = (Map<String, Object>) payloadData.get("payment");
-                Map<String, Object> entity = (Map<String, Object>) paymentEntity.get("entity");
-                
-                String razorpayPaymentId = (String) entity.get("id");
-                String razorpayOrderId = (String) entity.get("order_id");
-                
-                paymentService.handlePaymentSuccess(razorpayOrderId, razorpayPaymentId);
+            // Only a capture settles the order, as in reconciliation: an authorization can still be voided
+            if ("payment.captured".equals(event)) {
+                boolean transitioned = paymentService.handlePaymentSuccess(
+                        webhookEvent.orderId(), webhookEvent.paymentId());
                 
                 Map<String, String> response = new HashMap<>();
                 response.put("status", "success");
-                response.put("message", "Payment processed successfully");
+                response.put("message", transitioned ? "Payment processed successfully" : "Payment already processed");
                 return ResponseEntity.ok(response);
                 
             } else if ("payment.failed".equals(event)) {
-                Map<String, Object> payloadData = (Map<String, Object>) payload.get("payload");
-                Map<String, Object> paymentEntity = (Map<String, Object>) payloadData.get("payment");
-                Map<String, Object> entity = (Map<String, Object>) paymentEntity.get("entity");
-                
-                String razorpayOrderId = (String) entity.get("order_id");
-                paymentService.handlePaymentFailure(razorpayOrderId);
+                paymentService.handlePaymentFailure(webhookEvent.orderId());
                 
                 Map<String, String> response = new HashMap<>();
                 response.put("status", "success");
@@ -62,46 +68,14 @@ public class PaymentWebhookController {
                 return ResponseEntity.ok(response);
             }
             
+            // payment.authorized and anything else: acknowledge so Razorpay stops retrying, change nothing
             Map<String, String> response = new HashMap<>();
             response.put("status", "received");
             response.put("event", event);
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
-            System.err.println("Error processing webhook: " + e.getMessage());
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
-    }
-    
-    @PostMapping("/payment/test")
-    @Operation(summary = "Test webhook for local development")
-    public ResponseEntity<?> testWebhook(@RequestBody Map<String, Object> payload) {
-        try {
-            String razorpayOrderId = (String) payload.get("razorpay_order_id");
-            String razorpayPaymentId = (String) payload.get("razorpay_payment_id");
-            String status = (String) payload.get("status");
-            
-            if (razorpayOrderId == null) {
-                Map<String, String> error = new HashMap<>();
-                error.put("error", "razorpay_order_id is required");
-                return ResponseEntity.badRequest().body(error);
-            }
-            
-            if ("success".equalsIgnoreCase(status) || status == null) {
-                paymentService.handlePaymentSuccess(razorpayOrderId, 
-                    razorpayPaymentId != null ? razorpayPaymentId : "test_payment_id");
-            } else {
-                paymentService.handlePaymentFailure(razorpayOrderId);
-            }
-            
-            Map<String, String> response = new HashMap<>();
-            response.put("status", "processed");
-            response.put("message", "Test webhook processed successfully");
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
+            log.warn("Error processing webhook {}: {}", eventId, e.getMessage());
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(error);
@@ -0,0 +1,8 @@
+package com.example.ecommerce.webhook;
+
+/**
+ * The handful of Razorpay webhook fields we act on. Everything else in the
+ * payload is skipped by {@link WebhookEventParser} without being materialized.
+ */
+public record WebhookEvent(String event, String paymentId, String orderId, String eventId) {
+}
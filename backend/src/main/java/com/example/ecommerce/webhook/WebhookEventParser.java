@@ -0,0 +1,83 @@
+package com.example.ecommerce.webhook;
+
+import com.example.ecommerce.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Streams a Razorpay webhook body and pulls out {@code event} and
+ * {@code payload.payment.entity.{id,order_id}} without building a tree.
+ * Unrelated subtrees (notes, card details, acquirer data...) are skipped token by token.
+ */
+@Component
+public class WebhookEventParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public WebhookEvent parse(byte[] body, String eventId) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new BadRequestException("Webhook body must be a JSON object");
+            }
+            Fields fields = new Fields();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("event".equals(name) && value == JsonToken.VALUE_STRING) {
+                    fields.event = parser.getText();
+                } else if ("payload".equals(name) && value == JsonToken.START_OBJECT) {
+                    readObject(parser, "payment", () -> readObject(parser, "entity", () -> readEntity(parser, fields)));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new WebhookEvent(fields.event, fields.paymentId, fields.orderId, eventId);
+        } catch (IOException e) {
+            throw new BadRequestException("Malformed webhook body: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Walks the current object, descending into {@code field} and skipping every other member
+     */
+    private void readObject(JsonParser parser, String field, ObjectReader nested) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals(name) && value == JsonToken.START_OBJECT) {
+                nested.read();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readEntity(JsonParser parser, Fields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("id".equals(name) && value == JsonToken.VALUE_STRING) {
+                fields.paymentId = parser.getText();
+            } else if ("order_id".equals(name) && value == JsonToken.VALUE_STRING) {
+                fields.orderId = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ObjectReader {
+        void read() throws IOException;
+    }
+
+    private static final class Fields {
+        private String event;
+        private String paymentId;
+        private String orderId;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ecommerce.webhook;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Verifies {@code X-Razorpay-Signature}: hex HMAC-SHA256 of the raw request body
+ * keyed with the webhook secret. A {@link Mac} is initialized with the key once and
+ * each call clones it, which copies the keyed state instead of re-deriving it. A
+ * per-thread Mac would be rebuilt for every request on virtual threads.
+ */
+@Component
+public class WebhookSignatureVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookSignatureVerifier.class);
+    private static final String ALGORITHM = "HmacSHA256";
+
+    @Value("${razorpay.webhook.secret:}")
+    private String webhookSecret;
+
+    private Mac prototype;
+
+    @PostConstruct
+    void init() {
+        if (!isConfigured()) {
+            log.warn("razorpay.webhook.secret is not set; all Razorpay webhooks will be rejected");
+            return;
+        }
+        SecretKeySpec key = new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    public boolean isConfigured() {
+        return webhookSecret != null && !webhookSecret.isBlank();
+    }
+
+    public boolean verify(byte[] body, String signature) {
+        if (!isConfigured() || signature == null || signature.length() != 64) {
+            return false;
+        }
+        byte[] expected;
+        try {
+            expected = HexFormat.of().parseHex(signature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        byte[] actual = newMac().doFinal(body);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HmacSHA256 provider does not support cloning", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.ecommerce.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+            .withUserConfiguration(AsyncConfig.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+    @Test
+    void keepsBootsTaskExecutorAlongsideTheOrderEventsPool() {
+        runner.withPropertyValues("spring.task.execution.thread-name-prefix=app-task-").run(context -> {
+            ThreadPoolTaskExecutor executor = context.getBean(
+                    TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, ThreadPoolTaskExecutor.class);
+            assertEquals("app-task-", executor.getThreadNamePrefix());
+            assertInstanceOf(ThreadPoolTaskExecutor.class, context.getBean(AsyncConfig.ORDER_EVENTS_EXECUTOR));
+        });
+    }
+
+    @Test
+    void usesVirtualThreadsForTheTaskExecutorWhenEnabled() {
+        runner.withPropertyValues("spring.threads.virtual.enabled=true").run(context ->
+                assertInstanceOf(SimpleAsyncTaskExecutor.class, context.getBean(
+                        TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)));
+    }
+
+    @Test
+    void countsOrderEventsDroppedWhenTheQueueIsFull() {
+        runner.withPropertyValues("analytics.events.threads=1", "analytics.events.queue-capacity=1").run(context -> {
+            ThreadPoolTaskExecutor executor = context.getBean(AsyncConfig.ORDER_EVENTS_EXECUTOR, ThreadPoolTaskExecutor.class);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            executor.execute(() -> { });
+            executor.execute(() -> { });
+            executor.execute(() -> { });
+            release.countDown();
+
+            assertEquals(2.0, context.getBean(MeterRegistry.class).counter("order.events.dropped").count());
+        });
+    }
+
+    @Test
+    void streamingResponsesUseTheirOwnPool() {
+        new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class,
+                        WebMvcAutoConfiguration.class))
+                .withUserConfiguration(AsyncConfig.class)
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .run(context -> assertSame(context.getBean(AsyncConfig.MVC_ASYNC_EXECUTOR),
+                        ReflectionTestUtils.getField(context.getBean(RequestMappingHandlerAdapter.class), "taskExecutor")));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.service.FileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductImageCacheTest {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String SHORT = "public, max-age=300, must-revalidate";
+
+    @TempDir
+    Path dir;
+
+    private final FileService fileService = mock(FileService.class);
+    private final ProductController controller = new ProductController();
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.write(dir.resolve("image.jpg"), new byte[]{1, 2, 3, 4});
+        ReflectionTestUtils.setField(controller, "fileService", fileService);
+        ReflectionTestUtils.setField(controller, "immutableCacheControl", IMMUTABLE);
+        ReflectionTestUtils.setField(controller, "imageMaxAgeSeconds", 300L);
+    }
+
+    @Test
+    void versionedOriginalIsImmutable() throws IOException {
+        when(fileService.getProductImage("p1", null)).thenReturn(image(0));
+
+        assertEquals(IMMUTABLE, cacheControl("abc", null));
+    }
+
+    @Test
+    void versionedDerivativeIsImmutable() throws IOException {
+        when(fileService.getProductImage("p1", 320)).thenReturn(image(320));
+
+        assertEquals(IMMUTABLE, cacheControl("abc", 320));
+    }
+
+    @Test
+    void originalStandingInForADerivativeIsNotPinned() throws IOException {
+        when(fileService.getProductImage("p1", 320)).thenReturn(image(0));
+
+        assertEquals(SHORT, cacheControl("abc", 320));
+    }
+
+    @Test
+    void staleVersionIsNotPinned() throws IOException {
+        when(fileService.getProductImage("p1", null)).thenReturn(image(0));
+
+        assertEquals(SHORT, cacheControl("old", null));
+    }
+
+    private FileService.ProductImage image(int width) {
+        return new FileService.ProductImage(file, "image/jpeg", "abc", 4, 0, width);
+    }
+
+    private String cacheControl(String version, Integer width) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getImage("p1", version, width, new MockHttpServletRequest(), response);
+        assertEquals(200, response.getStatus());
+        return response.getHeader(HttpHeaders.CACHE_CONTROL);
+    }
+}
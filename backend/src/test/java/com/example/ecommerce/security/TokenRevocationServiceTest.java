@@ -0,0 +1,79 @@
+package com.example.ecommerce.security;
+
+import com.example.ecommerce.model.RevokedToken;
+import com.example.ecommerce.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+
+    private final JwtPrincipal principal = new JwtPrincipal("u1", "u1@example.com", "USER", "jti-1",
+            Instant.now(), Instant.now().plusSeconds(3600));
+
+    private TokenRevocationService service() {
+        TokenRevocationService service = new TokenRevocationService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "revokedTokenRepository", repository);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "tokenLifetimeMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "expectedEntries", 1000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(service, "syncIntervalMs", 2000L);
+        ReflectionTestUtils.setField(service, "syncOverlapMs", 30_000L);
+        return service;
+    }
+
+    @Test
+    void startsWithoutMongoAndChecksEveryTokenUntilRebuilt() {
+        when(mongoTemplate.count(any(Query.class), eq(RevokedToken.class)))
+                .thenThrow(new DataAccessResourceFailureException("no servers"));
+        when(repository.existsById(anyString())).thenReturn(true);
+        TokenRevocationService service = service();
+
+        service.init();
+
+        assertTrue(service.isRevoked(principal));
+        verify(repository).existsById("TOKEN:jti-1");
+    }
+
+    @Test
+    void syncRetriesTheBuild() {
+        when(mongoTemplate.count(any(Query.class), eq(RevokedToken.class)))
+                .thenThrow(new DataAccessResourceFailureException("no servers"));
+        TokenRevocationService service = service();
+        service.init();
+
+        reset(mongoTemplate);
+        when(mongoTemplate.count(any(Query.class), eq(RevokedToken.class))).thenReturn(0L);
+        when(mongoTemplate.stream(any(Query.class), eq(RevokedToken.class))).thenReturn(Stream.empty());
+        when(mongoTemplate.find(any(Query.class), eq(RevokedToken.class))).thenReturn(List.of());
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        service.sync();
+
+        assertFalse(service.isRevoked(principal));
+        verify(repository, never()).existsById(anyString());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.AdminOrderPage;
+import com.example.ecommerce.exception.BadRequestException;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.PaymentStatus;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AdminOrderServiceTest {
+
+    private static final Instant TO = Instant.parse("2024-06-15T00:00:00Z");
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private AdminOrderService service() {
+        AdminOrderService service = new AdminOrderService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(service, "maxPageSize", 100);
+        ReflectionTestUtils.setField(service, "maxResidualScanDays", 31L);
+        return service;
+    }
+
+    @Test
+    void rejectsResidualFilterWithoutDateRange() {
+        assertThrows(BadRequestException.class, () -> service().search(OrderStatus.PAID, null, null,
+                null, null, 5000.0, null, null, null));
+        assertThrows(BadRequestException.class, () -> service().search(OrderStatus.PAID, PaymentStatus.SUCCESS, null,
+                TO.minus(Duration.ofDays(7)), null, null, null, null, null));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void rejectsResidualFilterOverTooLongRange() {
+        assertThrows(BadRequestException.class, () -> service().search(null, PaymentStatus.SUCCESS, null,
+                TO.minus(Duration.ofDays(32)), TO, null, 100.0, null, null));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void acceptsResidualFilterWithinBoundedRange() {
+        service().search(OrderStatus.PAID, null, null, TO.minus(Duration.ofDays(31)), TO, 5000.0, null, null, null);
+
+        assertEquals("status_createdAt_id", executedQuery().getHint());
+    }
+
+    @Test
+    void userIdBoundsAnyResidualFilter() {
+        service().search(OrderStatus.PAID, PaymentStatus.SUCCESS, "u1", null, null, 10.0, 20.0, null, null);
+
+        assertEquals("userId_createdAt_id", executedQuery().getHint());
+    }
+
+    @Test
+    void singleEqualityFilterNeedsNoRange() {
+        service().search(null, PaymentStatus.FAILED, null, null, null, null, null, null, null);
+
+        assertEquals("paymentStatus_createdAt_id", executedQuery().getHint());
+    }
+
+    @Test
+    void cursorResumesAfterLastOrder() {
+        Instant createdAt = Instant.parse("2024-06-10T12:30:00.123Z");
+        ObjectId id = new ObjectId();
+
+        Document after = AdminOrderService.afterCursor(AdminOrderService.encodeCursor(createdAt, id.toHexString()))
+                .getCriteriaObject();
+
+        List<?> or = (List<?>) after.get("$or");
+        assertEquals(new Document("createdAt", new Document("$lt", createdAt)), or.get(0));
+        assertEquals(new Document("createdAt", createdAt).append("_id", new Document("$lt", id)), or.get(1));
+    }
+
+    @Test
+    void cursorKeepsNonObjectIdKeys() {
+        Instant createdAt = Instant.ofEpochMilli(1_718_000_000_000L);
+
+        Document after = AdminOrderService.afterCursor(AdminOrderService.encodeCursor(createdAt, "order:42"))
+                .getCriteriaObject();
+
+        List<?> or = (List<?>) after.get("$or");
+        assertEquals(new Document("createdAt", createdAt).append("_id", new Document("$lt", "order:42")), or.get(1));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(BadRequestException.class, () -> AdminOrderService.afterCursor("not a cursor"));
+        assertThrows(BadRequestException.class, () -> AdminOrderService.afterCursor("MTIz"));
+    }
+
+    @Test
+    void nextCursorPointsAtLastReturnedOrder() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = new Order("u1", 100.0);
+            order.setId(new ObjectId().toHexString());
+            order.setCreatedAt(TO.minusSeconds(i));
+            orders.add(order);
+        }
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(orders);
+
+        AdminOrderPage page = service().search(null, null, "u1", null, null, null, null, null, 2);
+
+        assertEquals(2, page.getOrders().size());
+        assertEquals(AdminOrderService.encodeCursor(orders.get(1).getCreatedAt(), orders.get(1).getId()),
+                page.getNextCursor());
+        assertEquals(3, executedQuery().getLimit());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        AdminOrderPage page = service().search(null, null, "u1", null, null, null, null, null, 2);
+
+        assertEquals(0, page.getOrders().size());
+        assertNull(page.getNextCursor());
+    }
+
+    private Query executedQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Order.class));
+        return query.getValue();
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.ImageBlob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the service against a map standing in for {@code image_blobs}, applying
+ * the same conditions the service's queries ask Mongo for
+ */
+class ImageBlobServiceTest {
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    @TempDir
+    Path uploadDir;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<String, ImageBlob> blobs = new HashMap<>();
+    private Runnable afterGcQuery = () -> { };
+    private ImageBlobService service;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ImageBlob.class))).thenAnswer(invocation -> {
+            Update update = invocation.getArgument(1);
+            Document setOnInsert = update.getUpdateObject().get("$setOnInsert", Document.class);
+            ImageBlob blob = blobs.computeIfAbsent(idOf(invocation.getArgument(0)), id -> {
+                ImageBlob created = new ImageBlob();
+                created.setId(id);
+                created.setPath(setOnInsert.getString("path"));
+                return created;
+            });
+            blob.setRefCount(blob.getRefCount() + 1);
+            blob.setUnreferencedSince(null);
+            return null;
+        });
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ImageBlob.class))).thenAnswer(invocation -> {
+            ImageBlob blob = blobs.get(idOf(invocation.getArgument(0)));
+            if (blob != null) {
+                blob.setRefCount(blob.getRefCount() - 1);
+            }
+            return blob;
+        });
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ImageBlob.class))).thenAnswer(invocation -> {
+            ImageBlob blob = blobs.get(idOf(invocation.getArgument(0)));
+            if (blob != null && blob.getRefCount() <= 0 && blob.getUnreferencedSince() == null) {
+                Update update = invocation.getArgument(1);
+                blob.setUnreferencedSince(update.getUpdateObject().get("$set", Document.class)
+                        .get("unreferencedSince", Instant.class));
+            }
+            return null;
+        });
+        when(mongoTemplate.find(any(Query.class), eq(ImageBlob.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Object cutoff = query.getQueryObject().get("unreferencedSince", Document.class).get("$lt");
+            Instant before = cutoff instanceof Date date ? date.toInstant() : (Instant) cutoff;
+            List<ImageBlob> expired = new ArrayList<>();
+            for (ImageBlob blob : blobs.values()) {
+                if (blob.getRefCount() <= 0 && blob.getUnreferencedSince() != null
+                        && blob.getUnreferencedSince().isBefore(before)) {
+                    expired.add(blob);
+                }
+            }
+            afterGcQuery.run();
+            return expired;
+        });
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(ImageBlob.class))).thenAnswer(invocation -> {
+            String id = idOf(invocation.getArgument(0));
+            ImageBlob blob = blobs.get(id);
+            return blob != null && blob.getRefCount() <= 0 ? blobs.remove(id) : null;
+        });
+
+        service = new ImageBlobService();
+        ReflectionTestUtils.setField(service, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(service, "gcGraceMs", Duration.ofHours(1).toMillis());
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        service.init();
+    }
+
+    private static String idOf(Query query) {
+        return query.getQueryObject().getString("id");
+    }
+
+    private static ByteArrayInputStream png(String content) {
+        byte[] tail = content.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[PNG_HEADER.length + tail.length];
+        System.arraycopy(PNG_HEADER, 0, bytes, 0, PNG_HEADER.length);
+        System.arraycopy(tail, 0, bytes, PNG_HEADER.length, tail.length);
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private void expireGracePeriod(String hash) {
+        blobs.get(hash).setUnreferencedSince(Instant.now().minus(Duration.ofHours(2)));
+    }
+
+    @Test
+    void identicalUploadsShareOneFileAndCountEachReference() throws IOException {
+        ImageBlobService.StoredBlob first = service.store(png("same pixels"));
+        ImageBlobService.StoredBlob second = service.store(png("same pixels"));
+
+        assertEquals(first.path(), second.path());
+        assertEquals(2, blobs.get(first.hash()).getRefCount());
+        assertEquals(1.0, meterRegistry.counter("image.blobs.deduplicated").count());
+        assertTrue(Files.exists(uploadDir.resolve(first.path())));
+        try (var temps = Files.list(uploadDir.resolve("tmp"))) {
+            assertEquals(0, temps.count());
+        }
+    }
+
+    @Test
+    void reuploadingTheSameImageToAProductKeepsIt() throws IOException {
+        ImageBlobService.StoredBlob current = service.store(png("product photo"));
+
+        // FileService stores the new upload, then releases what the product pointed at before
+        ImageBlobService.StoredBlob reupload = service.store(png("product photo"));
+        service.release(current.hash(), current.path());
+        service.collectGarbage();
+
+        assertEquals(1, blobs.get(reupload.hash()).getRefCount());
+        assertNull(blobs.get(reupload.hash()).getUnreferencedSince());
+        assertTrue(Files.exists(uploadDir.resolve(reupload.path())));
+    }
+
+    @Test
+    void uploadClaimingABlobTheSweepHasPickedSurvivesIt() throws IOException {
+        ImageBlobService.StoredBlob blob = service.store(png("racing pixels"));
+        service.release(blob.hash(), blob.path());
+        expireGracePeriod(blob.hash());
+
+        // The sweep has already selected the blob when a new upload of the same bytes lands
+        afterGcQuery = () -> {
+            try {
+                service.store(png("racing pixels"));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        service.collectGarbage();
+
+        assertNotNull(blobs.get(blob.hash()));
+        assertEquals(1, blobs.get(blob.hash()).getRefCount());
+        assertTrue(Files.exists(uploadDir.resolve(blob.path())));
+        assertEquals(0.0, meterRegistry.counter("image.blobs.collected").count());
+    }
+
+    @Test
+    void unreferencedBlobIsKeptUntilTheGracePeriodEnds() throws IOException {
+        ImageBlobService.StoredBlob blob = service.store(png("old photo"));
+        Path derivatives = Files.createDirectories(uploadDir.resolve("derivatives"));
+        Path thumbnail = Files.writeString(derivatives.resolve(blob.hash() + "_w200.jpg"), "thumb");
+
+        service.release(blob.hash(), blob.path());
+        assertNotNull(blobs.get(blob.hash()).getUnreferencedSince());
+        service.collectGarbage();
+        assertTrue(Files.exists(uploadDir.resolve(blob.path())));
+
+        expireGracePeriod(blob.hash());
+        service.collectGarbage();
+
+        assertFalse(Files.exists(uploadDir.resolve(blob.path())));
+        assertFalse(Files.exists(thumbnail));
+        assertNull(blobs.get(blob.hash()));
+        assertEquals(1.0, meterRegistry.counter("image.blobs.collected").count());
+    }
+
+    @Test
+    void legacyImageWithoutAHashIsDeletedAtOnce() throws IOException {
+        Path legacy = Files.writeString(uploadDir.resolve("product_1.jpg"), "legacy");
+        Path derivatives = Files.createDirectories(uploadDir.resolve("derivatives"));
+        Path thumbnail = Files.writeString(derivatives.resolve("product_1_w200.jpg"), "thumb");
+
+        service.release(null, "product_1.jpg");
+
+        assertFalse(Files.exists(legacy));
+        assertFalse(Files.exists(thumbnail));
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.exception.ServiceUnavailableException;
+import com.example.ecommerce.model.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderExportServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private OrderExportService service(int maxConcurrent) {
+        OrderExportService service = new OrderExportService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+        ReflectionTestUtils.setField(service, "maxConcurrent", maxConcurrent);
+        service.init();
+        return service;
+    }
+
+    @Test
+    void refusesExportsBeyondTheCap() {
+        OrderExportService service = service(1);
+        service.start(OrderExportService.Format.CSV, null, null, null);
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> service.start(OrderExportService.Format.CSV, null, null, null));
+    }
+
+    @Test
+    void freesTheSlotOnceTheBodyHasRun() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenAnswer(invocation -> Stream.empty());
+        OrderExportService service = service(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.start(OrderExportService.Format.CSV, null, null, null).writeTo(out);
+
+        assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("orderId,"));
+        StreamingResponseBody next = service.start(OrderExportService.Format.CSV, null, null, null);
+        next.writeTo(new ByteArrayOutputStream());
+    }
+
+    @Test
+    void freesTheSlotWhenTheExportFails() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenThrow(new IllegalStateException("cursor lost"));
+        OrderExportService service = service(1);
+
+        StreamingResponseBody body = service.start(OrderExportService.Format.NDJSON, null, null, null);
+        assertThrows(IllegalStateException.class, () -> body.writeTo(new ByteArrayOutputStream()));
+
+        service.start(OrderExportService.Format.NDJSON, null, null, null);
+    }
+}
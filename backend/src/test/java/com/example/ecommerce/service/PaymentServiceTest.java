@@ -0,0 +1,151 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.event.OrderLine;
+import com.example.ecommerce.event.OrderPaidEvent;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.model.PaymentStatus;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PaymentServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final OrderService orderService = mock(OrderService.class);
+    private final EmailOutboxService emailOutboxService = mock(EmailOutboxService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final PaymentService service = new PaymentService();
+
+    PaymentServiceTest() {
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "orderService", orderService);
+        ReflectionTestUtils.setField(service, "emailOutboxService", emailOutboxService);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+        when(orderService.linesOf(any(Order.class))).thenCallRealMethod();
+    }
+
+    private static Payment payment(PaymentStatus status) {
+        Payment payment = new Payment("o1", 1299.0);
+        payment.setId("p1");
+        payment.setRazorpayOrderId("rzp_o1");
+        payment.setStatus(status);
+        return payment;
+    }
+
+    private static Order order(OrderStatus status) {
+        Order order = new Order("u1", 1299.0);
+        order.setId("o1");
+        order.setStatus(status);
+        order.setLines(List.of(new OrderLine("labubu-1", 2)));
+        return order;
+    }
+
+    private void paymentFlips(Payment result) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Payment.class))).thenReturn(result);
+    }
+
+    @Test
+    void firstDeliveryQueuesTheEmailAndPaysTheOrderWithoutExtraReads() {
+        paymentFlips(payment(PaymentStatus.SUCCESS));
+        when(orderService.transitionStatus("o1", OrderStatus.CREATED, OrderStatus.PAID)).thenReturn(order(OrderStatus.PAID));
+
+        assertTrue(service.handlePaymentSuccess("rzp_o1", "pay_1"));
+
+        verify(emailOutboxService).enqueueOrderConfirmation("o1");
+        ArgumentCaptor<OrderPaidEvent> event = ArgumentCaptor.forClass(OrderPaidEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(List.of(new OrderLine("labubu-1", 2)), event.getValue().lines());
+        verify(mongoTemplate, never()).findOne(any(Query.class), eq(Payment.class));
+        verify(orderService, never()).linesOf(anyString());
+        verify(orderService, never()).findById(anyString());
+    }
+
+    @Test
+    void orderWithoutStoredLinesReadsThemFromItsItems() {
+        Order legacy = order(OrderStatus.PAID);
+        legacy.setLines(null);
+        paymentFlips(payment(PaymentStatus.SUCCESS));
+        when(orderService.transitionStatus("o1", OrderStatus.CREATED, OrderStatus.PAID)).thenReturn(legacy);
+        when(orderService.linesOf("o1")).thenReturn(List.of(new OrderLine("labubu-1", 2)));
+
+        service.handlePaymentSuccess("rzp_o1", "pay_1");
+
+        verify(orderService).linesOf("o1");
+    }
+
+    @Test
+    void duplicateDeliveryChangesNothing() {
+        paymentFlips(null);
+        when(mongoTemplate.findOne(any(Query.class), eq(Payment.class))).thenReturn(payment(PaymentStatus.SUCCESS));
+        when(orderService.findById("o1")).thenReturn(Optional.of(order(OrderStatus.PAID)));
+
+        assertFalse(service.handlePaymentSuccess("rzp_o1", "pay_1"));
+
+        verify(orderService, never()).transitionStatus(anyString(), any(), any());
+        verifyNoInteractions(emailOutboxService, eventPublisher);
+    }
+
+    @Test
+    void deliveryLosingTheRaceToFinishTheOrderLeavesTheWinnersEmailAlone() {
+        // This call flipped the payment, but a concurrent delivery settled the order first
+        paymentFlips(payment(PaymentStatus.SUCCESS));
+        when(orderService.transitionStatus("o1", OrderStatus.CREATED, OrderStatus.PAID)).thenReturn(null);
+        when(orderService.findById("o1")).thenReturn(Optional.of(order(OrderStatus.PAID)));
+
+        assertFalse(service.handlePaymentSuccess("rzp_o1", "pay_1"));
+
+        verify(emailOutboxService, never()).cancelOrderConfirmation(anyString());
+        verify(orderService, never()).updatePaymentStatus(any(), any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void redeliveryFinishesAnOrderLeftCreated() {
+        paymentFlips(null);
+        when(mongoTemplate.findOne(any(Query.class), eq(Payment.class))).thenReturn(payment(PaymentStatus.SUCCESS));
+        when(orderService.findById("o1")).thenReturn(Optional.of(order(OrderStatus.CREATED)));
+        when(orderService.transitionStatus("o1", OrderStatus.CREATED, OrderStatus.PAID)).thenReturn(order(OrderStatus.PAID));
+
+        assertTrue(service.handlePaymentSuccess("rzp_o1", "pay_1"));
+
+        verify(emailOutboxService).enqueueOrderConfirmation("o1");
+        verify(eventPublisher, times(1)).publishEvent(any(OrderPaidEvent.class));
+    }
+
+    @Test
+    void orderCancelledBeforeCaptureWithdrawsTheEmail() {
+        paymentFlips(payment(PaymentStatus.SUCCESS));
+        when(orderService.transitionStatus("o1", OrderStatus.CREATED, OrderStatus.PAID)).thenReturn(null);
+        when(orderService.findById("o1")).thenReturn(Optional.of(order(OrderStatus.CANCELLED)));
+
+        assertTrue(service.handlePaymentSuccess("rzp_o1", "pay_1"));
+
+        verify(emailOutboxService).cancelOrderConfirmation("o1");
+        verify(orderService).updatePaymentStatus(List.of("o1"), PaymentStatus.SUCCESS, null);
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ByteRangeTest {
+
+    @Test
+    void missingOrMultipleRangesMeanTheWholeFile() {
+        assertEquals(new ByteRange(0, 999), ByteRange.parse(null, 1000));
+        assertEquals(new ByteRange(0, 999), ByteRange.parse("bytes=0-1,5-9", 1000));
+        assertEquals(new ByteRange(0, 999), ByteRange.parse("items=0-1", 1000));
+    }
+
+    @Test
+    void parsesClosedOpenAndSuffixRanges() {
+        assertEquals(new ByteRange(100, 199), ByteRange.parse("bytes=100-199", 1000));
+        assertEquals(new ByteRange(500, 999), ByteRange.parse("bytes=500-", 1000));
+        assertEquals(new ByteRange(900, 999), ByteRange.parse("bytes=-100", 1000));
+        assertEquals(new ByteRange(0, 999), ByteRange.parse("bytes=-5000", 1000));
+    }
+
+    @Test
+    void clampsEndToTheLastByte() {
+        ByteRange range = ByteRange.parse("bytes=900-5000", 1000);
+        assertEquals(new ByteRange(900, 999), range);
+        assertEquals(100, range.length());
+        assertEquals("bytes 900-999/1000", range.contentRange(1000));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRanges() {
+        assertNull(ByteRange.parse("bytes=1000-", 1000));
+        assertNull(ByteRange.parse("bytes=200-100", 1000));
+        assertNull(ByteRange.parse("bytes=-0", 1000));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RelativeErrorSketchTest {
+
+    private static final double ACCURACY = 0.01;
+
+    @Test
+    void quantilesStayWithinRelativeAccuracy() {
+        RelativeErrorSketch sketch = new RelativeErrorSketch(ACCURACY);
+        double[] values = new double[50_000];
+        Random random = new Random(7);
+        for (int i = 0; i < values.length; i++) {
+            // Long-tailed order values between roughly 50 and 50,000
+            values[i] = 50 * Math.exp(random.nextDouble() * 7);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[] {0.5, 0.9, 0.99}) {
+            double exact = values[(int) Math.floor(q * (values.length - 1))];
+            double estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= exact * ACCURACY * 1.0001,
+                    "p" + (int) (q * 100) + " estimate " + estimate + " vs exact " + exact);
+        }
+    }
+
+    @Test
+    void mergingSerializedSketchesEqualsSketchingEverything() {
+        RelativeErrorSketch all = new RelativeErrorSketch(ACCURACY);
+        RelativeErrorSketch first = new RelativeErrorSketch(ACCURACY);
+        RelativeErrorSketch second = new RelativeErrorSketch(ACCURACY);
+        for (int i = 1; i <= 1000; i++) {
+            all.add(i);
+            (i % 2 == 0 ? first : second).add(i);
+        }
+
+        RelativeErrorSketch merged = new RelativeErrorSketch(ACCURACY);
+        merged.merge(first.toMap());
+        merged.merge(second.toMap());
+
+        assertEquals(all.getCount(), merged.getCount());
+        assertEquals(all.quantile(0.9), merged.quantile(0.9));
+    }
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        assertNull(new RelativeErrorSketch(ACCURACY).quantile(0.5));
+    }
+}
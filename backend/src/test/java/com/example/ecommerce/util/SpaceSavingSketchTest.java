@@ -0,0 +1,67 @@
+package com.example.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void isExactWhileUnderCapacity() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+        sketch.add("a", 5);
+        sketch.add("b", 2);
+        sketch.add("a", 1);
+
+        List<SpaceSavingSketch.Estimate> top = sketch.entries();
+        assertEquals(new SpaceSavingSketch.Estimate("a", 6, 0), top.get(0));
+        assertEquals(new SpaceSavingSketch.Estimate("b", 2, 0), top.get(1));
+    }
+
+    @Test
+    void boundsHoldOnSkewedStream() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(50);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Roughly Zipfian: a few keys dominate, with a long tail
+            String key = "p" + (int) Math.floor(Math.pow(random.nextDouble(), 3) * 5_000);
+            sketch.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        for (SpaceSavingSketch.Estimate estimate : sketch.entries()) {
+            long truth = exact.getOrDefault(estimate.key(), 0L);
+            assertTrue(estimate.count() >= truth, "count must never underestimate");
+            assertTrue(estimate.lowerBound() <= truth, "count - error must never overestimate");
+        }
+        assertEquals("p0", sketch.entries().get(0).key());
+    }
+
+    @Test
+    void mergeKeepsBounds() {
+        SpaceSavingSketch left = new SpaceSavingSketch(3);
+        SpaceSavingSketch right = new SpaceSavingSketch(3);
+        Map<String, Long> exact = new HashMap<>();
+        String[] stream = {"a", "a", "a", "b", "c", "d", "a", "e", "b", "b", "f", "a"};
+        for (int i = 0; i < stream.length; i++) {
+            (i % 2 == 0 ? left : right).add(stream[i], 1);
+            exact.merge(stream[i], 1L, Long::sum);
+        }
+
+        SpaceSavingSketch merged = SpaceSavingSketch.merge(3, List.of(left, right));
+        assertEquals(stream.length, merged.getTotalWeight());
+        assertEquals("a", merged.entries().get(0).key());
+        for (SpaceSavingSketch.Estimate estimate : merged.entries()) {
+            long truth = exact.getOrDefault(estimate.key(), 0L);
+            assertTrue(estimate.count() >= truth);
+            assertTrue(estimate.lowerBound() <= truth);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ecommerce.webhook;
+
+import com.example.ecommerce.service.PaymentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PaymentWebhookControllerTest {
+
+    private final PaymentService paymentService = mock(PaymentService.class);
+    private final WebhookSignatureVerifier signatureVerifier = mock(WebhookSignatureVerifier.class);
+    private final PaymentWebhookController controller = new PaymentWebhookController();
+
+    PaymentWebhookControllerTest() {
+        ReflectionTestUtils.setField(controller, "paymentService", paymentService);
+        ReflectionTestUtils.setField(controller, "signatureVerifier", signatureVerifier);
+        ReflectionTestUtils.setField(controller, "eventParser", new WebhookEventParser());
+        when(signatureVerifier.verify(any(), any())).thenReturn(true);
+    }
+
+    private static byte[] body(String event) {
+        return ("{\"event\":\"" + event + "\",\"payload\":{\"payment\":{\"entity\":"
+                + "{\"id\":\"pay_1\",\"order_id\":\"order_1\"}}}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void captureSettlesTheOrder() {
+        when(paymentService.handlePaymentSuccess("order_1", "pay_1")).thenReturn(true);
+
+        ResponseEntity<?> response = controller.handlePaymentWebhook(body("payment.captured"), "sig", "evt_1");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(paymentService).handlePaymentSuccess("order_1", "pay_1");
+    }
+
+    @Test
+    void authorizationIsAcknowledgedWithoutChangingTheOrder() {
+        ResponseEntity<?> response = controller.handlePaymentWebhook(body("payment.authorized"), "sig", "evt_2");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("status", "received", "event", "payment.authorized"), response.getBody());
+        verifyNoInteractions(paymentService);
+    }
+
+    @Test
+    void failureIsRecorded() {
+        controller.handlePaymentWebhook(body("payment.failed"), "sig", "evt_3");
+
+        verify(paymentService).handlePaymentFailure("order_1");
+    }
+
+    @Test
+    void badSignatureIsRejectedBeforeAnythingElse() {
+        when(signatureVerifier.verify(any(), any())).thenReturn(false);
+
+        ResponseEntity<?> response = controller.handlePaymentWebhook(body("payment.captured"), "sig", "evt_4");
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verifyNoInteractions(paymentService);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.ecommerce.webhook;
+
+import com.example.ecommerce.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WebhookEventParserTest {
+
+    private final WebhookEventParser parser = new WebhookEventParser();
+
+    private WebhookEvent parse(String json) {
+        return parser.parse(json.getBytes(StandardCharsets.UTF_8), "evt_1");
+    }
+
+    @Test
+    void readsTheFieldsWeActOn() {
+        WebhookEvent event = parse("""
+                {"entity":"event","account_id":"acc_1","event":"payment.captured",
+                 "payload":{"payment":{"entity":{"id":"pay_1","order_id":"order_1","amount":50000}}}}""");
+
+        assertEquals(new WebhookEvent("payment.captured", "pay_1", "order_1", "evt_1"), event);
+    }
+
+    @Test
+    void doesNotDependOnFieldOrder() {
+        WebhookEvent event = parse("""
+                {"payload":{"payment":{"entity":{"order_id":"order_1","id":"pay_1"}}},
+                 "created_at":1700000000,"event":"payment.failed"}""");
+
+        assertEquals(new WebhookEvent("payment.failed", "pay_1", "order_1", "evt_1"), event);
+    }
+
+    @Test
+    void skipsUnknownFieldsAndLookalikes() {
+        WebhookEvent event = parse("""
+                {"contains":["payment"],"event":"payment.captured",
+                 "notes":{"id":"not_this","order_id":"nor_this","entity":{"id":"deep"}},
+                 "payload":{"order":{"entity":{"id":"order_x"}},
+                            "payment":{"entity":{"card":{"id":"card_1","last4":"1111"},
+                                                 "acquirer_data":{"rrn":"123"},
+                                                 "id":"pay_1","order_id":"order_1",
+                                                 "notes":[{"id":1}],"new_field":{"x":[1,2,3]}}}}}""");
+
+        assertEquals("pay_1", event.paymentId());
+        assertEquals("order_1", event.orderId());
+    }
+
+    @Test
+    void leavesMissingFieldsNull() {
+        WebhookEvent event = parse("{\"event\":\"refund.created\",\"payload\":{\"refund\":{\"entity\":{\"id\":\"rfnd_1\"}}}}");
+
+        assertEquals("refund.created", event.event());
+        assertNull(event.paymentId());
+        assertNull(event.orderId());
+    }
+
+    @Test
+    void rejectsBodiesThatAreNotAJsonObject() {
+        assertThrows(BadRequestException.class, () -> parse("[]"));
+        assertThrows(BadRequestException.class, () -> parse("{\"event\":"));
+    }
+}
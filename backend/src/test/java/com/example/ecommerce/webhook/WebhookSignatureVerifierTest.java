@@ -0,0 +1,70 @@
+package com.example.ecommerce.webhook;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebhookSignatureVerifierTest {
+
+    private static final String SECRET = "whsec_test";
+    private static final byte[] BODY = "{\"event\":\"payment.captured\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static WebhookSignatureVerifier verifier(String secret) {
+        WebhookSignatureVerifier verifier = new WebhookSignatureVerifier();
+        ReflectionTestUtils.setField(verifier, "webhookSecret", secret);
+        verifier.init();
+        return verifier;
+    }
+
+    private static String sign(String secret, byte[] body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(body));
+    }
+
+    @Test
+    void acceptsTheSignatureOfTheExactBody() throws Exception {
+        WebhookSignatureVerifier verifier = verifier(SECRET);
+        String signature = sign(SECRET, BODY);
+
+        assertTrue(verifier.verify(BODY, signature));
+        // Each call starts from the keyed state, not from the previous body
+        assertTrue(verifier.verify(BODY, signature));
+        assertTrue(verifier.verify(BODY, signature.toUpperCase()));
+    }
+
+    @Test
+    void rejectsATamperedBody() throws Exception {
+        WebhookSignatureVerifier verifier = verifier(SECRET);
+        String signature = sign(SECRET, BODY);
+        byte[] tampered = "{\"event\":\"payment.captured\" }".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(verifier.verify(tampered, signature));
+    }
+
+    @Test
+    void rejectsAWrongOrMissingSignature() throws Exception {
+        WebhookSignatureVerifier verifier = verifier(SECRET);
+
+        assertFalse(verifier.verify(BODY, sign("another_secret", BODY)));
+        assertFalse(verifier.verify(BODY, null));
+        assertFalse(verifier.verify(BODY, ""));
+        assertFalse(verifier.verify(BODY, "z".repeat(64)));
+        assertFalse(verifier.verify(BODY, sign(SECRET, BODY).substring(2)));
+    }
+
+    @Test
+    void rejectsEverythingWithoutASecret() throws Exception {
+        WebhookSignatureVerifier verifier = verifier("");
+
+        assertFalse(verifier.isConfigured());
+        assertFalse(verifier.verify(BODY, sign(SECRET, BODY)));
+    }
+}
@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+# Builds the benchmarks and runs them with the GC profiler, writing JSON results
+# to results/<UTC date>-<git describe>.json. Extra arguments go to JMH, e.g. a
+# benchmark regex: ./run.sh Jwt
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+mvn -B -q -pl benchmarks -am package -DskipTests
+version=$(git describe --tags --always --dirty)
+out="benchmarks/results/$(date -u +%Y%m%d)-${version}.json"
+java -jar benchmarks/target/benchmarks.jar -prof gc -rf json -rff "$out" "$@"
+echo "Results written to $out"
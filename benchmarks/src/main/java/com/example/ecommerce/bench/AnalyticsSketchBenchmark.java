@@ -0,0 +1,132 @@
+package com.example.ecommerce.bench;
+
+import com.example.ecommerce.util.RelativeErrorSketch;
+import com.example.ecommerce.util.SpaceSavingSketch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-process analytics aggregation over synthetic sales: Space-Saving
+ * top-k updates and window merges (top products), and the relative-error
+ * quantile sketch behind the order-value percentiles of the timeseries. Exact sales totals are computed
+ * by Mongo aggregations, so they are not measured here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsSketchBenchmark {
+
+    private static final int SAMPLES = 1 << 16;
+
+    @Param({"200"})
+    public int capacity;
+
+    @Param({"5000"})
+    public int products;
+
+    private String[] productIds;
+    private int[] sales;
+    private double[] orderValues;
+    private SpaceSavingSketch sketch;
+    private List<SpaceSavingSketch> hourlyBuckets;
+    private RelativeErrorSketch quantiles;
+    private List<Map<String, Long>> storedHourlyValues;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        productIds = new String[products];
+        for (int i = 0; i < products; i++) {
+            productIds[i] = SyntheticData.productId(i);
+        }
+        sales = SyntheticData.zipfIndexes(products, SAMPLES, 1.1, 42);
+        Random random = new Random(7);
+        orderValues = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            // Log-normal basket values around a few thousand rupees
+            orderValues[i] = Math.exp(7.5 + random.nextGaussian() * 0.8);
+        }
+
+        sketch = new SpaceSavingSketch(capacity);
+        hourlyBuckets = new ArrayList<>();
+        for (int bucket = 0; bucket < 24; bucket++) {
+            SpaceSavingSketch hourly = new SpaceSavingSketch(capacity);
+            for (int i = 0; i < 2_000; i++) {
+                hourly.add(productIds[sales[(bucket * 2_000 + i) % SAMPLES]], 1 + i % 3);
+            }
+            hourlyBuckets.add(hourly);
+        }
+        quantiles = new RelativeErrorSketch(0.01);
+        for (double value : orderValues) {
+            quantiles.add(value);
+        }
+        // A week of hourly timeseries buckets as they are stored in Mongo
+        storedHourlyValues = new ArrayList<>();
+        for (int hour = 0; hour < 168; hour++) {
+            RelativeErrorSketch hourly = new RelativeErrorSketch(0.01);
+            for (int i = 0; i < 300; i++) {
+                hourly.add(orderValues[(hour * 300 + i) % SAMPLES]);
+            }
+            storedHourlyValues.add(hourly.toMap());
+        }
+    }
+
+    @Benchmark
+    public long topKAdd() {
+        int i = next;
+        next = (i + 1) & (SAMPLES - 1);
+        sketch.add(productIds[sales[i]], 1 + (i & 3));
+        return sketch.getTotalWeight();
+    }
+
+    @Benchmark
+    public SpaceSavingSketch topKMergeDay() {
+        return SpaceSavingSketch.merge(capacity, hourlyBuckets);
+    }
+
+    @Benchmark
+    public List<SpaceSavingSketch.Estimate> topKEntries() {
+        return sketch.entries();
+    }
+
+    @Benchmark
+    public long quantileAdd() {
+        int i = next;
+        next = (i + 1) & (SAMPLES - 1);
+        quantiles.add(orderValues[i]);
+        return quantiles.getCount();
+    }
+
+    @Benchmark
+    public Double quantileP99() {
+        return quantiles.quantile(0.99);
+    }
+
+    /** The CPU part of a weekly timeseries query: merge stored buckets, then read p99 */
+    @Benchmark
+    public Double quantileMergeWeek() {
+        RelativeErrorSketch total = new RelativeErrorSketch(0.01);
+        for (Map<String, Long> hourly : storedHourlyValues) {
+            total.merge(hourly);
+        }
+        return total.quantile(0.99);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.ecommerce.bench;
+
+import com.example.ecommerce.repository.RevokedTokenRepository;
+import com.example.ecommerce.security.JwtAuthFilter;
+import com.example.ecommerce.security.RateLimitFilter;
+import com.example.ecommerce.security.RouteClass;
+import com.example.ecommerce.security.TokenRevocationService;
+import com.example.ecommerce.security.VerifiedTokenCache;
+import com.example.ecommerce.util.JwtUtil;
+import com.example.ecommerce.webhook.WebhookSignatureVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Builds the beans under test without a Spring context. Fields are injected the
+ * way the container would, and @PostConstruct methods are called by hand. Mongo
+ * is replaced by a mock that only answers the startup queries; no measured
+ * path reaches it.
+ */
+final class Fixtures {
+
+    static final String JWT_SECRET = "3b68f69ce2da5b8d01091d7b0ded32840a31d05c7199ec8885ec40f92373e3f9";
+    static final String WEBHOOK_SECRET = "bench-webhook-secret";
+    static final long TOKEN_LIFETIME_MS = 86_400_000L;
+
+    private Fixtures() {
+    }
+
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TOKEN_LIFETIME_MS);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+
+    static VerifiedTokenCache verifiedTokenCache(JwtUtil jwtUtil) {
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(cache, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxSize", 100_000L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        return cache;
+    }
+
+    /** Empty revocation filters, so every check is a Bloom miss as for nearly all live tokens */
+    static TokenRevocationService tokenRevocationService() {
+        TokenRevocationService service = new TokenRevocationService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mock(MongoTemplate.class));
+        ReflectionTestUtils.setField(service, "revokedTokenRepository", mock(RevokedTokenRepository.class));
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "tokenLifetimeMs", TOKEN_LIFETIME_MS);
+        ReflectionTestUtils.setField(service, "expectedEntries", 100_000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(service, "syncIntervalMs", 2_000L);
+        ReflectionTestUtils.setField(service, "syncOverlapMs", 30_000L);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    static JwtAuthFilter jwtAuthFilter(VerifiedTokenCache cache, TokenRevocationService revocations) {
+        JwtAuthFilter filter = new JwtAuthFilter();
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", cache);
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", revocations);
+        return filter;
+    }
+
+    /**
+     * Local-mode rate limiting with limits high enough that requests are
+     * always admitted, so every call takes the same decision path
+     */
+    static RateLimitFilter rateLimitFilter() {
+        MockEnvironment environment = new MockEnvironment();
+        for (RouteClass routeClass : RouteClass.values()) {
+            environment.setProperty("rate.limit." + routeClass.getKey() + ".requests", "1000000000");
+            environment.setProperty("rate.limit." + routeClass.getKey() + ".duration", "1");
+        }
+        RateLimitFilter filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "maxRequests", 1_000_000_000);
+        ReflectionTestUtils.setField(filter, "durationSeconds", 1);
+        ReflectionTestUtils.setField(filter, "maxTrackedKeys", 100_000L);
+        ReflectionTestUtils.setField(filter, "mode", "local");
+        ReflectionTestUtils.setField(filter, "leaseFraction", 0.1);
+        ReflectionTestUtils.setField(filter, "leaseTtlMs", 1_000L);
+        ReflectionTestUtils.setField(filter, "trustedProxiesProperty", "");
+        ReflectionTestUtils.setField(filter, "environment", environment);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(filter, "init");
+        return filter;
+    }
+
+    static WebhookSignatureVerifier webhookSignatureVerifier() {
+        WebhookSignatureVerifier verifier = new WebhookSignatureVerifier();
+        ReflectionTestUtils.setField(verifier, "webhookSecret", WEBHOOK_SECRET);
+        ReflectionTestUtils.invokeMethod(verifier, "init");
+        return verifier;
+    }
+}
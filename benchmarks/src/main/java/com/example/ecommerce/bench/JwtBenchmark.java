@@ -0,0 +1,57 @@
+package com.example.ecommerce.bench;
+
+import com.example.ecommerce.security.JwtPrincipal;
+import com.example.ecommerce.security.VerifiedTokenCache;
+import com.example.ecommerce.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification: HMAC-SHA256 signing, full parse and verify,
+ * and the verified-token cache hit that most authenticated requests take.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = Fixtures.jwtUtil();
+        verifiedTokenCache = Fixtures.verifiedTokenCache(jwtUtil);
+        token = jwtUtil.generateToken("65a1f0c2e4b0a1b2c3d4e5f6", "demo@test.com", "USER");
+        verifiedTokenCache.resolve(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken("65a1f0c2e4b0a1b2c3d4e5f6", "demo@test.com", "USER");
+    }
+
+    @Benchmark
+    public JwtPrincipal verify() {
+        return jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public JwtPrincipal verifyCached() {
+        return verifiedTokenCache.resolve(token);
+    }
+}
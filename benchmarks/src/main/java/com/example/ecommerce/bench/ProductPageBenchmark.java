@@ -0,0 +1,71 @@
+package com.example.ecommerce.bench;
+
+import com.example.ecommerce.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON for a page of products: the whole page map as ProductController returns
+ * it, and one product at a time as the catalog service streams NDJSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductPageBenchmark {
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter productWriter;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        productWriter = objectMapper.writerFor(Product.class);
+        products = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            products.add(SyntheticData.product(i));
+        }
+    }
+
+    @Benchmark
+    public byte[] page() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", products);
+        response.put("currentPage", 0);
+        response.put("totalElements", 1_000L);
+        response.put("totalPages", (int) Math.ceil(1_000.0 / pageSize));
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public void streamed(Blackhole blackhole) throws Exception {
+        for (Product product : products) {
+            blackhole.consume(productWriter.writeValueAsBytes(product));
+        }
+    }
+}
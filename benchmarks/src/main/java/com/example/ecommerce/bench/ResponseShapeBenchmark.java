@@ -0,0 +1,149 @@
+package com.example.ecommerce.bench;
+
+import com.example.ecommerce.model.CartItem;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.model.PaymentStatus;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.service.CartService;
+import com.example.ecommerce.service.OrderService;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order and cart responses as the services build them ({@code Map<String, Object>}
+ * via OrderService/CartService.toResponse) against equivalent typed records,
+ * both on their own and serialized to JSON. The JSON is the same either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseShapeBenchmark {
+
+    @Param({"1", "10"})
+    public int lines;
+
+    private ObjectMapper objectMapper;
+    private Order order;
+    private List<OrderItem> orderItems;
+    private Payment payment;
+    private List<CartItem> cartItems;
+    private List<Product> products;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record OrderResponse(String id, String userId, Double totalAmount, String status, String createdAt,
+                         List<OrderItemResponse> items, PaymentResponse payment) {
+    }
+
+    record OrderItemResponse(String productId, Integer quantity, Double price) {
+    }
+
+    record PaymentResponse(String id, String status, Double amount, String razorpayOrderId) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record CartLineResponse(String id, String productId, Integer quantity, ProductSummary product) {
+    }
+
+    record ProductSummary(String id, String name, Double price, String edition) {
+    }
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        order = new Order("65a1f0c2e4b0a1b2c3d4e5f6", 0.0);
+        order.setId("65a1f0c2e4b0a1b2c3d4e600");
+        orderItems = new ArrayList<>();
+        cartItems = new ArrayList<>();
+        products = new ArrayList<>();
+        double total = 0;
+        for (int i = 0; i < lines; i++) {
+            Product product = SyntheticData.product(i);
+            products.add(product);
+            OrderItem item = new OrderItem(order.getId(), product.getId(), 1 + i % 3, product.getPrice());
+            orderItems.add(item);
+            total += item.getPrice() * item.getQuantity();
+            CartItem cartItem = new CartItem(order.getUserId(), product.getId(), 1 + i % 3);
+            cartItem.setId(String.format("65a1f0c2e4b0a1b2c3d4%04x", i));
+            cartItems.add(cartItem);
+        }
+        order.setTotalAmount(total);
+        payment = new Payment(order.getId(), total);
+        payment.setId("65a1f0c2e4b0a1b2c3d4e700");
+        payment.setStatus(PaymentStatus.SUCCESS);
+        payment.setRazorpayOrderId("order_NXy8WkV9qQ1m2b");
+    }
+
+    @Benchmark
+    public Map<String, Object> orderAsMap() {
+        return OrderService.toResponse(order, orderItems, payment);
+    }
+
+    @Benchmark
+    public OrderResponse orderAsRecord() {
+        return orderRecord();
+    }
+
+    @Benchmark
+    public byte[] orderAsMapJson() throws Exception {
+        return objectMapper.writeValueAsBytes(OrderService.toResponse(order, orderItems, payment));
+    }
+
+    @Benchmark
+    public byte[] orderAsRecordJson() throws Exception {
+        return objectMapper.writeValueAsBytes(orderRecord());
+    }
+
+    @Benchmark
+    public byte[] cartAsMapJson() throws Exception {
+        List<Map<String, Object>> cart = new ArrayList<>(cartItems.size());
+        for (int i = 0; i < cartItems.size(); i++) {
+            cart.add(CartService.toResponse(cartItems.get(i), products.get(i)));
+        }
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public byte[] cartAsRecordJson() throws Exception {
+        List<CartLineResponse> cart = new ArrayList<>(cartItems.size());
+        for (int i = 0; i < cartItems.size(); i++) {
+            CartItem item = cartItems.get(i);
+            Product product = products.get(i);
+            cart.add(new CartLineResponse(item.getId(), item.getProductId(), item.getQuantity(),
+                    new ProductSummary(product.getId(), product.getName(), product.getPrice(), product.getEdition())));
+        }
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    private OrderResponse orderRecord() {
+        List<OrderItemResponse> items = new ArrayList<>(orderItems.size());
+        for (OrderItem item : orderItems) {
+            items.add(new OrderItemResponse(item.getProductId(), item.getQuantity(), item.getPrice()));
+        }
+        return new OrderResponse(order.getId(), order.getUserId(), order.getTotalAmount(),
+                order.getStatus().toString(), order.getCreatedAt().toString(), items,
+                new PaymentResponse(payment.getId(), payment.getStatus().toString(), payment.getAmount(),
+                        payment.getRazorpayOrderId()));
+    }
+}
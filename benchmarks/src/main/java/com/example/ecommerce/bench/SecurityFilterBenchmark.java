@@ -0,0 +1,106 @@
+package com.example.ecommerce.bench;
+
+import com.example.ecommerce.security.JwtAuthFilter;
+import com.example.ecommerce.security.RateLimitFilter;
+import com.example.ecommerce.util.JwtUtil;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request security decisions: JWT authentication with a cached token, the
+ * rate-limit decision for anonymous clients spread over {@code clients}
+ * addresses, and both filters chained as they run for an authenticated call.
+ * Limits are set so every request is admitted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityFilterBenchmark {
+
+    private static final FilterChain NO_OP = (request, response) -> { };
+
+    @Param({"1", "10000"})
+    public int clients;
+
+    private JwtAuthFilter jwtAuthFilter;
+    private RateLimitFilter rateLimitFilter;
+    private MockHttpServletRequest authenticatedRequest;
+    private MockHttpServletRequest[] anonymousRequests;
+    private MockHttpServletResponse response;
+    private FilterChain rateLimitChain;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JwtUtil jwtUtil = Fixtures.jwtUtil();
+        jwtAuthFilter = Fixtures.jwtAuthFilter(Fixtures.verifiedTokenCache(jwtUtil), Fixtures.tokenRevocationService());
+        rateLimitFilter = Fixtures.rateLimitFilter();
+        response = new MockHttpServletResponse();
+
+        String token = jwtUtil.generateToken("65a1f0c2e4b0a1b2c3d4e5f6", "demo@test.com", "USER");
+        authenticatedRequest = new MockHttpServletRequest("GET", "/api/cart");
+        authenticatedRequest.addHeader("Authorization", "Bearer " + token);
+
+        anonymousRequests = new MockHttpServletRequest[clients];
+        for (int i = 0; i < clients; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+            request.setRemoteAddr("10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF));
+            anonymousRequests[i] = request;
+        }
+        rateLimitChain = (request, servletResponse) -> rateLimitFilter.doFilter(request, servletResponse, NO_OP);
+
+        // Populate the verified-token cache and the rate-limit buckets
+        jwtAuthFilter.doFilter(authenticatedRequest, response, NO_OP);
+        for (MockHttpServletRequest request : anonymousRequests) {
+            rateLimitFilter.doFilter(request, response, NO_OP);
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public int jwtAuthentication() throws Exception {
+        jwtAuthFilter.doFilter(authenticatedRequest, response, NO_OP);
+        SecurityContextHolder.clearContext();
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int rateLimitAnonymous() throws Exception {
+        MockHttpServletRequest request = anonymousRequests[next];
+        next = next + 1 == anonymousRequests.length ? 0 : next + 1;
+        rateLimitFilter.doFilter(request, response, NO_OP);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int authenticateThenRateLimit() throws Exception {
+        jwtAuthFilter.doFilter(authenticatedRequest, response, rateLimitChain);
+        SecurityContextHolder.clearContext();
+        return response.getStatus();
+    }
+}
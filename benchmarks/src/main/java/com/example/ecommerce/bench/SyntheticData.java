@@ -0,0 +1,69 @@
+package com.example.ecommerce.bench;
+
+import com.example.ecommerce.model.ImageDerivative;
+import com.example.ecommerce.model.Product;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic test data shaped like the store's own
+ */
+final class SyntheticData {
+
+    private static final String[] EDITIONS = {"Classic", "Limited", "Secret", "Collab", "Holiday"};
+
+    private SyntheticData() {
+    }
+
+    static String productId(int i) {
+        return String.format("65a1f0c2e4b0a1b2%08x", i);
+    }
+
+    static Product product(int i) {
+        Product product = new Product("LABUBU Series " + (i % 40) + " Figure " + i,
+                "Vinyl collectible figure from the " + EDITIONS[i % EDITIONS.length]
+                        + " line, approx. 17cm tall, boxed with certificate card.",
+                EDITIONS[i % EDITIONS.length], 999.0 + (i % 50) * 100, 10 + i % 90);
+        product.setId(productId(i));
+        String hash = String.format("%064x", (long) i * 0x9E3779B97F4A7C15L);
+        product.setImagePath("blobs/" + hash.substring(0, 2) + "/" + hash + ".jpg");
+        product.setImageContentType("image/jpeg");
+        product.setImageHash(hash);
+        product.setImageDerivatives(List.of(
+                new ImageDerivative(160, 160, "derivatives/" + hash + "_w160.jpg", "image/jpeg", 8_412),
+                new ImageDerivative(320, 320, "derivatives/" + hash + "_w320.jpg", "image/jpeg", 24_903),
+                new ImageDerivative(640, 640, "derivatives/" + hash + "_w640.jpg", "image/jpeg", 71_288)));
+        return product;
+    }
+
+    /**
+     * Product indexes drawn from a Zipf distribution with exponent {@code s},
+     * so a few products dominate as best sellers do
+     */
+    static int[] zipfIndexes(int products, int samples, double s, long seed) {
+        double[] cumulative = new double[products];
+        double sum = 0;
+        for (int k = 0; k < products; k++) {
+            sum += 1.0 / Math.pow(k + 1, s);
+            cumulative[k] = sum;
+        }
+        Random random = new Random(seed);
+        int[] indexes = new int[samples];
+        for (int i = 0; i < samples; i++) {
+            double u = random.nextDouble() * sum;
+            int low = 0;
+            int high = products - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            indexes[i] = low;
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.ecommerce.bench;
+
+import com.example.ecommerce.webhook.WebhookEvent;
+import com.example.ecommerce.webhook.WebhookEventParser;
+import com.example.ecommerce.webhook.WebhookSignatureVerifier;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Razorpay webhook intake: signature check and the streaming field extraction,
+ * with a full tree parse of the same body as a reference point.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebhookBenchmark {
+
+    // Shape of a real payment.captured event, trimmed of personal data
+    private static final String BODY = """
+            {"entity":"event","account_id":"acc_BFQ7uQEaa7j2z7","event":"payment.captured",\
+            "contains":["payment"],"payload":{"payment":{"entity":{"id":"pay_NXy9Cq1vVw3LkQ",\
+            "entity":"payment","amount":149900,"currency":"INR","status":"captured",\
+            "order_id":"order_NXy8WkV9qQ1m2b","invoice_id":null,"international":false,"method":"upi",\
+            "amount_refunded":0,"refund_status":null,"captured":true,"description":"LABUBU Store order",\
+            "card_id":null,"bank":null,"wallet":null,"vpa":"customer@okbank","email":"customer@example.com",\
+            "contact":"+919000000000","notes":{"orderId":"65a1f0c2e4b0a1b2c3d4e600"},"fee":3538,"tax":540,\
+            "error_code":null,"error_description":null,"error_source":null,"error_step":null,\
+            "error_reason":null,"acquirer_data":{"rrn":"401234567890","upi_transaction_id":"AXI1234567890"},\
+            "created_at":1718000000}}},"created_at":1718000003}""";
+
+    private WebhookEventParser parser;
+    private WebhookSignatureVerifier verifier;
+    private ObjectMapper objectMapper;
+    private byte[] body;
+    private String signature;
+
+    @Setup
+    public void setUp() throws Exception {
+        parser = new WebhookEventParser();
+        verifier = Fixtures.webhookSignatureVerifier();
+        objectMapper = new ObjectMapper();
+        body = BODY.getBytes(StandardCharsets.UTF_8);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Fixtures.WEBHOOK_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        signature = HexFormat.of().formatHex(mac.doFinal(body));
+        if (!verifier.verify(body, signature)) {
+            throw new IllegalStateException("Benchmark signature does not verify");
+        }
+    }
+
+    @Benchmark
+    public boolean verifySignature() {
+        return verifier.verify(body, signature);
+    }
+
+    @Benchmark
+    public WebhookEvent parse() {
+        return parser.parse(body, "evt_bench");
+    }
+
+    @Benchmark
+    public WebhookEvent verifyAndParse() {
+        if (!verifier.verify(body, signature)) {
+            throw new IllegalStateException();
+        }
+        return parser.parse(body, "evt_bench");
+    }
+
+    @Benchmark
+    public JsonNode treeParseReference() throws Exception {
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.ecommerce.catalog.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+/**
+ * Read-side copy of the backend's product document. The backend owns the
+ * collection and its writes; this class mirrors its fields and JSON shape so
+ * both services return the same representation.
+ */
+@Document(collection = "products")
+public class Product {
+
+    @Id
+    private String id;
+    private String name;
+    private String description;
+    private String edition;
+    private Double price;
+    private Integer stock;
+    private String imagePath;
+    private String imageContentType;
+    private String imageHash;
+    private List<ImageDerivative> imageDerivatives;
+
+    public Product() {
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getEdition() { return edition; }
+    public void setEdition(String edition) { this.edition = edition; }
+
+    public Double getPrice() { return price; }
+    public void setPrice(Double price) { this.price = price; }
+
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+
+    public String getImagePath() { return imagePath; }
+    public void setImagePath(String imagePath) { this.imagePath = imagePath; }
+
+    public String getImageContentType() { return imageContentType; }
+    public void setImageContentType(String imageContentType) { this.imageContentType = imageContentType; }
+
+    public String getImageHash() { return imageHash; }
+    public void setImageHash(String imageHash) { this.imageHash = imageHash; }
+
+    public List<ImageDerivative> getImageDerivatives() { return imageDerivatives; }
+    public void setImageDerivatives(List<ImageDerivative> imageDerivatives) { this.imageDerivatives = imageDerivatives; }
+
+    /** Versioned image URL; it changes whenever the image does, so clients may cache it forever */
+    public String getImageUrl() {
+        if (id == null || imagePath == null) {
+            return null;
+        }
+        String url = "/api/products/" + id + "/image";
+        return imageHash != null ? url + "?v=" + imageHash : url;
+    }
+}
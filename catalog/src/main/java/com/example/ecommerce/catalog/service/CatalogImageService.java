@@ -0,0 +1,155 @@
+package com.example.ecommerce.catalog.service;
+
+import com.example.ecommerce.catalog.model.ImageDerivative;
+import com.example.ecommerce.catalog.model.Product;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Resolves product images to files in the backend's upload directory, which
+ * this service must be able to read (same host or a shared volume).
+ *
+ * Resolved metadata is cached like the backend's image index. Lookups run on
+ * the reactive driver and file stats on the bounded elastic scheduler, so the
+ * event loop never blocks; files are handed to Netty, which sends them with
+ * zero-copy transfer.
+ */
+@Service
+public class CatalogImageService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImageService.class);
+
+    @Value("${file.upload.dir:../backend/uploads}")
+    private String uploadDir;
+
+    @Value("${file.image.index-max-size:100000}")
+    private long indexMaxSize;
+
+    @Value("${file.image.index-refresh-ms:60000}")
+    private long indexRefreshMs;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    private AsyncLoadingCache<String, Optional<ImageSet>> imageIndex;
+
+    /**
+     * A resolved image file: the original ({@code width} 0) or one of its derivatives.
+     * The ETag matches the one the backend sends for the same file.
+     */
+    public record ProductImage(Path path, String contentType, String hash, long size, long lastModified, int width) {
+
+        public String etag() {
+            String suffix = width > 0 ? "-w" + width : "";
+            return hash != null
+                    ? "\"" + hash + suffix + "\""
+                    : "W/\"" + size + "-" + lastModified + suffix + "\"";
+        }
+    }
+
+    /**
+     * An original and its derivatives, narrowest first
+     */
+    record ImageSet(ProductImage original, List<ProductImage> derivatives) {
+
+        /** The narrowest derivative at least {@code width} wide, else the original */
+        ProductImage pick(Integer width) {
+            if (width != null && width > 0) {
+                for (ProductImage derivative : derivatives) {
+                    if (derivative.width() >= width) {
+                        return derivative;
+                    }
+                }
+            }
+            return original;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        imageIndex = Caffeine.newBuilder()
+                .maximumSize(indexMaxSize)
+                .refreshAfterWrite(Duration.ofMillis(indexRefreshMs))
+                .buildAsync((productId, executor) -> loadImage(productId).toFuture());
+    }
+
+    /**
+     * The image to serve for a requested display width; empty when the product
+     * or its file does not exist
+     */
+    public Mono<ProductImage> getProductImage(String productId, Integer width) {
+        return Mono.fromFuture(imageIndex.get(productId))
+                .flatMap(images -> Mono.justOrEmpty(images.map(set -> set.pick(width))));
+    }
+
+    /**
+     * Drops a product from the index, e.g. when its file turned out to be missing
+     */
+    public void evictProductImage(String productId) {
+        imageIndex.synchronous().invalidate(productId);
+    }
+
+    private Mono<Optional<ImageSet>> loadImage(String productId) {
+        Query query = new Query(Criteria.where("id").is(productId));
+        query.fields().include("imagePath").include("imageContentType").include("imageHash")
+                .include("imageDerivatives");
+        return mongoTemplate.findOne(query, Product.class)
+                .publishOn(Schedulers.boundedElastic())
+                .map(this::resolve)
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private Optional<ImageSet> resolve(Product product) {
+        if (product.getImagePath() == null) {
+            return Optional.empty();
+        }
+        Path path = Paths.get(uploadDir).resolve(product.getImagePath());
+        try {
+            long size = Files.size(path);
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            String contentType = product.getImageContentType();
+            if (contentType == null) {
+                // Uploaded before the type was recorded; go by the file name
+                contentType = Optional.ofNullable(Files.probeContentType(path)).orElse("application/octet-stream");
+            }
+            ProductImage original = new ProductImage(path, contentType, product.getImageHash(), size, lastModified, 0);
+
+            List<ProductImage> derivatives = new ArrayList<>();
+            if (product.getImageDerivatives() != null) {
+                for (ImageDerivative derivative : product.getImageDerivatives()) {
+                    Path derivativePath = Paths.get(uploadDir).resolve(derivative.getPath());
+                    if (Files.exists(derivativePath)) {
+                        derivatives.add(new ProductImage(derivativePath, derivative.getContentType(),
+                                product.getImageHash(), derivative.getSize(), lastModified, derivative.getWidth()));
+                    }
+                }
+                derivatives.sort(Comparator.comparingInt(ProductImage::width));
+            }
+            return Optional.of(new ImageSet(original, List.copyOf(derivatives)));
+        } catch (IOException e) {
+            log.warn("Image file {} for product {} is unreadable: {}", path, product.getId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
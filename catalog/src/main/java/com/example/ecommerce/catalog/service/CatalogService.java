@@ -0,0 +1,108 @@
+package com.example.ecommerce.catalog.service;
+
+import com.example.ecommerce.catalog.model.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Catalog queries with the same filters and paging as the backend's
+ * ProductService, run on the reactive Mongo driver so no thread waits on I/O.
+ */
+@Service
+public class CatalogService {
+
+    @Value("${catalog.max-page-size:100}")
+    private int maxPageSize;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    public Pageable pageRequest(int page, int size, String sortBy, String sortDir) {
+        Sort sort = sortDir.equalsIgnoreCase("desc")
+                ? Sort.by(sortBy).descending()
+                : Sort.by(sortBy).ascending();
+        return PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, maxPageSize)), sort);
+    }
+
+    public Pageable pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, maxPageSize)));
+    }
+
+    public Flux<Product> findFiltered(Double minPrice, Double maxPrice, String edition, Pageable pageable) {
+        return mongoTemplate.find(filterQuery(minPrice, maxPrice, edition).with(pageable), Product.class);
+    }
+
+    public Mono<Map<String, Object>> getFilteredPage(Double minPrice, Double maxPrice, String edition,
+                                                     Pageable pageable) {
+        return page(findFiltered(minPrice, maxPrice, edition, pageable),
+                mongoTemplate.count(filterQuery(minPrice, maxPrice, edition), Product.class), pageable);
+    }
+
+    public Flux<Product> search(String q, Pageable pageable) {
+        return mongoTemplate.find(searchQuery(q).with(pageable), Product.class);
+    }
+
+    public Mono<Map<String, Object>> searchPage(String q, Pageable pageable) {
+        return page(search(q, pageable), mongoTemplate.count(searchQuery(q), Product.class), pageable);
+    }
+
+    public Mono<Product> findById(String id) {
+        return mongoTemplate.findById(id, Product.class);
+    }
+
+    private static Query filterQuery(Double minPrice, Double maxPrice, String edition) {
+        List<Criteria> criteriaList = new ArrayList<>();
+        if (minPrice != null) {
+            criteriaList.add(Criteria.where("price").gte(minPrice));
+        }
+        if (maxPrice != null) {
+            criteriaList.add(Criteria.where("price").lte(maxPrice));
+        }
+        if (edition != null && !edition.isEmpty()) {
+            criteriaList.add(Criteria.where("edition").regex(edition, "i"));
+        }
+        Query query = new Query();
+        if (!criteriaList.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteriaList.toArray(new Criteria[0])));
+        }
+        return query;
+    }
+
+    /** Same match as the backend's findByNameContainingIgnoreCase: a literal, case-insensitive substring */
+    private static Query searchQuery(String q) {
+        return new Query(Criteria.where("name").regex(Pattern.compile(Pattern.quote(q), Pattern.CASE_INSENSITIVE)));
+    }
+
+    /**
+     * Builds the backend's page response; the page and its count are queried concurrently
+     */
+    private static Mono<Map<String, Object>> page(Flux<Product> content, Mono<Long> count, Pageable pageable) {
+        return content.collectList()
+                .zipWith(count)
+                .map(result -> {
+                    List<Product> products = result.getT1();
+                    long total = result.getT2();
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("content", products);
+                    response.put("currentPage", pageable.getPageNumber());
+                    response.put("totalElements", total);
+                    response.put("totalPages", (int) Math.ceil((double) total / pageable.getPageSize()));
+                    return response;
+                });
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.ecommerce.catalog.web;
+
+import com.example.ecommerce.catalog.model.Product;
+import com.example.ecommerce.catalog.service.CatalogImageService;
+import com.example.ecommerce.catalog.service.CatalogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Handlers for the public catalog routes. Responses match the backend's
+ * ProductController. Clients that accept {@code application/x-ndjson} get list
+ * and search results as a stream of products, written as each document arrives
+ * from Mongo, without the totals (and so without the count query).
+ */
+@Component
+public class CatalogHandler {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private CatalogImageService catalogImageService;
+
+    @Value("${file.image.immutable-cache-control:public, max-age=31536000, immutable}")
+    private String immutableCacheControl;
+
+    @Value("${file.image.max-age-seconds:300}")
+    private long imageMaxAgeSeconds;
+
+    public Mono<ServerResponse> getAllProducts(ServerRequest request) {
+        Pageable pageable;
+        Double minPrice;
+        Double maxPrice;
+        try {
+            pageable = catalogService.pageRequest(
+                    intParam(request, "page", 0),
+                    intParam(request, "size", 10),
+                    request.queryParam("sortBy").orElse("name"),
+                    request.queryParam("sortDir").orElse("asc"));
+            minPrice = request.queryParam("minPrice").map(Double::valueOf).orElse(null);
+            maxPrice = request.queryParam("maxPrice").map(Double::valueOf).orElse(null);
+        } catch (NumberFormatException e) {
+            return error(request, HttpStatus.BAD_REQUEST, "Invalid number: " + e.getMessage());
+        }
+        String edition = request.queryParam("edition").orElse(null);
+
+        if (wantsStream(request)) {
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(catalogService.findFiltered(minPrice, maxPrice, edition, pageable), Product.class);
+        }
+        return catalogService.getFilteredPage(minPrice, maxPrice, edition, pageable)
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    public Mono<ServerResponse> getProductById(ServerRequest request) {
+        return catalogService.findById(request.pathVariable("id"))
+                .flatMap(product -> ServerResponse.ok().bodyValue(product))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> searchProducts(ServerRequest request) {
+        Optional<String> q = request.queryParam("q");
+        if (q.isEmpty()) {
+            return error(request, HttpStatus.BAD_REQUEST, "Required parameter 'q' is not present.");
+        }
+        Pageable pageable;
+        try {
+            pageable = catalogService.pageRequest(intParam(request, "page", 0), intParam(request, "size", 10));
+        } catch (NumberFormatException e) {
+            return error(request, HttpStatus.BAD_REQUEST, "Invalid number: " + e.getMessage());
+        }
+
+        if (wantsStream(request)) {
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(catalogService.search(q.get(), pageable), Product.class);
+        }
+        return catalogService.searchPage(q.get(), pageable)
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    /**
+     * Serves a product image with the backend's caching headers. The file goes
+     * out through Netty's zero-copy path; Range requests are answered with 206
+     * by the resource writer, or 416 when they start past the end.
+     */
+    public Mono<ServerResponse> getImage(ServerRequest request) {
+        String id = request.pathVariable("id");
+        Integer width;
+        try {
+            width = request.queryParam("w").map(Integer::valueOf).orElse(null);
+        } catch (NumberFormatException e) {
+            return error(request, HttpStatus.BAD_REQUEST, "Invalid number: " + e.getMessage());
+        }
+        String version = request.queryParam("v").orElse(null);
+
+        return catalogImageService.getProductImage(id, width)
+                .flatMap(image -> serveImage(request, image, width, version))
+                .switchIfEmpty(Mono.defer(() -> error(request, HttpStatus.NOT_FOUND,
+                        "Image not found for product: " + id)));
+    }
+
+    private Mono<ServerResponse> serveImage(ServerRequest request, CatalogImageService.ProductImage image,
+                                            Integer width, String version) {
+        String etag = image.etag();
+        // Until its derivatives exist a ?w= URL gets the original, which must not be pinned for a year
+        boolean asRequested = width == null || width <= 0 || image.width() > 0;
+        Consumer<HttpHeaders> headers = h -> {
+            h.setETag(etag);
+            h.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+            h.set("X-Content-Type-Options", "nosniff");
+            h.setCacheControl(asRequested && image.hash() != null && image.hash().equals(version)
+                    ? immutableCacheControl
+                    : "public, max-age=" + imageMaxAgeSeconds + ", must-revalidate");
+        };
+
+        String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        Mono<ServerResponse> response = ServerResponse.ok()
+                .headers(headers)
+                .contentType(MediaType.parseMediaType(image.contentType()))
+                .body(BodyInserters.fromResource(new FileSystemResource(image.path())));
+
+        String range = request.headers().firstHeader(HttpHeaders.RANGE);
+        if (range == null) {
+            return response;
+        }
+        // A stale If-Range means the client's partial copy is outdated, and a
+        // malformed Range is ignored, as on the backend: both get everything
+        String ifRange = request.headers().firstHeader(HttpHeaders.IF_RANGE);
+        List<HttpRange> ranges = parseRanges(range);
+        if ((ifRange != null && !ifRange.equals(etag)) || ranges == null) {
+            return response.flatMap(full -> ServerResponse.ok().build((exchange, context) -> full.writeTo(
+                    exchange.mutate().request(builder -> builder.headers(h -> h.remove(HttpHeaders.RANGE))).build(),
+                    context)));
+        }
+        // The resource writer fails with a 500 on a range past the end, so answer those here
+        if (ranges.stream().anyMatch(r -> r.getRangeStart(image.size()) >= image.size())) {
+            return ServerResponse.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .headers(headers)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + image.size())
+                    .build();
+        }
+        return response;
+    }
+
+    /** The requested ranges, or null when the header cannot be parsed */
+    private static List<HttpRange> parseRanges(String header) {
+        try {
+            return HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean wantsStream(ServerRequest request) {
+        return request.headers().accept().stream()
+                .anyMatch(type -> type.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON));
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name).map(Integer::parseInt).orElse(defaultValue);
+    }
+
+    /** Same body as the backend's GlobalExceptionHandler */
+    private static Mono<ServerResponse> error(ServerRequest request, HttpStatus status, String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("timestamp", Instant.now().toString());
+        body.put("path", request.path());
+        return ServerResponse.status(status).bodyValue(body);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.ecommerce.catalog.web;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.HEAD;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * The public, read-only product routes. Writes (create, update, delete,
+ * uploads) stay on the backend, so a proxy sends only GET and HEAD under
+ * {@code /api/products} here.
+ */
+@Configuration
+public class CatalogRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> catalogRoutes(CatalogHandler handler) {
+        return route()
+                .GET("/api/products", handler::getAllProducts)
+                .GET("/api/products/search", handler::searchProducts)
+                .route(GET("/api/products/{id}/image").or(HEAD("/api/products/{id}/image")), handler::getImage)
+                .GET("/api/products/{id}", handler::getProductById)
+                .build();
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.ecommerce.catalog.web;
+
+import com.example.ecommerce.catalog.model.ImageDerivative;
+import com.example.ecommerce.catalog.model.Product;
+import com.example.ecommerce.catalog.service.CatalogImageService;
+import com.example.ecommerce.catalog.service.CatalogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the routes against a mocked Mongo template and checks that responses
+ * keep the shape and headers of the backend's ProductController
+ */
+class CatalogRoutesTest {
+
+    /** Keys of the backend's page response for list and search */
+    private static final Set<String> PAGE_KEYS = Set.of("content", "currentPage", "totalElements", "totalPages");
+
+    /** JSON properties of the backend's Product */
+    private static final Set<String> PRODUCT_KEYS = Set.of("id", "name", "description", "edition", "price", "stock",
+            "imagePath", "imageContentType", "imageHash", "imageDerivatives", "imageUrl");
+
+    private static final String HASH = "ab12cd34";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=300, must-revalidate";
+
+    @TempDir
+    Path uploadDir;
+
+    private final ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+    private final byte[] imageBytes = "0123456789abcdef".getBytes();
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(uploadDir.resolve("blobs/ab"));
+        Files.write(uploadDir.resolve("blobs/ab/" + HASH + ".png"), imageBytes);
+
+        CatalogService catalogService = new CatalogService();
+        ReflectionTestUtils.setField(catalogService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(catalogService, "maxPageSize", 100);
+
+        CatalogImageService imageService = new CatalogImageService();
+        ReflectionTestUtils.setField(imageService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(imageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(imageService, "indexMaxSize", 100L);
+        ReflectionTestUtils.setField(imageService, "indexRefreshMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(imageService, "init");
+
+        CatalogHandler handler = new CatalogHandler();
+        ReflectionTestUtils.setField(handler, "catalogService", catalogService);
+        ReflectionTestUtils.setField(handler, "catalogImageService", imageService);
+        ReflectionTestUtils.setField(handler, "immutableCacheControl", IMMUTABLE);
+        ReflectionTestUtils.setField(handler, "imageMaxAgeSeconds", 300L);
+
+        client = WebTestClient.bindToRouterFunction(new CatalogRouter().catalogRoutes(handler)).build();
+    }
+
+    private static Product product(String id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription("Vinyl figure");
+        product.setEdition("Monsters");
+        product.setPrice(1299.0);
+        product.setStock(5);
+        product.setImagePath("blobs/ab/" + HASH + ".png");
+        product.setImageContentType("image/png");
+        product.setImageHash(HASH);
+        return product;
+    }
+
+    private void productsInMongo(long total, Product... products) {
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(Flux.just(products));
+        when(mongoTemplate.count(any(Query.class), eq(Product.class))).thenReturn(Mono.just(total));
+    }
+
+    private void imageInMongo(Product product) {
+        when(mongoTemplate.findOne(any(Query.class), eq(Product.class))).thenReturn(Mono.just(product));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertBackendPageShape(Map<String, Object> page) {
+        assertEquals(PAGE_KEYS, page.keySet());
+        for (Map<String, Object> product : (List<Map<String, Object>>) page.get("content")) {
+            assertEquals(PRODUCT_KEYS, product.keySet());
+        }
+    }
+
+    @Test
+    void listHasTheBackendPageShape() {
+        productsInMongo(3, product("p1", "Zimomo"), product("p2", "Labubu"));
+
+        Map<String, Object> page = client.get().uri("/api/products?page=0&size=2&sortBy=price&sortDir=desc")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<Map<String, Object>>() { })
+                .returnResult().getResponseBody();
+
+        assertBackendPageShape(page);
+        assertEquals(0, page.get("currentPage"));
+        assertEquals(3, page.get("totalElements"));
+        assertEquals(2, page.get("totalPages"));
+
+        client.get().uri("/api/products?size=2")
+                .exchange()
+                .expectBody()
+                .jsonPath("$.content[0].id").isEqualTo("p1")
+                .jsonPath("$.content[0].price").isEqualTo(1299.0)
+                .jsonPath("$.content[0].imageUrl").isEqualTo("/api/products/p1/image?v=" + HASH)
+                .jsonPath("$.content[0].imageDerivatives").doesNotExist();
+    }
+
+    @Test
+    void searchHasTheBackendPageShape() {
+        productsInMongo(1, product("p2", "Labubu"));
+
+        Map<String, Object> page = client.get().uri("/api/products/search?q=lab")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<Map<String, Object>>() { })
+                .returnResult().getResponseBody();
+
+        assertBackendPageShape(page);
+        assertEquals(1, page.get("totalPages"));
+    }
+
+    @Test
+    void searchWithoutAQueryIsABadRequestLikeTheBackend() {
+        client.get().uri("/api/products/search")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Bad Request")
+                .jsonPath("$.message").isEqualTo("Required parameter 'q' is not present.")
+                .jsonPath("$.path").isEqualTo("/api/products/search")
+                .jsonPath("$.timestamp").exists();
+    }
+
+    @Test
+    void ndjsonClientsGetBareProducts() {
+        productsInMongo(2, product("p1", "Zimomo"), product("p2", "Labubu"));
+
+        List<Product> products = client.get().uri("/api/products")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Product.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(List.of("p1", "p2"), products.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void versionedImageIsServedWholeAndCachedForever() {
+        imageInMongo(product("p1", "Labubu"));
+
+        byte[] body = client.get().uri("/api/products/p1/image?v=" + HASH)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.IMAGE_PNG)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + HASH + "\"")
+                .expectHeader().valueEquals(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+                .expectHeader().valueEquals("X-Content-Type-Options", "nosniff")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertArrayEquals(imageBytes, body);
+    }
+
+    @Test
+    void unversionedImageMustBeRevalidated() {
+        imageInMongo(product("p1", "Labubu"));
+
+        client.get().uri("/api/products/p1/image")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+    }
+
+    @Test
+    void widthServedByTheOriginalIsNotPinned() {
+        imageInMongo(product("p1", "Labubu"));
+
+        client.get().uri("/api/products/p1/image?w=200&v=" + HASH)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + HASH + "\"")
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+    }
+
+    @Test
+    void widthServedByADerivativeIsPinned() throws IOException {
+        Files.createDirectories(uploadDir.resolve("derivatives"));
+        Files.write(uploadDir.resolve("derivatives/" + HASH + "_w320.webp"), new byte[]{1, 2, 3});
+        Product product = product("p1", "Labubu");
+        product.setImageDerivatives(List.of(
+                new ImageDerivative(320, 320, "derivatives/" + HASH + "_w320.webp", "image/webp", 3)));
+        imageInMongo(product);
+
+        client.get().uri("/api/products/p1/image?w=200&v=" + HASH)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("image/webp")
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + HASH + "-w320\"")
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+    }
+
+    @Test
+    void rangeRequestGetsPartialContent() {
+        imageInMongo(product("p1", "Labubu"));
+
+        byte[] body = client.get().uri("/api/products/p1/image")
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .exchange()
+                .expectStatus().isEqualTo(206)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 2-5/" + imageBytes.length)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + HASH + "\"")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertArrayEquals("2345".getBytes(), body);
+    }
+
+    @Test
+    void rangePastTheEndIsNotSatisfiable() {
+        imageInMongo(product("p1", "Labubu"));
+
+        client.get().uri("/api/products/p1/image")
+                .header(HttpHeaders.RANGE, "bytes=100-200")
+                .exchange()
+                .expectStatus().isEqualTo(416)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes */" + imageBytes.length);
+    }
+
+    @Test
+    void malformedRangeIsIgnored() {
+        imageInMongo(product("p1", "Labubu"));
+
+        byte[] body = client.get().uri("/api/products/p1/image")
+                .header(HttpHeaders.RANGE, "bytes=five-six")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertArrayEquals(imageBytes, body);
+    }
+
+    @Test
+    void staleIfRangeGetsTheWholeImage() {
+        imageInMongo(product("p1", "Labubu"));
+
+        byte[] body = client.get().uri("/api/products/p1/image")
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, "\"an-older-version\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertArrayEquals(imageBytes, body);
+    }
+
+    @Test
+    void matchingETagIsNotModified() {
+        imageInMongo(product("p1", "Labubu"));
+
+        client.get().uri("/api/products/p1/image?v=" + HASH)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void missingImageIsNotFound() {
+        when(mongoTemplate.findOne(any(Query.class), eq(Product.class))).thenReturn(Mono.empty());
+
+        client.get().uri("/api/products/p9/image")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Image not found for product: p9");
+    }
+}
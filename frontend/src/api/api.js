@@ -86,10 +86,4 @@ export const cancelOrder = (orderId) => api.post(`/orders/${orderId}/cancel`)
 // Payments
 export const createPayment = (orderId) => api.post('/payments/create', { orderId })
 
-export const testWebhook = (razorpayOrderId, status = 'success') => 
-  api.post('/webhooks/payment/test', { 
-    razorpay_order_id: razorpayOrderId, 
-    status 
-  })
-
 export default api
@@ -1,6 +1,6 @@
 import { useState, useEffect } from 'react'
 import { useNavigate } from 'react-router-dom'
-import { getCart, clearCart, createOrder, createPayment, testWebhook } from '../api/api'
+import { getCart, clearCart, createOrder, createPayment } from '../api/api'
 import Loading from '../components/Loading'
 import EmptyState from '../components/EmptyState'
 import Toast from '../components/Toast'
@@ -65,22 +65,14 @@ function Cart({ onCartUpdate }) {
         name: 'LABUBU STORE',
         description: `Order #${order.id}`,
         order_id: paymentData.razorpayOrderId,
-        handler: async function (response) {
-          try {
-            await testWebhook(paymentData.razorpayOrderId, 'success')
-            navigate(`/payment/${order.id}`, { 
-              state: { 
-                payment: paymentData,
-                razorpayResponse: response,
-                success: true
-              } 
-            })
-          } catch (err) {
-            console.error('Webhook failed:', err)
-            navigate(`/payment/${order.id}`, { 
-              state: { payment: paymentData, success: true } 
-            })
-          }
+        handler: function (response) {
+          // The order turns PAID once Razorpay's webhook reaches the backend
+          navigate(`/payment/${order.id}`, { 
+            state: { 
+              payment: paymentData,
+              razorpayResponse: response
+            } 
+          })
         },
         prefill: {
           name: 'LABUBU Collector',
@@ -1,6 +1,6 @@
 import { useState, useEffect } from 'react'
 import { useParams, useNavigate } from 'react-router-dom'
-import { getOrder, createPayment, cancelOrder, testWebhook } from '../api/api'
+import { getOrder, createPayment, cancelOrder } from '../api/api'
 import Loading from '../components/Loading'
 import EmptyState from '../components/EmptyState'
 import Toast from '../components/Toast'
@@ -48,22 +48,14 @@ function Order() {
         name: 'LABUBU STORE',
         description: `Order #${orderId}`,
         order_id: paymentData.razorpayOrderId,
-        handler: async function (response) {
-          try {
-            await testWebhook(paymentData.razorpayOrderId, 'success')
-            navigate(`/payment/${orderId}`, { 
-              state: { 
-                payment: paymentData,
-                razorpayResponse: response,
-                success: true
-              } 
-            })
-          } catch (err) {
-            console.error('Webhook failed:', err)
-            navigate(`/payment/${orderId}`, { 
-              state: { payment: paymentData, success: true } 
-            })
-          }
+        handler: function (response) {
+          // The order turns PAID once Razorpay's webhook reaches the backend
+          navigate(`/payment/${orderId}`, { 
+            state: { 
+              payment: paymentData,
+              razorpayResponse: response
+            } 
+          })
         },
         prefill: {
           name: 'LABUBU Collector',
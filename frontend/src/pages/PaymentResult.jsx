@@ -1,50 +1,50 @@
 import { useState, useEffect } from 'react'
-import { useParams, useLocation, useNavigate } from 'react-router-dom'
-import { testWebhook, getOrder } from '../api/api'
+import { useParams, useNavigate } from 'react-router-dom'
+import { getOrder } from '../api/api'
 import Loading from '../components/Loading'
 
+const MAX_POLLS = 30
+
 function PaymentResult() {
   const { orderId } = useParams()
-  const location = useLocation()
   const navigate = useNavigate()
   const [status, setStatus] = useState('processing')
   const [order, setOrder] = useState(null)
-
-  const payment = location.state?.payment
+  const [round, setRound] = useState(0)
 
   useEffect(() => {
-    if (payment?.razorpayOrderId) {
-      processPayment()
-    } else {
-      loadOrder()
-    }
-  }, [])
+    let attempts = 0
+    let timer
 
-  const processPayment = async () => {
-    try {
-      await testWebhook(payment.razorpayOrderId, 'success')
-      
-      setTimeout(async () => {
-        await loadOrder()
-        setStatus('success')
-      }, 1000)
-    } catch (err) {
-      setStatus('failed')
-      console.error(err)
-    }
-  }
-
-  const loadOrder = async () => {
-    try {
-      const response = await getOrder(orderId)
-      setOrder(response.data)
-      if (response.data.status === 'PAID') {
-        setStatus('success')
+    // The webhook usually lands within a few seconds of checkout
+    const poll = async () => {
+      attempts++
+      try {
+        const response = await getOrder(orderId)
+        setOrder(response.data)
+        if (response.data.status === 'PAID') {
+          setStatus('success')
+          return
+        }
+        if (response.data.status === 'CANCELLED' || response.data.paymentStatus === 'FAILED') {
+          setStatus('failed')
+          return
+        }
+      } catch (err) {
+        console.error(err)
+      }
+      if (attempts < MAX_POLLS) {
+        timer = setTimeout(poll, 1000)
+      } else {
+        // Stop spinning; the order page will show the result once the webhook lands
+        setStatus('pending')
       }
-    } catch (err) {
-      console.error(err)
     }
-  }
+
+    setStatus('processing')
+    poll()
+    return () => clearTimeout(timer)
+  }, [orderId, round])
 
   if (status === 'processing') {
     return (
@@ -57,6 +57,27 @@ function PaymentResult() {
     )
   }
 
+  if (status === 'pending') {
+    return (
+      <div className="payment-card">
+        <div className="payment-icon">⏳</div>
+        <h2 className="payment-title">Still Confirming</h2>
+        <p className="payment-message">
+          We have not heard back from the payment gateway yet.
+          Check your orders in a few minutes to see the result.
+        </p>
+        <div style={{ display: 'flex', gap: '15px', justifyContent: 'center' }}>
+          <button className="btn btn-secondary" onClick={() => navigate('/orders')}>
+            My Orders
+          </button>
+          <button className="btn" onClick={() => setRound(r => r + 1)}>
+            Check Again
+          </button>
+        </div>
+      </div>
+    )
+  }
+
   if (status === 'failed') {
     return (
       <div className="payment-card payment-failed">
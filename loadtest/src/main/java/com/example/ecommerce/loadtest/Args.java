@@ -0,0 +1,38 @@
+package com.example.ecommerce.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code --name value} command-line options
+ */
+public class Args {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    public Args(String[] args, int from) {
+        for (int i = from; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --name value, got: " + args[i]);
+            }
+            values.put(args[i].substring(2), args[++i]);
+        }
+    }
+
+    public String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    public long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Long.parseLong(value.replace("_", ""));
+    }
+
+    public int getInt(String name, int defaultValue) {
+        return (int) getLong(name, defaultValue);
+    }
+
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.ecommerce.loadtest;
+
+import com.example.ecommerce.loadtest.driver.LoadDriver;
+import com.example.ecommerce.loadtest.driver.Report;
+import com.example.ecommerce.loadtest.seed.DataSeeder;
+import com.example.ecommerce.loadtest.stub.RazorpayStubServer;
+import com.example.ecommerce.loadtest.stub.SmtpStubServer;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Entry point of {@code loadtest.jar}:
+ * <pre>
+ * seed  --plan scenarios/drop-day.json [--mongo-uri ...] [--database labubu_loadtest] [--drop true]
+ *       [--products n] [--users n] [--orders n] [--days n] [--batch-size 5000] [--threads n]
+ * stubs [--razorpay-port 9100] [--smtp-port 2525]
+ * run   --plan scenarios/drop-day.json [--base-url ...] [--report results.json]
+ * </pre>
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        Args options = new Args(args, 1);
+        switch (args[0]) {
+            case "seed" -> seed(options);
+            case "stubs" -> stubs(options);
+            case "run" -> run(options);
+            default -> usage();
+        }
+    }
+
+    private static void seed(Args options) throws Exception {
+        Plan.Dataset planned = plan(options).dataset();
+        Plan.Dataset dataset = new Plan.Dataset(
+                options.getLong("products", planned.products()),
+                options.getLong("users", planned.users()),
+                options.getLong("orders", planned.orders()),
+                options.getInt("days", planned.days()),
+                options.getInt("stock", planned.stock()));
+        String uri = options.get("mongo-uri", "mongodb://localhost:27017");
+        String database = options.get("database", "labubu_loadtest");
+
+        try (MongoClient client = MongoClients.create(uri)) {
+            DataSeeder seeder = new DataSeeder(client.getDatabase(database), dataset,
+                    options.getInt("batch-size", 5000),
+                    options.getInt("threads", Runtime.getRuntime().availableProcessors()));
+            if (Boolean.parseBoolean(options.get("drop", "false"))) {
+                System.out.println("Dropping seeded collections in " + database);
+                seeder.dropSeededCollections();
+            }
+            System.out.printf("Seeding %s: %,d products, %,d users, %,d orders over %d days%n", database,
+                    dataset.products(), dataset.users(), dataset.orders(), dataset.days());
+            seeder.seed();
+        }
+        System.out.println("""
+                Done. Start (or restart) the backend against this database so it builds its indexes, then
+                rebuild the daily sales rollups for the seeded history as the admin:
+                  POST /api/analytics/rollups/backfill?from=<first seeded day>""");
+    }
+
+    private static void stubs(Args options) throws Exception {
+        RazorpayStubServer razorpay = new RazorpayStubServer(options.getInt("razorpay-port", 9100));
+        razorpay.start();
+        System.out.println("Razorpay stub listening on http://localhost:" + razorpay.getPort());
+
+        SmtpStubServer smtp = new SmtpStubServer(options.getInt("smtp-port", 2525));
+        Thread smtpThread = new Thread(() -> {
+            try {
+                smtp.serve();
+            } catch (Exception e) {
+                System.err.println("SMTP stub stopped: " + e.getMessage());
+            }
+        }, "smtp-stub");
+        smtpThread.start();
+        System.out.println("SMTP stub listening on localhost:" + options.getInt("smtp-port", 2525));
+
+        while (smtpThread.isAlive()) {
+            smtpThread.join(10_000);
+            System.out.println("smtp: " + smtp.stats());
+        }
+    }
+
+    private static void run(Args options) throws Exception {
+        Plan plan = plan(options);
+        if (options.has("base-url") || options.has("webhook-secret")) {
+            plan = new Plan(options.get("base-url", plan.baseUrl()), options.get("webhook-secret", plan.webhookSecret()),
+                    plan.dataset(), plan.activeUsers(), plan.clientIps(), plan.thinkTimeMs(), plan.maxInFlight(),
+                    plan.stages());
+        }
+        System.out.printf("Running %d stages (%ds) against %s%n", plan.stages().size(), plan.totalSeconds(),
+                plan.baseUrl());
+        List<Report.StageResult> results = new LoadDriver(plan).run();
+        if (options.has("report")) {
+            Report.writeJson(results, Path.of(options.get("report", null)));
+            System.out.println("\nReport written to " + options.get("report", null));
+        }
+    }
+
+    private static Plan plan(Args options) throws Exception {
+        if (!options.has("plan")) {
+            throw new IllegalArgumentException("--plan is required");
+        }
+        return Plan.read(Path.of(options.get("plan", null)));
+    }
+
+    private static void usage() {
+        System.err.println("""
+                usage: java -jar loadtest.jar <command> [--option value ...]
+                  seed   Bulk-insert the plan's dataset into Mongo (--drop true to replace an earlier seed)
+                  stubs  Run the Razorpay and SMTP stand-ins
+                  run    Drive the plan's stages against the backend and report per endpoint""");
+        System.exit(2);
+    }
+}
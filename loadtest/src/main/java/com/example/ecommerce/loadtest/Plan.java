@@ -0,0 +1,69 @@
+package com.example.ecommerce.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A load-test plan, read from a JSON file under {@code scenarios/}. The
+ * dataset block sizes the seed and tells the scenarios which ids exist; each
+ * stage runs for a fixed time with an arrival rate (new sessions per second)
+ * per scenario.
+ */
+public record Plan(
+        String baseUrl,
+        String webhookSecret,
+        Dataset dataset,
+        int activeUsers,
+        int clientIps,
+        long thinkTimeMs,
+        int maxInFlight,
+        List<Stage> stages) {
+
+    public Plan {
+        baseUrl = baseUrl != null ? baseUrl : "http://localhost:8080";
+        dataset = dataset != null ? dataset : new Dataset(0, 0, 0, 0, 0);
+        activeUsers = activeUsers > 0 ? activeUsers : 10_000;
+        clientIps = clientIps > 0 ? clientIps : 50_000;
+        maxInFlight = maxInFlight > 0 ? maxInFlight : 10_000;
+        stages = stages != null ? stages : List.of();
+    }
+
+    /**
+     * Seed volumes. Orders are spread evenly over the last {@code days} days.
+     */
+    public record Dataset(long products, long users, long orders, int days, int stock) {
+
+        public Dataset {
+            products = products > 0 ? products : 10_000;
+            users = users > 0 ? users : 100_000;
+            orders = orders > 0 ? orders : 1_000_000;
+            days = days > 0 ? days : 90;
+            stock = stock > 0 ? stock : 1_000_000;
+        }
+    }
+
+    /**
+     * @param rates sessions started per second, by scenario name
+     */
+    public record Stage(String name, int seconds, Map<String, Double> rates) {
+
+        public Stage {
+            rates = rates != null ? rates : Map.of();
+        }
+    }
+
+    public static Plan read(Path path) throws IOException {
+        return new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true)
+                .readValue(path.toFile(), Plan.class);
+    }
+
+    public int totalSeconds() {
+        return stages.stream().mapToInt(Stage::seconds).sum();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.ecommerce.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Deterministic names and ids shared by the seeder and the scenarios, so a
+ * driver run can address seeded products, users and payments by index without
+ * reading anything back from Mongo.
+ */
+public final class Synthetic {
+
+    public static final String PASSWORD = "loadtest-password";
+    public static final String ADMIN_EMAIL = "admin@loadtest.local";
+
+    public static final String[] EDITIONS = {"Classic", "Limited", "Midnight", "Pastel", "Holiday", "Gold"};
+    public static final String[] SERIES = {"Forest", "Candy", "Monster", "Ocean", "Space", "Garden", "Carnival", "Winter"};
+    public static final String[] MOODS = {"Happy", "Sleepy", "Grumpy", "Shy", "Cheeky", "Dreamy", "Lucky"};
+
+    private static final int KIND_PRODUCT = 1;
+    private static final int KIND_USER = 2;
+    private static final int KIND_ORDER = 3;
+    private static final int KIND_ORDER_ITEM = 4;
+    private static final int KIND_PAYMENT = 5;
+
+    private Synthetic() {
+    }
+
+    public static String productId(long i) {
+        return objectId(KIND_PRODUCT, i);
+    }
+
+    public static String userId(long i) {
+        return objectId(KIND_USER, i);
+    }
+
+    public static String orderId(long i) {
+        return objectId(KIND_ORDER, i);
+    }
+
+    public static String orderItemId(long i) {
+        return objectId(KIND_ORDER_ITEM, i);
+    }
+
+    public static String paymentId(long i) {
+        return objectId(KIND_PAYMENT, i);
+    }
+
+    /** Razorpay order id of the payment seeded for order {@code i} */
+    public static String razorpayOrderId(long i) {
+        return "order_seed" + i;
+    }
+
+    public static String productName(long i) {
+        return MOODS[(int) (i % MOODS.length)] + " " + SERIES[(int) (i / MOODS.length % SERIES.length)]
+                + " Labubu #" + i;
+    }
+
+    public static String edition(long i) {
+        return EDITIONS[(int) (i % EDITIONS.length)];
+    }
+
+    /** 799 to 4999, ending in 99 */
+    public static double price(long i) {
+        return 799 + (i * 7919 % 43) * 100;
+    }
+
+    public static String userEmail(long i) {
+        return "user" + i + "@loadtest.local";
+    }
+
+    /**
+     * A client address for {@code X-Forwarded-For}, so per-IP rate limits see
+     * many clients instead of the driver's one
+     */
+    public static String clientIp(long i) {
+        return "10." + ((i >> 16) & 0xff) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff);
+    }
+
+    /**
+     * Index in [0, n) with popularity falling off roughly as 1/rank, so a few
+     * products take most of the traffic as they do on a drop day
+     */
+    public static long skewed(long n) {
+        double u = ThreadLocalRandom.current().nextDouble();
+        return Math.min(n - 1, (long) Math.floor(Math.pow(n + 1, u)) - 1);
+    }
+
+    /** 24 hex digits: "5eed", the kind and the index, a valid ObjectId that sorts by index */
+    private static String objectId(int kind, long i) {
+        return String.format("5eed%04x%016x", kind, i);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.ecommerce.loadtest.driver;
+
+import com.example.ecommerce.loadtest.Plan;
+import com.example.ecommerce.loadtest.scenario.Scenario;
+import com.example.ecommerce.loadtest.scenario.Scenarios;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a plan as an open workload: each scenario's sessions arrive as a
+ * Poisson process at the stage's rate whether or not earlier sessions have
+ * finished, so a slow backend faces a growing queue the way it would on a
+ * drop day instead of being politely waited for. Sessions run on virtual
+ * threads; beyond {@code maxInFlight} concurrent sessions new arrivals are
+ * counted as dropped rather than delayed.
+ *
+ * Requests are reported in the stage during which they complete. After the
+ * last stage the driver waits up to {@link #DRAIN_TIMEOUT} for running
+ * sessions, which are included in that stage's report.
+ */
+public class LoadDriver {
+
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(10);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final Plan plan;
+    private final Stats stats = new Stats();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final RunContext context;
+
+    public LoadDriver(Plan plan) {
+        this.plan = plan;
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(sessions)
+                .build();
+        this.context = new RunContext(plan, http, stats);
+    }
+
+    public List<Report.StageResult> run() throws InterruptedException {
+        // Fail on a misspelt scenario before any load is sent
+        plan.stages().forEach(stage -> stage.rates().keySet().forEach(Scenarios::byName));
+
+        List<Report.StageResult> results = new ArrayList<>();
+        for (int i = 0; i < plan.stages().size(); i++) {
+            Plan.Stage stage = plan.stages().get(i);
+            boolean last = i == plan.stages().size() - 1;
+            System.out.printf("%n== Stage '%s': %ds, sessions/s %s%n", stage.name(), stage.seconds(), stage.rates());
+            runStage(stage);
+            if (last) {
+                drain();
+            }
+            Report.StageResult result = new Report.StageResult(stage.name(), stage.seconds(),
+                    stats.drain(), stats.drainDropped());
+            Report.print(result);
+            results.add(result);
+        }
+        sessions.shutdown();
+        return results;
+    }
+
+    private void runStage(Plan.Stage stage) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(stage.seconds());
+
+        List<Thread> arrivals = new ArrayList<>();
+        for (Map.Entry<String, Double> rate : stage.rates().entrySet()) {
+            if (rate.getValue() == null || rate.getValue() <= 0) {
+                continue;
+            }
+            Scenario scenario = Scenarios.byName(rate.getKey());
+            Thread thread = new Thread(() -> arrive(rate.getKey(), scenario, rate.getValue(), start, end),
+                    "arrivals-" + rate.getKey());
+            thread.start();
+            arrivals.add(thread);
+        }
+
+        long requests = stats.requests();
+        long errors = stats.errors();
+        while (System.nanoTime() < end) {
+            long wait = Math.min(PROGRESS_INTERVAL.toNanos(), end - System.nanoTime());
+            TimeUnit.NANOSECONDS.sleep(Math.max(wait, 0));
+            long nowRequests = stats.requests();
+            long nowErrors = stats.errors();
+            double seconds = Math.max(wait, 1) / 1e9;
+            System.out.printf("  %5.0fs  %8.1f req/s  %6d errors  %6d sessions in flight%n",
+                    (System.nanoTime() - start) / 1e9, (nowRequests - requests) / seconds,
+                    nowErrors - errors, inFlight.get());
+            requests = nowRequests;
+            errors = nowErrors;
+        }
+        for (Thread thread : arrivals) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Starts sessions at exponentially distributed intervals. The schedule is
+     * kept even when this thread wakes late, so a backlog is sent as a burst.
+     */
+    private void arrive(String name, Scenario scenario, double ratePerSecond, long start, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long next = start;
+        while (true) {
+            next += (long) (-Math.log(1 - random.nextDouble()) / ratePerSecond * 1e9);
+            if (next >= end) {
+                return;
+            }
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.incrementAndGet() > plan.maxInFlight()) {
+                inFlight.decrementAndGet();
+                stats.dropped(name);
+                continue;
+            }
+            Session session = context.newSession(next);
+            sessions.execute(() -> {
+                try {
+                    scenario.run(context, session);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    System.err.println("Session of '" + name + "' failed: " + e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        if (inFlight.get() > 0) {
+            System.out.println("  " + inFlight.get() + " sessions still running after " + DRAIN_TIMEOUT.toSeconds()
+                    + "s; their remaining requests are not reported");
+        }
+    }
+}
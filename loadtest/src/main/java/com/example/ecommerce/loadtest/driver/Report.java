@@ -0,0 +1,82 @@
+package com.example.ecommerce.loadtest.driver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-stage, per-endpoint throughput, error rates and latency percentiles,
+ * printed as a table and optionally written as JSON for comparing runs
+ */
+public final class Report {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private Report() {
+    }
+
+    public record StageResult(String name, int seconds, Map<String, Stats.EndpointResult> endpoints,
+                              Map<String, Long> droppedSessions) {
+    }
+
+    static void print(StageResult stage) {
+        System.out.printf("%n%-46s %9s %9s %7s %7s %7s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "req/s",
+                "err%", "429", "5xx", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        stage.endpoints().forEach((name, result) -> {
+            Histogram latency = result.latency();
+            System.out.printf("%-46s %9d %9.1f %7.2f %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, result.count(),
+                    (double) result.count() / stage.seconds(), errorPercent(result), result.throttled(),
+                    result.serverErrors(), millis(latency, 50), millis(latency, 90), millis(latency, 99),
+                    millis(latency, 99.9), latency.getMaxValue() / 1e6);
+        });
+        stage.droppedSessions().forEach((scenario, count) -> {
+            if (count > 0) {
+                System.out.printf("Dropped %d '%s' sessions: maxInFlight reached%n", count, scenario);
+            }
+        });
+    }
+
+    public static void writeJson(List<StageResult> stages, Path path) throws IOException {
+        List<Map<String, Object>> json = stages.stream().map(stage -> {
+            Map<String, Object> endpoints = new LinkedHashMap<>();
+            stage.endpoints().forEach((name, result) -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("requests", result.count());
+                entry.put("requestsPerSecond", (double) result.count() / stage.seconds());
+                entry.put("errorPercent", errorPercent(result));
+                entry.put("throttled", result.throttled());
+                entry.put("serverErrors", result.serverErrors());
+                entry.put("noResponse", result.failures());
+                Map<String, Double> latency = new LinkedHashMap<>();
+                for (double percentile : PERCENTILES) {
+                    latency.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile)
+                            : String.valueOf(percentile)), millis(result.latency(), percentile));
+                }
+                latency.put("max", result.latency().getMaxValue() / 1e6);
+                entry.put("latencyMs", latency);
+                endpoints.put(name, entry);
+            });
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("stage", stage.name());
+            entry.put("seconds", stage.seconds());
+            entry.put("droppedSessions", stage.droppedSessions());
+            entry.put("endpoints", endpoints);
+            return entry;
+        }).toList();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), json);
+    }
+
+    private static double errorPercent(Stats.EndpointResult result) {
+        return result.count() == 0 ? 0 : 100.0 * result.errors() / result.count();
+    }
+
+    private static double millis(Histogram latency, double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1e6;
+    }
+}
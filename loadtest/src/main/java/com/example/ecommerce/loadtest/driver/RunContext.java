@@ -0,0 +1,92 @@
+package com.example.ecommerce.loadtest.driver;
+
+import com.example.ecommerce.loadtest.Plan;
+import com.example.ecommerce.loadtest.Synthetic;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * State shared by every session of a run
+ */
+public class RunContext {
+
+    private static final int RECENT_ORDERS = 10_000;
+
+    private final Plan plan;
+    private final HttpClient http;
+    private final Stats stats;
+    private final TokenPool tokens = new TokenPool();
+    private final AtomicReferenceArray<String> recentOrders = new AtomicReferenceArray<>(RECENT_ORDERS);
+    private final AtomicLong recentOrderCount = new AtomicLong();
+    private final SecretKeySpec webhookKey;
+
+    public RunContext(Plan plan, HttpClient http, Stats stats) {
+        this.plan = plan;
+        this.http = http;
+        this.stats = stats;
+        this.webhookKey = plan.webhookSecret() == null ? null
+                : new SecretKeySpec(plan.webhookSecret().getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
+
+    public Plan plan() {
+        return plan;
+    }
+
+    public HttpClient http() {
+        return http;
+    }
+
+    public Stats stats() {
+        return stats;
+    }
+
+    public TokenPool tokens() {
+        return tokens;
+    }
+
+    /** A seeded user from the plan's active set, which bounds how many logins the run needs */
+    public long activeUser() {
+        long users = Math.min(plan.activeUsers(), plan.dataset().users());
+        return ThreadLocalRandom.current().nextLong(users);
+    }
+
+    /**
+     * Remembers a Razorpay order id created during this run, for webhook redelivery
+     */
+    public void orderCreated(String razorpayOrderId) {
+        recentOrders.set((int) (recentOrderCount.getAndIncrement() % RECENT_ORDERS), razorpayOrderId);
+    }
+
+    /** One of the last {@value #RECENT_ORDERS} Razorpay order ids created in this run, or null if none yet */
+    public String recentOrder() {
+        long count = Math.min(recentOrderCount.get(), RECENT_ORDERS);
+        return count == 0 ? null : recentOrders.get(ThreadLocalRandom.current().nextInt((int) count));
+    }
+
+    /** {@code X-Razorpay-Signature} for a webhook body, as Razorpay computes it */
+    public String sign(byte[] body) {
+        if (webhookKey == null) {
+            throw new IllegalStateException("The plan has no webhookSecret");
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(webhookKey);
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    Session newSession(long scheduledNanos) {
+        long client = ThreadLocalRandom.current().nextInt(plan.clientIps());
+        return new Session(this, scheduledNanos, Synthetic.clientIp(client));
+    }
+}
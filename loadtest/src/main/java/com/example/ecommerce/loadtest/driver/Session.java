@@ -0,0 +1,126 @@
+package com.example.ecommerce.loadtest.driver;
+
+import com.example.ecommerce.loadtest.Synthetic;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One simulated visitor: a client address, optionally a signed-in user, and
+ * the requests it makes. Every request is recorded under its endpoint label.
+ *
+ * The first request is timed from the session's scheduled arrival rather than
+ * from when it was sent, so a driver or backend that falls behind shows up as
+ * latency instead of silently lowering the offered load.
+ */
+public class Session {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final RunContext context;
+    private final long scheduledNanos;
+    private boolean started;
+    private String clientIp;
+    private String token;
+
+    Session(RunContext context, long scheduledNanos, String clientIp) {
+        this.context = context;
+        this.scheduledNanos = scheduledNanos;
+        this.clientIp = clientIp;
+    }
+
+    /**
+     * Signs in as seeded user {@code userIndex}, from that user's own client address
+     */
+    public boolean actAs(long userIndex) throws InterruptedException {
+        clientIp = Synthetic.clientIp(userIndex);
+        token = context.tokens().tokenFor(this, userIndex);
+        return token != null;
+    }
+
+    public boolean actAsAdmin() throws InterruptedException {
+        token = context.tokens().adminToken(this);
+        return token != null;
+    }
+
+    public Response get(String endpoint, String pathAndQuery) throws InterruptedException {
+        return send(endpoint, request(pathAndQuery).GET(), 0);
+    }
+
+    public Response post(String endpoint, String path, Object body) throws InterruptedException {
+        return post(endpoint, path, body, 0);
+    }
+
+    public Response post(String endpoint, String path, Object body, int expectedStatus) throws InterruptedException {
+        byte[] bytes;
+        try {
+            bytes = body instanceof byte[] raw ? raw : JSON.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unserializable request body", e);
+        }
+        return send(endpoint, request(path).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(bytes)), expectedStatus);
+    }
+
+    /**
+     * Sends a prepared request under this session's identity
+     */
+    public Response send(String endpoint, HttpRequest.Builder builder, int expectedStatus)
+            throws InterruptedException {
+        builder.header("X-Forwarded-For", clientIp);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        long start = started ? System.nanoTime() : scheduledNanos;
+        started = true;
+        int status = 0;
+        String body = null;
+        try {
+            HttpResponse<String> response = context.http().send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            body = response.body();
+        } catch (IOException e) {
+            // Timed out or refused: recorded as status 0
+        }
+        context.stats().record(endpoint, System.nanoTime() - start, status, expectedStatus);
+        return new Response(status, body);
+    }
+
+    public HttpRequest.Builder request(String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(context.plan().baseUrl() + pathAndQuery)).timeout(TIMEOUT);
+    }
+
+    /** Pauses like a person between clicks: exponential with the plan's mean think time */
+    public void think() throws InterruptedException {
+        long mean = context.plan().thinkTimeMs();
+        if (mean > 0) {
+            Thread.sleep((long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * mean));
+        }
+    }
+
+    public record Response(int status, String body) {
+
+        public boolean ok() {
+            return status >= 200 && status < 300;
+        }
+
+        /** The JSON body, or a missing node when there is none or it does not parse */
+        public JsonNode json() {
+            if (body == null || body.isEmpty()) {
+                return JSON.missingNode();
+            }
+            try {
+                return JSON.readTree(body);
+            } catch (IOException e) {
+                return JSON.missingNode();
+            }
+        }
+    }
+}
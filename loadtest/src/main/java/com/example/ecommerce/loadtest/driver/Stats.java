@@ -0,0 +1,100 @@
+package com.example.ecommerce.loadtest.driver;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency and outcome counts. Latencies go into lock-free
+ * HdrHistogram recorders; {@link #drain} hands back everything recorded since
+ * the previous call, which is how each stage gets its own report.
+ */
+public class Stats {
+
+    private static final long MAX_LATENCY_NANOS = 3_600_000_000_000L;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> droppedSessions = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param endpoint method and route template, e.g. {@code GET /api/products/{id}}
+     * @param status   HTTP status, or 0 when no response arrived
+     * @param expected a status that counts as success even though it is 4xx/5xx
+     */
+    public void record(String endpoint, long latencyNanos, int status, int expected) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.latency.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+        requests.increment();
+        if (status == 429) {
+            stats.throttled.increment();
+        } else if (status >= 500) {
+            stats.serverErrors.increment();
+        } else if (status == 0) {
+            stats.failures.increment();
+        }
+        if ((status == 0 || status >= 400) && status != expected) {
+            stats.errors.increment();
+            errors.increment();
+        }
+    }
+
+    /** A session that was due but not started because {@code maxInFlight} sessions were running */
+    public void dropped(String scenario) {
+        droppedSessions.computeIfAbsent(scenario, name -> new LongAdder()).increment();
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    /**
+     * Results since the previous drain, by endpoint, sorted by name
+     */
+    public Map<String, EndpointResult> drain() {
+        Map<String, EndpointResult> results = new TreeMap<>();
+        endpoints.forEach((name, stats) -> {
+            Histogram histogram = stats.latency.getIntervalHistogram();
+            results.put(name, new EndpointResult(histogram,
+                    stats.errors.sumThenReset(), stats.throttled.sumThenReset(),
+                    stats.serverErrors.sumThenReset(), stats.failures.sumThenReset()));
+        });
+        return results;
+    }
+
+    public Map<String, Long> drainDropped() {
+        Map<String, Long> dropped = new TreeMap<>();
+        droppedSessions.forEach((scenario, count) -> dropped.put(scenario, count.sumThenReset()));
+        return dropped;
+    }
+
+    private static final class Endpoint {
+        private final Recorder latency = new Recorder(MAX_LATENCY_NANOS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+    }
+
+    /**
+     * @param errors       responses counted as failed: 4xx/5xx other than the expected status, and no response
+     * @param throttled    429s (included in errors)
+     * @param serverErrors 5xx (included in errors)
+     * @param failures     timeouts and connection errors (included in errors)
+     */
+    public record EndpointResult(Histogram latency, long errors, long throttled, long serverErrors, long failures) {
+
+        public long count() {
+            return latency.getTotalCount();
+        }
+    }
+}
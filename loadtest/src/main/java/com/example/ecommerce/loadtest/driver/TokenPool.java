@@ -0,0 +1,42 @@
+package com.example.ecommerce.loadtest.driver;
+
+import com.example.ecommerce.loadtest.Synthetic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bearer tokens for seeded users, logged in on first use and then reused, as
+ * a returning shopper's browser would. Logins are measured like any other
+ * request, so an early stage with a cold pool shows the BCrypt cost.
+ * Two sessions racing for the same user may both log in; either token works.
+ */
+public class TokenPool {
+
+    private final Map<Long, String> tokens = new ConcurrentHashMap<>();
+    private volatile String adminToken;
+
+    String tokenFor(Session session, long userIndex) throws InterruptedException {
+        String token = tokens.get(userIndex);
+        if (token == null) {
+            token = login(session, Synthetic.userEmail(userIndex));
+            if (token != null) {
+                tokens.putIfAbsent(userIndex, token);
+            }
+        }
+        return token;
+    }
+
+    String adminToken(Session session) throws InterruptedException {
+        if (adminToken == null) {
+            adminToken = login(session, Synthetic.ADMIN_EMAIL);
+        }
+        return adminToken;
+    }
+
+    private static String login(Session session, String email) throws InterruptedException {
+        Session.Response response = session.post("POST /api/auth/login", "/api/auth/login",
+                Map.of("email", email, "password", Synthetic.PASSWORD));
+        return response.ok() ? response.json().path("token").asText(null) : null;
+    }
+}
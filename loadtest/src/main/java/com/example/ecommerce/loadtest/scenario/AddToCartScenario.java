@@ -0,0 +1,33 @@
+package com.example.ecommerce.loadtest.scenario;
+
+import com.example.ecommerce.loadtest.Synthetic;
+import com.example.ecommerce.loadtest.driver.RunContext;
+import com.example.ecommerce.loadtest.driver.Session;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Signed-in shopper who opens a product, adds it and looks at the cart, without
+ * checking out. Carts are left behind, as most real ones are.
+ */
+public class AddToCartScenario implements Scenario {
+
+    @Override
+    public void run(RunContext context, Session session) throws InterruptedException {
+        if (!session.actAs(context.activeUser())) {
+            return;
+        }
+        String productId = Synthetic.productId(Synthetic.skewed(context.plan().dataset().products()));
+        if (!session.get("GET /api/products/{id}", "/api/products/" + productId).ok()) {
+            return;
+        }
+        session.think();
+        int quantity = 1 + ThreadLocalRandom.current().nextInt(2);
+        if (!session.post("POST /api/cart/add", "/api/cart/add",
+                Map.of("productId", productId, "quantity", quantity)).ok()) {
+            return;
+        }
+        session.get("GET /api/cart", "/api/cart");
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.ecommerce.loadtest.scenario;
+
+import com.example.ecommerce.loadtest.driver.RunContext;
+import com.example.ecommerce.loadtest.driver.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An admin watching the drop from the dashboard: sales summary, the hourly
+ * timeseries for the last week, top products and order status counts
+ */
+public class AdminAnalyticsScenario implements Scenario {
+
+    private static final String[] TOP_WINDOWS = {"1h", "24h", "30d"};
+
+    @Override
+    public void run(RunContext context, Session session) throws InterruptedException {
+        if (!session.actAsAdmin()) {
+            return;
+        }
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        String window = TOP_WINDOWS[ThreadLocalRandom.current().nextInt(TOP_WINDOWS.length)];
+
+        session.get("GET /api/analytics/sales", "/api/analytics/sales?days=30");
+        session.get("GET /api/analytics/timeseries", "/api/analytics/timeseries?granularity=hour&from="
+                + now.minus(Duration.ofDays(7)) + "&to=" + now);
+        session.get("GET /api/analytics/products/top", "/api/analytics/products/top?limit=10&window=" + window);
+        session.get("GET /api/analytics/orders/status", "/api/analytics/orders/status");
+    }
+}
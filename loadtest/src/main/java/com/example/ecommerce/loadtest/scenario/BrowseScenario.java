@@ -0,0 +1,39 @@
+package com.example.ecommerce.loadtest.scenario;
+
+import com.example.ecommerce.loadtest.Synthetic;
+import com.example.ecommerce.loadtest.driver.RunContext;
+import com.example.ecommerce.loadtest.driver.Session;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Anonymous visitor: a listing page (sometimes filtered or sorted by price),
+ * then one to three product pages, mostly of the popular products
+ */
+public class BrowseScenario implements Scenario {
+
+    @Override
+    public void run(RunContext context, Session session) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long products = context.plan().dataset().products();
+
+        StringBuilder listing = new StringBuilder("/api/products?size=20&page=").append(Synthetic.skewed(10));
+        int shape = random.nextInt(10);
+        if (shape < 3) {
+            listing.append("&sortBy=price&sortDir=").append(random.nextBoolean() ? "asc" : "desc");
+        } else if (shape < 5) {
+            listing.append("&edition=").append(Synthetic.EDITIONS[random.nextInt(Synthetic.EDITIONS.length)]);
+        } else if (shape < 6) {
+            listing.append("&minPrice=1000&maxPrice=").append(2000 + random.nextInt(3000));
+        }
+        if (!session.get("GET /api/products", listing.toString()).ok()) {
+            return;
+        }
+
+        int views = 1 + random.nextInt(3);
+        for (int i = 0; i < views; i++) {
+            session.think();
+            session.get("GET /api/products/{id}", "/api/products/" + Synthetic.productId(Synthetic.skewed(products)));
+        }
+    }
+}
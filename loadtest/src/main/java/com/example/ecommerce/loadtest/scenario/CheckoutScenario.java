@@ -0,0 +1,56 @@
+package com.example.ecommerce.loadtest.scenario;
+
+import com.example.ecommerce.loadtest.Synthetic;
+import com.example.ecommerce.loadtest.driver.RunContext;
+import com.example.ecommerce.loadtest.driver.Session;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The full purchase: fill the cart, place the order, open a Razorpay payment
+ * (served by the stand-in), then deliver the webhook Razorpay would send once
+ * the shopper pays. About one payment in ten fails.
+ */
+public class CheckoutScenario implements Scenario {
+
+    private static final int FAILED_PAYMENT_PERCENT = 10;
+
+    @Override
+    public void run(RunContext context, Session session) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (!session.actAs(context.activeUser())) {
+            return;
+        }
+
+        int lines = 1 + random.nextInt(3);
+        for (int i = 0; i < lines; i++) {
+            String productId = Synthetic.productId(Synthetic.skewed(context.plan().dataset().products()));
+            if (!session.post("POST /api/cart/add", "/api/cart/add",
+                    Map.of("productId", productId, "quantity", 1)).ok()) {
+                return;
+            }
+        }
+        session.get("GET /api/cart", "/api/cart");
+        session.think();
+
+        Session.Response order = session.post("POST /api/orders", "/api/orders", Map.of());
+        if (!order.ok()) {
+            return;
+        }
+        String orderId = order.json().path("id").asText();
+
+        Session.Response payment = session.post("POST /api/payments/create", "/api/payments/create",
+                Map.of("orderId", orderId));
+        if (!payment.ok()) {
+            return;
+        }
+        String razorpayOrderId = payment.json().path("razorpayOrderId").asText();
+        context.orderCreated(razorpayOrderId);
+
+        // The shopper completes (or abandons) Razorpay's checkout
+        session.think();
+        boolean failed = random.nextInt(100) < FAILED_PAYMENT_PERCENT;
+        Webhooks.deliver(context, session, failed ? "payment.failed" : "payment.captured", razorpayOrderId, true);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.ecommerce.loadtest.scenario;
+
+import com.example.ecommerce.loadtest.driver.RunContext;
+import com.example.ecommerce.loadtest.driver.Session;
+
+/**
+ * What one arriving session does. Scenarios stop early when a step they depend
+ * on fails; the failure has already been recorded against its endpoint.
+ */
+public interface Scenario {
+
+    void run(RunContext context, Session session) throws InterruptedException;
+}
@@ -0,0 +1,28 @@
+package com.example.ecommerce.loadtest.scenario;
+
+import java.util.Map;
+
+/**
+ * Scenario names as used in plan files
+ */
+public final class Scenarios {
+
+    private static final Map<String, Scenario> BY_NAME = Map.of(
+            "browse", new BrowseScenario(),
+            "search", new SearchScenario(),
+            "add-to-cart", new AddToCartScenario(),
+            "checkout", new CheckoutScenario(),
+            "webhook-storm", new WebhookStormScenario(),
+            "admin-analytics", new AdminAnalyticsScenario());
+
+    private Scenarios() {
+    }
+
+    public static Scenario byName(String name) {
+        Scenario scenario = BY_NAME.get(name);
+        if (scenario == null) {
+            throw new IllegalArgumentException("Unknown scenario '" + name + "', expected one of " + BY_NAME.keySet());
+        }
+        return scenario;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.ecommerce.loadtest.scenario;
+
+import com.example.ecommerce.loadtest.Synthetic;
+import com.example.ecommerce.loadtest.driver.RunContext;
+import com.example.ecommerce.loadtest.driver.Session;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Anonymous visitor searching by a word from the product names, sometimes
+ * paging once, then opening one of the results
+ */
+public class SearchScenario implements Scenario {
+
+    @Override
+    public void run(RunContext context, Session session) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] words = random.nextBoolean() ? Synthetic.SERIES : Synthetic.MOODS;
+        String q = words[random.nextInt(words.length)];
+        if (random.nextInt(4) == 0) {
+            // A partial word, as typed
+            q = q.substring(0, 3).toLowerCase();
+        }
+        String path = "/api/products/search?size=20&q=" + URLEncoder.encode(q, StandardCharsets.UTF_8);
+
+        Session.Response results = session.get("GET /api/products/search", path + "&page=0");
+        if (!results.ok()) {
+            return;
+        }
+        if (random.nextInt(4) == 0) {
+            session.think();
+            results = session.get("GET /api/products/search", path + "&page=1");
+        }
+
+        JsonNode content = results.json().path("content");
+        if (content.isArray() && !content.isEmpty()) {
+            session.think();
+            String id = content.get(random.nextInt(content.size())).path("id").asText();
+            session.get("GET /api/products/{id}", "/api/products/" + id);
+        }
+    }
+}
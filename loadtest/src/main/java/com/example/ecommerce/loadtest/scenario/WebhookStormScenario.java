@@ -0,0 +1,37 @@
+package com.example.ecommerce.loadtest.scenario;
+
+import com.example.ecommerce.loadtest.Synthetic;
+import com.example.ecommerce.loadtest.driver.RunContext;
+import com.example.ecommerce.loadtest.driver.Session;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Razorpay catching up after an outage: redelivers webhooks in bulk, mostly
+ * duplicates for orders already settled this run or in the seeded last day,
+ * with a few failures and a few forged signatures mixed in. Each session is
+ * one delivery, so the stage rate is the storm's deliveries per second.
+ */
+public class WebhookStormScenario implements Scenario {
+
+    @Override
+    public void run(RunContext context, Session session) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String razorpayOrderId = random.nextBoolean() ? context.recentOrder() : null;
+        if (razorpayOrderId == null) {
+            // The seed's newest 1% of orders, which include the ones still awaiting payment
+            long orders = context.plan().dataset().orders();
+            long recent = Math.max(1, orders / 100);
+            razorpayOrderId = Synthetic.razorpayOrderId(orders - 1 - random.nextLong(recent));
+        }
+
+        int roll = random.nextInt(100);
+        if (roll < 2) {
+            Webhooks.deliver(context, session, "payment.captured", razorpayOrderId, false);
+        } else if (roll < 7) {
+            Webhooks.deliver(context, session, "payment.failed", razorpayOrderId, true);
+        } else {
+            Webhooks.deliver(context, session, "payment.captured", razorpayOrderId, true);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.ecommerce.loadtest.scenario;
+
+import com.example.ecommerce.loadtest.driver.RunContext;
+import com.example.ecommerce.loadtest.driver.Session;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Razorpay-shaped webhook deliveries. Bodies carry the fields the backend
+ * reads plus the usual noise around them, so parsing cost is realistic.
+ */
+final class Webhooks {
+
+    private static final AtomicLong PAYMENT_SEQUENCE = new AtomicLong();
+
+    private Webhooks() {
+    }
+
+    /**
+     * @param validSignature false sends a wrong signature, which must be rejected with 401
+     */
+    static Session.Response deliver(RunContext context, Session session, String event, String razorpayOrderId,
+                                    boolean validSignature) throws InterruptedException {
+        String paymentId = "pay_load" + PAYMENT_SEQUENCE.incrementAndGet();
+        byte[] body = ("{\"entity\":\"event\",\"account_id\":\"acc_loadtest\",\"event\":\"" + event + "\","
+                + "\"contains\":[\"payment\"],\"payload\":{\"payment\":{\"entity\":{"
+                + "\"id\":\"" + paymentId + "\",\"entity\":\"payment\",\"amount\":249900,\"currency\":\"INR\","
+                + "\"status\":\"" + (event.equals("payment.failed") ? "failed" : "captured") + "\","
+                + "\"order_id\":\"" + razorpayOrderId + "\",\"method\":\"upi\",\"captured\":true,"
+                + "\"notes\":{\"source\":\"loadtest\"},\"acquirer_data\":{\"rrn\":\"" + System.nanoTime() + "\"}}}},"
+                + "\"created_at\":" + System.currentTimeMillis() / 1000 + "}").getBytes(StandardCharsets.UTF_8);
+        String signature = context.sign(body);
+        if (!validSignature) {
+            signature = new StringBuilder(signature).reverse().toString();
+        }
+
+        HttpRequest.Builder request = session.request("/api/webhooks/payment")
+                .header("Content-Type", "application/json")
+                .header("X-Razorpay-Signature", signature)
+                .header("X-Razorpay-Event-Id", "evt_" + UUID.randomUUID().toString().replace("-", ""))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        return validSignature
+                ? session.send("POST /api/webhooks/payment", request, 0)
+                : session.send("POST /api/webhooks/payment (bad signature)", request, 401);
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.ecommerce.loadtest.seed;
+
+import com.example.ecommerce.loadtest.Plan;
+import com.example.ecommerce.loadtest.Synthetic;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Fills a database with synthetic products, users and order history in the
+ * shape the backend's Spring Data mapping writes, using unordered bulk inserts
+ * from several threads.
+ *
+ * Order {@code i} of {@code n} is placed at {@code now - days + i * days / n}, so
+ * the newest orders are the highest indexes. Orders older than a day are paid
+ * (about 1 in 8 cancelled); the last day's are half still awaiting payment,
+ * which gives webhook and reconciliation traffic something to settle. Every
+ * order has a payment with Razorpay order id {@code order_seed<i>}.
+ *
+ * Indexes are left to the backend's auto-index creation: start or restart it
+ * after seeding, which also builds them faster than maintaining them per insert.
+ */
+public class DataSeeder {
+
+    private static final String MODEL = "com.example.ecommerce.model.";
+    private static final int MAX_ITEMS_PER_ORDER = 3;
+
+    private final MongoDatabase database;
+    private final Plan.Dataset dataset;
+    private final int batchSize;
+    private final int threads;
+    private final Instant now = Instant.now();
+
+    public DataSeeder(MongoDatabase database, Plan.Dataset dataset, int batchSize, int threads) {
+        this.database = database;
+        this.dataset = dataset;
+        this.batchSize = batchSize;
+        this.threads = threads;
+    }
+
+    public void dropSeededCollections() {
+        for (String name : List.of("products", "users", "orders", "order_items", "payments", "cart_items", "sales_daily")) {
+            database.getCollection(name).drop();
+        }
+    }
+
+    public void seed() throws Exception {
+        String passwordHash = new BCryptPasswordEncoder(10).encode(Synthetic.PASSWORD);
+
+        insert("products", dataset.products(), this::product);
+        insert("users", dataset.users(), i -> user(i, passwordHash));
+        database.getCollection("users").replaceOne(new Document("email", Synthetic.ADMIN_EMAIL),
+                admin(passwordHash), new ReplaceOptions().upsert(true));
+        insertOrders();
+    }
+
+    private void insert(String collectionName, long count, LongFunction<Document> factory) throws Exception {
+        MongoCollection<Document> collection = database.getCollection(collectionName);
+        AtomicLong inserted = new AtomicLong();
+        long started = System.nanoTime();
+        parallel(count, (from, to) -> {
+            List<Document> batch = new ArrayList<>(batchSize);
+            for (long i = from; i < to; i++) {
+                batch.add(factory.apply(i));
+                if (batch.size() == batchSize) {
+                    flush(collection, batch);
+                    progress(collectionName, inserted.addAndGet(batchSize), count);
+                }
+            }
+            flush(collection, batch);
+        });
+        report(collectionName, count, started);
+    }
+
+    private void insertOrders() throws Exception {
+        MongoCollection<Document> orders = database.getCollection("orders");
+        MongoCollection<Document> items = database.getCollection("order_items");
+        MongoCollection<Document> payments = database.getCollection("payments");
+        long count = dataset.orders();
+        AtomicLong inserted = new AtomicLong();
+        long started = System.nanoTime();
+
+        parallel(count, (from, to) -> {
+            List<Document> orderBatch = new ArrayList<>(batchSize);
+            List<Document> itemBatch = new ArrayList<>(batchSize * MAX_ITEMS_PER_ORDER);
+            List<Document> paymentBatch = new ArrayList<>(batchSize);
+            for (long i = from; i < to; i++) {
+                addOrder(i, orderBatch, itemBatch, paymentBatch);
+                if (orderBatch.size() == batchSize) {
+                    flush(orders, orderBatch);
+                    flush(items, itemBatch);
+                    flush(payments, paymentBatch);
+                    progress("orders", inserted.addAndGet(batchSize), count);
+                }
+            }
+            flush(orders, orderBatch);
+            flush(items, itemBatch);
+            flush(payments, paymentBatch);
+        });
+        report("orders (with items and payments)", count, started);
+    }
+
+    private Document product(long i) {
+        return new Document("_id", new ObjectId(Synthetic.productId(i)))
+                .append("name", Synthetic.productName(i))
+                .append("description", "Synthetic load-test product " + i)
+                .append("edition", Synthetic.edition(i))
+                .append("price", Synthetic.price(i))
+                .append("stock", dataset.stock())
+                .append("_class", MODEL + "Product");
+    }
+
+    private Document user(long i, String passwordHash) {
+        return new Document("_id", new ObjectId(Synthetic.userId(i)))
+                .append("email", Synthetic.userEmail(i))
+                .append("password", passwordHash)
+                .append("name", "Load Test User " + i)
+                .append("role", "USER")
+                .append("createdAt", Date.from(now.minus(Duration.ofDays(dataset.days()))))
+                .append("_class", MODEL + "User");
+    }
+
+    private Document admin(String passwordHash) {
+        return new Document("email", Synthetic.ADMIN_EMAIL)
+                .append("password", passwordHash)
+                .append("name", "Load Test Admin")
+                .append("role", "ADMIN")
+                .append("createdAt", Date.from(now))
+                .append("_class", MODEL + "User");
+    }
+
+    private void addOrder(long i, List<Document> orders, List<Document> items, List<Document> payments) {
+        long span = Duration.ofDays(dataset.days()).toMillis();
+        Instant createdAt = now.minusMillis(span).plusMillis((long) ((double) span * i / dataset.orders()));
+        long mix = mix(i);
+        boolean recent = createdAt.isAfter(now.minus(Duration.ofDays(1)));
+        String status;
+        String paymentStatus;
+        if (recent && (mix & 1) == 0) {
+            status = "CREATED";
+            paymentStatus = "CREATED";
+        } else if ((mix >>> 8) % 8 == 0) {
+            status = "CANCELLED";
+            paymentStatus = "FAILED";
+        } else {
+            status = "PAID";
+            paymentStatus = "SUCCESS";
+        }
+
+        int lines = 1 + (int) ((mix >>> 16) % MAX_ITEMS_PER_ORDER);
+        double total = 0;
+        for (int line = 0; line < lines; line++) {
+            long product = Synthetic.skewed(dataset.products());
+            int quantity = 1 + (int) ((mix >>> 20 + line) & 1);
+            double price = Synthetic.price(product);
+            total += price * quantity;
+            items.add(new Document("_id", new ObjectId(Synthetic.orderItemId(i * MAX_ITEMS_PER_ORDER + line)))
+                    .append("orderId", Synthetic.orderId(i))
+                    .append("productId", Synthetic.productId(product))
+                    .append("quantity", quantity)
+                    .append("price", price)
+                    .append("_class", MODEL + "OrderItem"));
+        }
+
+        Document order = new Document("_id", new ObjectId(Synthetic.orderId(i)))
+                .append("userId", Synthetic.userId((mix >>> 32) % dataset.users()))
+                .append("totalAmount", total)
+                .append("status", status)
+                .append("paymentStatus", paymentStatus)
+                .append("createdAt", Date.from(createdAt))
+                .append("_class", MODEL + "Order");
+        Document payment = new Document("_id", new ObjectId(Synthetic.paymentId(i)))
+                .append("orderId", Synthetic.orderId(i))
+                .append("amount", total)
+                .append("status", paymentStatus)
+                .append("razorpayOrderId", Synthetic.razorpayOrderId(i))
+                .append("createdAt", Date.from(createdAt))
+                .append("_class", MODEL + "Payment");
+        if ("PAID".equals(status)) {
+            Date paidAt = Date.from(createdAt.plusSeconds(30 + (mix >>> 24) % 600));
+            order.append("paidAt", paidAt);
+            payment.append("razorpayPaymentId", "pay_seed" + i);
+        }
+        orders.add(order);
+        payments.add(payment);
+    }
+
+    /** SplitMix64 finalizer: spreads the order index over the bits that pick status, user and lines */
+    private static long mix(long i) {
+        long z = i + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void flush(MongoCollection<Document> collection, List<Document> batch) {
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch, new InsertManyOptions().ordered(false));
+            batch.clear();
+        }
+    }
+
+    /** Splits [0, count) into one contiguous range per thread */
+    private void parallel(long count, RangeTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long chunk = (count + threads - 1) / threads;
+            for (long from = 0; from < count; from += chunk) {
+                long start = from;
+                long end = Math.min(count, from + chunk);
+                futures.add(executor.submit(() -> {
+                    task.run(start, end);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void progress(String what, long done, long total) {
+        long step = Math.max(batchSize, total / 20 / batchSize * batchSize);
+        if (done % step == 0) {
+            System.out.printf("  %s: %,d / %,d%n", what, done, total);
+        }
+    }
+
+    private static void report(String what, long count, long startedNanos) {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        System.out.printf("Seeded %,d %s in %.1fs (%,.0f/s)%n", count, what, seconds, count / Math.max(seconds, 0.001));
+    }
+
+    @FunctionalInterface
+    private interface RangeTask {
+        void run(long from, long to) throws Exception;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.ecommerce.loadtest.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the Razorpay Orders API used by load tests.
+ *
+ * Latency and errors can be injected at startup through system properties
+ * (stub.latency.ms, stub.jitter.ms, stub.error.rate) or at runtime with
+ * {@code POST /__stub/config?latencyMs=200&jitterMs=50&errorRate=0.1}.
+ * {@code POST /__stub/pay/{orderId}?status=captured} records a payment attempt so
+ * reconciliation can be exercised without webhooks.
+ *
+ * Run without a build: {@code java loadtest/src/main/java/com/example/ecommerce/loadtest/stub/RazorpayStubServer.java 9100}
+ * and start the backend with {@code RAZORPAY_API_BASE_URL=http://localhost:9100}.
+ */
+public class RazorpayStubServer {
+
+    private static final Pattern AMOUNT = Pattern.compile("\"amount\"\\s*:\\s*(\\d+)");
+    private static final Pattern RECEIPT = Pattern.compile("\"receipt\"\\s*:\\s*\"([^\"]*)\"");
+
+    private final Map<String, String> orders = new ConcurrentHashMap<>();
+    private final Map<String, String> orderPayments = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final HttpServer server;
+
+    private volatile long latencyMs = Long.getLong("stub.latency.ms", 0);
+    private volatile long jitterMs = Long.getLong("stub.jitter.ms", 0);
+    private volatile double errorRate = Double.parseDouble(System.getProperty("stub.error.rate", "0"));
+
+    public RazorpayStubServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/v1/orders", this::handleOrders);
+        server.createContext("/__stub/config", this::handleConfig);
+        server.createContext("/__stub/pay/", this::handlePay);
+        server.setExecutor(Executors.newCachedThreadPool());
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9100;
+        RazorpayStubServer stub = new RazorpayStubServer(port);
+        stub.start();
+        System.out.println("Razorpay stub listening on http://localhost:" + port);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleOrders(HttpExchange exchange) throws IOException {
+        injectLatency();
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            respond(exchange, 503, "{\"error\":{\"code\":\"SERVER_ERROR\",\"description\":\"Injected failure\"}}");
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        if ("POST".equals(exchange.getRequestMethod()) && path.equals("/v1/orders")) {
+            String body = readBody(exchange);
+            String id = "order_stub" + sequence.incrementAndGet();
+            String order = "{\"id\":\"" + id + "\",\"entity\":\"order\",\"amount\":" + match(AMOUNT, body, "0")
+                    + ",\"currency\":\"INR\",\"receipt\":\"" + match(RECEIPT, body, "")
+                    + "\",\"status\":\"created\",\"created_at\":" + System.currentTimeMillis() / 1000 + "}";
+            orders.put(id, order);
+            respond(exchange, 200, order);
+        } else if ("GET".equals(exchange.getRequestMethod()) && path.endsWith("/payments")) {
+            String orderId = path.substring("/v1/orders/".length(), path.length() - "/payments".length());
+            String payment = orderPayments.get(orderId);
+            respond(exchange, 200, payment == null
+                    ? "{\"entity\":\"collection\",\"count\":0,\"items\":[]}"
+                    : "{\"entity\":\"collection\",\"count\":1,\"items\":[" + payment + "]}");
+        } else if ("GET".equals(exchange.getRequestMethod()) && path.startsWith("/v1/orders/")) {
+            String order = orders.get(path.substring("/v1/orders/".length()));
+            if (order == null) {
+                respond(exchange, 400, "{\"error\":{\"code\":\"BAD_REQUEST_ERROR\",\"description\":\"The id provided does not exist\"}}");
+            } else {
+                respond(exchange, 200, order);
+            }
+        } else {
+            respond(exchange, 404, "{\"error\":{\"code\":\"NOT_FOUND\",\"description\":\"Unknown endpoint\"}}");
+        }
+    }
+
+    private void handlePay(HttpExchange exchange) throws IOException {
+        String orderId = exchange.getRequestURI().getPath().substring("/__stub/pay/".length());
+        String query = exchange.getRequestURI().getQuery();
+        String status = query != null && query.startsWith("status=") ? query.substring("status=".length()) : "captured";
+        String paymentId = "pay_stub" + sequence.incrementAndGet();
+        orderPayments.put(orderId, "{\"id\":\"" + paymentId + "\",\"entity\":\"payment\",\"order_id\":\""
+                + orderId + "\",\"status\":\"" + status + "\"}");
+        respond(exchange, 200, "{\"id\":\"" + paymentId + "\",\"status\":\"" + status + "\"}");
+    }
+
+    private void handleConfig(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                String[] kv = param.split("=", 2);
+                if (kv.length != 2) {
+                    continue;
+                }
+                switch (kv[0]) {
+                    case "latencyMs" -> latencyMs = Long.parseLong(kv[1]);
+                    case "jitterMs" -> jitterMs = Long.parseLong(kv[1]);
+                    case "errorRate" -> errorRate = Double.parseDouble(kv[1]);
+                    default -> { }
+                }
+            }
+        }
+        respond(exchange, 200, "{\"latencyMs\":" + latencyMs + ",\"jitterMs\":" + jitterMs
+                + ",\"errorRate\":" + errorRate + "}");
+    }
+
+    private void injectLatency() {
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String match(Pattern pattern, String body, String fallback) {
+        Matcher m = pattern.matcher(body);
+        return m.find() ? m.group(1) : fallback;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.ecommerce.loadtest.stub;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local SMTP sink for exercising the email outbox. Accepts plain SMTP (no TLS,
+ * no AUTH), discards message bodies and prints running totals of connections,
+ * accepted and rejected messages every 10 seconds, which shows whether batches
+ * share a connection.
+ *
+ * Latency per message and a rejection rate can be injected with system
+ * properties (stub.smtp.latency.ms, stub.smtp.reject.rate); rejected messages
+ * get a transient 451 so the outbox retries them.
+ *
+ * Run without a build: {@code java loadtest/src/main/java/com/example/ecommerce/loadtest/stub/SmtpStubServer.java 2525}
+ * and start the backend with {@code MAIL_HOST=localhost MAIL_PORT=2525 MAIL_SMTP_AUTH=false MAIL_SMTP_STARTTLS=false}.
+ */
+public class SmtpStubServer {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final long latencyMs;
+    private final double rejectRate;
+
+    public SmtpStubServer(int port) throws IOException {
+        this(port, Long.getLong("stub.smtp.latency.ms", 0),
+                Double.parseDouble(System.getProperty("stub.smtp.reject.rate", "0")));
+    }
+
+    /**
+     * @param port 0 for any free port, see {@link #getPort()}
+     */
+    public SmtpStubServer(int port, long latencyMs, double rejectRate) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+        this.latencyMs = latencyMs;
+        this.rejectRate = rejectRate;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 2525;
+        SmtpStubServer stub = new SmtpStubServer(port);
+        System.out.println("SMTP stub listening on localhost:" + port);
+        Thread reporter = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                System.out.println(stub.stats());
+            }
+        });
+        reporter.setDaemon(true);
+        reporter.start();
+        stub.serve();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getConnections() {
+        return connections.get();
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public String stats() {
+        return "connections=" + connections.get() + " accepted=" + accepted.get() + " rejected=" + rejected.get();
+    }
+
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket = serverSocket.accept();
+            connections.incrementAndGet();
+            executor.submit(() -> handle(socket));
+        }
+    }
+
+    public void stop() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 localhost SMTP stub");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250-PIPELINING\r\n250 8BITMIME");
+                    case "HELO" -> reply(out, "250 localhost");
+                    case "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data;
+                        while ((data = in.readLine()) != null && !data.equals(".")) {
+                            // discard the message body
+                        }
+                        pause();
+                        if (ThreadLocalRandom.current().nextDouble() < rejectRate) {
+                            rejected.incrementAndGet();
+                            reply(out, "451 Try again later");
+                        } else {
+                            accepted.incrementAndGet();
+                            reply(out, "250 Queued");
+                        }
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private void pause() {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void reply(OutputStream out, String message) throws IOException {
+        out.write((message + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.loadtest.stub.SmtpStubServer;
+import com.example.ecommerce.model.EmailOutboxEntry;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderStatus;
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.util.EmailUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the outbox against the SMTP stand-in over a real socket. Mongo is
+ * mocked: the claimed batch is handed out as-is and the recorded outcomes are
+ * read back from the bulk write.
+ */
+class EmailOutboxSmtpTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private SmtpStubServer stub;
+
+    @AfterEach
+    void stopStub() throws IOException {
+        if (stub != null) {
+            stub.stop();
+        }
+    }
+
+    @Test
+    void sendsBatchOverOneConnection() throws IOException {
+        EmailOutboxService outbox = outbox(0);
+        givenBatch(Map.of("o1", OrderStatus.PAID, "o2", OrderStatus.PAID, "o3", OrderStatus.PAID));
+
+        outbox.drain();
+
+        assertEquals(3, stub.getAccepted());
+        assertEquals(1, stub.getConnections());
+        Map<String, Document> updates = recordedUpdates(3);
+        for (Document set : updates.values()) {
+            assertEquals(EmailOutboxEntry.Status.SENT, set.get("status"));
+            assertEquals(1, set.get("attempts"));
+            assertNotNull(set.get("sentAt"));
+        }
+    }
+
+    @Test
+    void retriesRejectedMessagesWithBackoff() throws IOException {
+        EmailOutboxService outbox = outbox(1.0);
+        givenBatch(Map.of("o1", OrderStatus.PAID, "o2", OrderStatus.PAID));
+        Instant before = Instant.now();
+
+        outbox.drain();
+
+        assertEquals(0, stub.getAccepted());
+        assertTrue(stub.getRejected() >= 1);
+        for (Document set : recordedUpdates(2).values()) {
+            assertEquals(EmailOutboxEntry.Status.PENDING, set.get("status"));
+            assertEquals(1, set.get("attempts"));
+            assertNotNull(set.get("lastError"));
+            assertTrue(((Instant) set.get("nextAttemptAt")).isAfter(before));
+        }
+    }
+
+    @Test
+    void cancelsConfirmationsForOrdersThatWillNotBePaid() throws IOException {
+        EmailOutboxService outbox = outbox(0);
+        givenBatch(Map.of("cancelled", OrderStatus.CANCELLED, "unpaid", OrderStatus.CREATED));
+
+        outbox.drain();
+
+        assertEquals(0, stub.getConnections());
+        Map<String, Document> updates = recordedUpdates(2);
+        assertEquals(EmailOutboxEntry.Status.CANCELLED, updates.get(idFor("cancelled")).get("status"));
+        Document unpaid = updates.get(idFor("unpaid"));
+        assertEquals(EmailOutboxEntry.Status.PENDING, unpaid.get("status"));
+        assertFalse(unpaid.containsKey("attempts"), "waiting for payment must not use up an attempt");
+    }
+
+    @Test
+    void withdrawsOnlyPendingConfirmations() throws IOException {
+        EmailOutboxService outbox = outbox(0);
+
+        outbox.cancelOrderConfirmation("o1");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(EmailOutboxEntry.class));
+        assertEquals(idFor("o1"), query.getValue().getQueryObject().get("id"));
+        assertEquals(EmailOutboxEntry.Status.PENDING, query.getValue().getQueryObject().get("status"));
+        assertEquals(EmailOutboxEntry.Status.CANCELLED, set(update.getValue()).get("status"));
+    }
+
+    private EmailOutboxService outbox(double rejectRate) throws IOException {
+        stub = new SmtpStubServer(0, 0, rejectRate);
+        Thread server = new Thread(() -> {
+            try {
+                stub.serve();
+            } catch (IOException e) {
+                // stopped
+            }
+        });
+        server.setDaemon(true);
+        server.start();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(stub.getPort());
+        EmailUtil emailUtil = new EmailUtil();
+        ReflectionTestUtils.setField(emailUtil, "fromEmail", "noreply@labubu.store");
+
+        EmailOutboxService outbox = new EmailOutboxService();
+        ReflectionTestUtils.setField(outbox, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(outbox, "mailSender", mailSender);
+        ReflectionTestUtils.setField(outbox, "emailUtil", emailUtil);
+        ReflectionTestUtils.setField(outbox, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outbox, "enabled", true);
+        ReflectionTestUtils.setField(outbox, "batchSize", 50);
+        ReflectionTestUtils.setField(outbox, "maxBatchesPerRun", 1);
+        ReflectionTestUtils.setField(outbox, "claimTtlMs", 120_000L);
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 8);
+        ReflectionTestUtils.setField(outbox, "backoffBaseMs", 30_000L);
+        ReflectionTestUtils.setField(outbox, "backoffMaxMs", 3_600_000L);
+        ReflectionTestUtils.setField(outbox, "ratePerSecond", 100);
+        ReflectionTestUtils.setField(outbox, "domainRatePerMinute", 1000);
+        ReflectionTestUtils.setField(outbox, "retentionDays", 30L);
+        ReflectionTestUtils.setField(outbox, "unpaidMaxAgeHours", 168L);
+        outbox.init();
+        return outbox;
+    }
+
+    /**
+     * One claimed entry per order, each order belonging to its own user
+     */
+    private void givenBatch(Map<String, OrderStatus> orderStatuses) {
+        List<EmailOutboxEntry> entries = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        orderStatuses.forEach((orderId, status) -> {
+            EmailOutboxEntry entry = new EmailOutboxEntry();
+            entry.setId(idFor(orderId));
+            entry.setType(EmailOutboxEntry.Type.ORDER_CONFIRMATION);
+            entry.setOrderId(orderId);
+            entry.setStatus(EmailOutboxEntry.Status.SENDING);
+            entry.setClaimToken("claim");
+            entry.setCreatedAt(Instant.now().minus(Duration.ofSeconds(5)));
+            entries.add(entry);
+
+            Order order = new Order("user-" + orderId, 1299.0);
+            order.setId(orderId);
+            order.setStatus(status);
+            orders.add(order);
+
+            User user = new User();
+            user.setId("user-" + orderId);
+            user.setEmail(orderId + "@example.com");
+            users.add(user);
+        });
+        when(mongoTemplate.find(any(Query.class), eq(EmailOutboxEntry.class))).thenReturn(entries);
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(orders);
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(users);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(EmailOutboxEntry.class))).thenReturn(bulk);
+    }
+
+    /**
+     * The {@code $set} of each recorded outcome, by entry id
+     */
+    private Map<String, Document> recordedUpdates(int expected) {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(expected)).updateOne(query.capture(), update.capture());
+        verify(bulk).execute();
+        Map<String, Document> updates = new HashMap<>();
+        for (int i = 0; i < expected; i++) {
+            updates.put((String) query.getAllValues().get(i).getQueryObject().get("id"), set(update.getAllValues().get(i)));
+        }
+        return updates;
+    }
+
+    private static Document set(Update update) {
+        return (Document) update.getUpdateObject().get("$set");
+    }
+
+    private static String idFor(String orderId) {
+        return EmailOutboxEntry.idFor(EmailOutboxEntry.Type.ORDER_CONFIRMATION, orderId);
+    }
+}